@@ -4,7 +4,10 @@ import jakarta.annotation.Nonnull;
 import software.coley.recaf.info.builder.FileInfoBuilder;
 import software.coley.recaf.info.properties.Property;
 import software.coley.recaf.info.properties.PropertyContainer;
+import software.coley.recaf.util.Unchecked;
+import software.coley.recaf.util.io.ByteSource;
 
+import java.lang.ref.SoftReference;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -17,11 +20,16 @@ public class BasicFileInfo implements FileInfo {
 	private final PropertyContainer properties;
 	private final String name;
 	private final byte[] rawContent;
+	private final ByteSource contentSource;
+	private SoftReference<byte[]> cachedContent;
+	private int hash;
+	private boolean hashZero;
 
 	public BasicFileInfo(FileInfoBuilder<?> builder) {
-		this(builder.getName(),
-				builder.getRawContent(),
-				builder.getProperties());
+		this.name = builder.getName();
+		this.contentSource = builder.getContentSource();
+		this.rawContent = contentSource == null ? builder.getRawContent() : null;
+		this.properties = builder.getProperties();
 	}
 
 	/**
@@ -35,13 +43,60 @@ public class BasicFileInfo implements FileInfo {
 	public BasicFileInfo(String name, byte[] rawContent, PropertyContainer properties) {
 		this.name = name;
 		this.rawContent = rawContent;
+		this.contentSource = null;
+		this.properties = properties;
+	}
+
+	/**
+	 * @param name
+	 * 		File name/path.
+	 * @param contentSource
+	 * 		Source to read the contents of the file from on demand.
+	 * @param properties
+	 * 		Assorted properties.
+	 */
+	public BasicFileInfo(String name, ByteSource contentSource, PropertyContainer properties) {
+		this.name = name;
+		this.rawContent = null;
+		this.contentSource = contentSource;
 		this.properties = properties;
 	}
 
 	@Nonnull
 	@Override
 	public byte[] getRawContent() {
-		return rawContent;
+		if (rawContent != null)
+			return rawContent;
+
+		// Content is read from the source on demand, and only softly cached so that it can be
+		// dropped again under memory pressure.
+		SoftReference<byte[]> cachedContent = this.cachedContent;
+		byte[] content = cachedContent == null ? null : cachedContent.get();
+		if (content == null) {
+			content = Unchecked.get(contentSource::readAll);
+			this.cachedContent = new SoftReference<>(content);
+		}
+		return content;
+	}
+
+	/**
+	 * @return {@code true} when the content is not held on the heap, but read from a source on demand.
+	 */
+	public boolean isContentSourced() {
+		return contentSource != null;
+	}
+
+	/**
+	 * @return Length of the content, without reading it from its source where possible.
+	 */
+	private long getContentLength() {
+		if (rawContent != null)
+			return rawContent.length;
+		SoftReference<byte[]> cachedContent = this.cachedContent;
+		byte[] content = cachedContent == null ? null : cachedContent.get();
+		if (content != null)
+			return content.length;
+		return Unchecked.get(contentSource::length);
 	}
 
 	@Nonnull
@@ -58,13 +113,26 @@ public class BasicFileInfo implements FileInfo {
 		BasicFileInfo other = (BasicFileInfo) o;
 
 		if (!name.equals(other.name)) return false;
-		return Arrays.equals(rawContent, other.rawContent);
+		if (contentSource != null && contentSource == other.contentSource) return true;
+		if (rawContent != null && rawContent == other.rawContent) return true;
+		if (hash != 0 && other.hash != 0 && hash != other.hash) return false;
+		if (getContentLength() != other.getContentLength()) return false;
+		return Arrays.equals(getRawContent(), other.getRawContent());
 	}
 
 	@Override
 	public int hashCode() {
-		int result = name.hashCode();
-		result = 31 * result + Arrays.hashCode(rawContent);
+		// Content does not change, so the hash only needs to be computed once.
+		// Same benign race as String.hashCode(), with a flag for hashes of zero.
+		int result = hash;
+		if (result == 0 && !hashZero) {
+			result = name.hashCode();
+			result = 31 * result + Arrays.hashCode(getRawContent());
+			if (result == 0)
+				hashZero = true;
+			else
+				hash = result;
+		}
 		return result;
 	}
 
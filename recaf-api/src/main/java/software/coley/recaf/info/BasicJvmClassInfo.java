@@ -5,6 +5,7 @@ import org.objectweb.asm.ClassReader;
 import software.coley.recaf.info.builder.JvmClassInfoBuilder;
 
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Basic JVM class info implementation.
@@ -15,6 +16,7 @@ public class BasicJvmClassInfo extends BasicClassInfo implements JvmClassInfo {
 	private final byte[] bytecode;
 	private final int version;
 	private ClassReader reader;
+	private int hash;
 
 	/**
 	 * @param builder
@@ -48,20 +50,28 @@ public class BasicJvmClassInfo extends BasicClassInfo implements JvmClassInfo {
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-
-		BasicJvmClassInfo that = (BasicJvmClassInfo) o;
+		if (!(o instanceof BasicJvmClassInfo that)) return false;
 
+		// NOTE: The rest of the model is derived from the bytecode, so it is not compared.
+		//       This keeps lazily populated models from being populated just to be compared.
+		//       The header values are still compared as builders can change them without updating the bytecode.
 		if (version != that.version) return false;
-		return Arrays.equals(bytecode, that.bytecode);
+		if (getAccess() != that.getAccess()) return false;
+		if (!getName().equals(that.getName())) return false;
+		if (!Objects.equals(getSuperName(), that.getSuperName())) return false;
+		if (!getInterfaces().equals(that.getInterfaces())) return false;
+		return hashCode() == that.hashCode() && Arrays.equals(bytecode, that.bytecode);
 	}
 
 	@Override
 	public int hashCode() {
-		int result = super.hashCode();
-		result = 31 * result + Arrays.hashCode(bytecode);
-		result = 31 * result + version;
+		int result = hash;
+		if (result == 0) {
+			result = getName().hashCode();
+			result = 31 * result + Arrays.hashCode(bytecode);
+			result = 31 * result + version;
+			hash = result;
+		}
 		return result;
 	}
 
@@ -1,7 +1,10 @@
 package software.coley.recaf.info;
 
+import jakarta.annotation.Nonnull;
 import software.coley.recaf.info.builder.FileInfoBuilder;
+import software.coley.recaf.util.LineIndex;
 
+import java.lang.ref.SoftReference;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -11,6 +14,9 @@ import java.nio.charset.StandardCharsets;
  */
 public class BasicTextFileInfo extends BasicFileInfo implements TextFileInfo {
 	private String text;
+	private LineIndex lineIndex;
+	private SoftReference<String> cachedText;
+	private SoftReference<LineIndex> cachedLineIndex;
 
 	/**
 	 * @param builder
@@ -22,8 +28,37 @@ public class BasicTextFileInfo extends BasicFileInfo implements TextFileInfo {
 
 	@Override
 	public String getText() {
-		if (text == null)
-			text = new String(getRawContent(), StandardCharsets.UTF_8);
+		String text = this.text;
+		if (text == null) {
+			// Like the content itself, text decoded from a content source is only softly cached.
+			SoftReference<String> cachedText = this.cachedText;
+			text = cachedText == null ? null : cachedText.get();
+			if (text == null) {
+				text = new String(getRawContent(), StandardCharsets.UTF_8);
+				if (isContentSourced())
+					this.cachedText = new SoftReference<>(text);
+				else
+					this.text = text;
+			}
+		}
 		return text;
 	}
+
+	@Nonnull
+	@Override
+	public LineIndex getLineIndex() {
+		LineIndex lineIndex = this.lineIndex;
+		if (lineIndex == null) {
+			SoftReference<LineIndex> cachedLineIndex = this.cachedLineIndex;
+			lineIndex = cachedLineIndex == null ? null : cachedLineIndex.get();
+			if (lineIndex == null) {
+				lineIndex = LineIndex.of(getText());
+				if (isContentSourced())
+					this.cachedLineIndex = new SoftReference<>(lineIndex);
+				else
+					this.lineIndex = lineIndex;
+			}
+		}
+		return lineIndex;
+	}
 }
@@ -0,0 +1,148 @@
+package software.coley.recaf.info;
+
+import jakarta.annotation.Nonnull;
+import org.objectweb.asm.ClassReader;
+import software.coley.recaf.info.annotation.AnnotationInfo;
+import software.coley.recaf.info.annotation.TypeAnnotationInfo;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+import software.coley.recaf.info.member.BasicMember;
+import software.coley.recaf.info.member.FieldMember;
+import software.coley.recaf.info.member.MethodMember;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JVM class info implementation that only holds the class file header <i>(name, super-name, interfaces, access and
+ * version)</i> up-front. The remaining model <i>(members, annotations, inner classes, etc)</i> is parsed
+ * from the bytecode the first time any part of it is requested.
+ *
+ * @author Matt Coley
+ * @see JvmClassInfoBuilder#adaptHeaderFrom(ClassReader)
+ * @see JvmClassInfoBuilder#buildLazy()
+ */
+public class LazyJvmClassInfo extends BasicJvmClassInfo {
+	private volatile Model model;
+
+	/**
+	 * @param builder
+	 * 		Builder to pull header info from.
+	 */
+	public LazyJvmClassInfo(@Nonnull JvmClassInfoBuilder builder) {
+		super(builder);
+	}
+
+	/**
+	 * @return {@code true} when the full class model has been parsed from the bytecode.
+	 */
+	public boolean isModelPopulated() {
+		return model != null;
+	}
+
+	@Override
+	public String getSignature() {
+		return model().signature();
+	}
+
+	@Override
+	public String getSourceFileName() {
+		return model().sourceFileName();
+	}
+
+	@Nonnull
+	@Override
+	public List<AnnotationInfo> getAnnotations() {
+		return model().annotations();
+	}
+
+	@Nonnull
+	@Override
+	public List<TypeAnnotationInfo> getTypeAnnotations() {
+		return model().typeAnnotations();
+	}
+
+	@Override
+	public String getOuterClassName() {
+		return model().outerClassName();
+	}
+
+	@Override
+	public String getOuterMethodName() {
+		return model().outerMethodName();
+	}
+
+	@Override
+	public String getOuterMethodDescriptor() {
+		return model().outerMethodDescriptor();
+	}
+
+	@Nonnull
+	@Override
+	public List<InnerClassInfo> getInnerClasses() {
+		return model().innerClasses();
+	}
+
+	@Nonnull
+	@Override
+	public List<FieldMember> getFields() {
+		return model().fields();
+	}
+
+	@Nonnull
+	@Override
+	public List<MethodMember> getMethods() {
+		return model().methods();
+	}
+
+	@Nonnull
+	private Model model() {
+		Model model = this.model;
+		if (model == null) {
+			// Parsing is expensive, so other threads wait for the first request to complete
+			// and then use the singular result.
+			synchronized (this) {
+				model = this.model;
+				if (model == null) {
+					// We do not use 'getClassReader()' here since it caches the reader, and we do not want to
+					// retain the reader's constant pool caches for every class that only needs its model.
+					JvmClassInfoBuilder builder = new JvmClassInfoBuilder().adaptFrom(new ClassReader(getBytecode()));
+					model = new Model(builder.getSignature(),
+							builder.getSourceFileName(),
+							builder.getAnnotations(),
+							builder.getTypeAnnotations(),
+							builder.getOuterClassName(),
+							builder.getOuterMethodName(),
+							builder.getOuterMethodDescriptor(),
+							builder.getInnerClasses(),
+							builder.getFields(),
+							builder.getMethods());
+
+					// Link fields/methods to self
+					Stream.concat(model.fields().stream(), model.methods().stream())
+							.filter(member -> member instanceof BasicMember)
+							.map(member -> (BasicMember) member)
+							.forEach(member -> member.setDeclaringClass(this));
+					this.model = model;
+				}
+			}
+		}
+		return model;
+	}
+
+	@Override
+	public String toString() {
+		return "JVM class: " + getName();
+	}
+
+	/**
+	 * Lazily populated portion of the class model.
+	 */
+	private record Model(String signature, String sourceFileName,
+						 @Nonnull List<AnnotationInfo> annotations,
+						 @Nonnull List<TypeAnnotationInfo> typeAnnotations,
+						 String outerClassName, String outerMethodName, String outerMethodDescriptor,
+						 @Nonnull List<InnerClassInfo> innerClasses,
+						 @Nonnull List<FieldMember> fields,
+						 @Nonnull List<MethodMember> methods) {
+	}
+}
@@ -1,6 +1,7 @@
 package software.coley.recaf.info;
 
 import jakarta.annotation.Nonnull;
+import software.coley.recaf.util.LineIndex;
 
 /**
  * Outline of a text file.
@@ -13,6 +14,14 @@ public interface TextFileInfo extends FileInfo {
 	 */
 	String getText();
 
+	/**
+	 * @return Offsets of lines in {@link #getText()}.
+	 */
+	@Nonnull
+	default LineIndex getLineIndex() {
+		return LineIndex.of(getText());
+	}
+
 	@Nonnull
 	@Override
 	default TextFileInfo asTextFile() {
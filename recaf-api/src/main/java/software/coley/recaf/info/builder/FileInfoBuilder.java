@@ -4,6 +4,8 @@ import software.coley.recaf.info.*;
 import software.coley.recaf.info.properties.BasicPropertyContainer;
 import software.coley.recaf.info.properties.PropertyContainer;
 import software.coley.recaf.util.StringUtil;
+import software.coley.recaf.util.Unchecked;
+import software.coley.recaf.util.io.ByteSource;
 
 /**
  * Common builder info for {@link FileInfo}.
@@ -17,9 +19,11 @@ import software.coley.recaf.util.StringUtil;
  * @see ModulesFileInfoBuilder
  */
 public class FileInfoBuilder<B extends FileInfoBuilder<?>> {
+	private static final int TEXT_CHECK_SIZE = 16384;
 	private PropertyContainer properties = new BasicPropertyContainer();
 	private String name;
 	private byte[] rawContent;
+	private ByteSource contentSource;
 
 	public FileInfoBuilder() {
 		// default
@@ -34,7 +38,10 @@ public class FileInfoBuilder<B extends FileInfoBuilder<?>> {
 
 	protected FileInfoBuilder(FileInfoBuilder<?> other) {
 		withName(other.getName());
-		withRawContent(other.getRawContent());
+		if (other.getContentSource() != null)
+			withContentSource(other.getContentSource());
+		else
+			withRawContent(other.getRawContent());
 		withProperties(other.getProperties());
 	}
 
@@ -83,6 +90,23 @@ public class FileInfoBuilder<B extends FileInfoBuilder<?>> {
 	@SuppressWarnings("unchecked")
 	public B withRawContent(byte[] rawContent) {
 		this.rawContent = rawContent;
+		this.contentSource = null;
+		return (B) this;
+	}
+
+	/**
+	 * Used in place of {@link #withRawContent(byte[])} so that the built info reads its content on demand
+	 * rather than holding it on the heap.
+	 *
+	 * @param contentSource
+	 * 		Source of the file content.
+	 *
+	 * @return Self.
+	 */
+	@SuppressWarnings("unchecked")
+	public B withContentSource(ByteSource contentSource) {
+		this.contentSource = contentSource;
+		this.rawContent = null;
 		return (B) this;
 	}
 
@@ -95,15 +119,32 @@ public class FileInfoBuilder<B extends FileInfoBuilder<?>> {
 	}
 
 	public byte[] getRawContent() {
+		if (rawContent == null && contentSource != null)
+			return Unchecked.get(contentSource::readAll);
 		return rawContent;
 	}
 
+	public ByteSource getContentSource() {
+		return contentSource;
+	}
+
 	public BasicFileInfo build() {
 		if (name == null) throw new IllegalArgumentException("Name is required");
-		if (rawContent == null) throw new IllegalArgumentException("Content is required");
-		if (StringUtil.isText(rawContent))
+		if (rawContent == null && contentSource == null) throw new IllegalArgumentException("Content is required");
+		if (isText())
 			return new BasicTextFileInfo(this);
 		else
 			return new BasicFileInfo(this);
 	}
+
+	/**
+	 * @return {@code true} when the content is text.
+	 * Content from a {@link #getContentSource() source} only has a bounded prefix checked, so it is not read in full.
+	 */
+	private boolean isText() {
+		if (contentSource == null)
+			return StringUtil.isText(rawContent);
+		byte[] prefix = Unchecked.get(() -> contentSource.peek(TEXT_CHECK_SIZE));
+		return prefix.length < TEXT_CHECK_SIZE ? StringUtil.isText(prefix) : StringUtil.isTextPrefix(prefix);
+	}
 }
@@ -1,11 +1,13 @@
 package software.coley.recaf.info.builder;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.objectweb.asm.*;
 import software.coley.recaf.info.BasicInnerClassInfo;
 import software.coley.recaf.info.BasicJvmClassInfo;
 import software.coley.recaf.info.InnerClassInfo;
 import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.LazyJvmClassInfo;
 import software.coley.recaf.info.annotation.*;
 import software.coley.recaf.info.member.*;
 
@@ -61,7 +63,53 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 	@Nonnull
 	@SuppressWarnings("deprecation")
 	public JvmClassInfoBuilder adaptFrom(@Nonnull ClassReader reader) {
-		reader.accept(new ClassBuilderAppender(), 0);
+		reader.accept(adaptingVisitor(), 0);
+		return withBytecode(reader.b);
+	}
+
+	/**
+	 * Allows populating the builder as part of a larger visitor chain, so that other passes over the class
+	 * can share a single read of the class file. Unlike {@link #adaptFrom(ClassReader)} the bytecode is not
+	 * recorded, and must be set via {@link #withBytecode(byte[])}.
+	 *
+	 * @return Visitor that copies over values of the visited class into this builder.
+	 */
+	@Nonnull
+	public ClassVisitor adaptingVisitor() {
+		return adaptingVisitor(null);
+	}
+
+	/**
+	 * Allows populating the builder as part of a larger visitor chain, so that other passes over the class
+	 * can share a single read of the class file. All visited values are passed along to the given delegate.
+	 *
+	 * @param delegate
+	 * 		Visitor to pass visited values along to, or {@code null} for none.
+	 *
+	 * @return Visitor that copies over values of the visited class into this builder.
+	 */
+	@Nonnull
+	public ClassVisitor adaptingVisitor(@Nullable ClassVisitor delegate) {
+		return new ClassBuilderAppender(delegate);
+	}
+
+	/**
+	 * Copies over only the values of the class file header: The version, access, name, super-name and interfaces.
+	 * Other parts of the model are not read. Used to create a {@link #buildLazy() lazy class model}.
+	 *
+	 * @param reader
+	 * 		ASM class reader to pull data from.
+	 *
+	 * @return Builder.
+	 */
+	@Nonnull
+	@SuppressWarnings("deprecation")
+	public JvmClassInfoBuilder adaptHeaderFrom(@Nonnull ClassReader reader) {
+		withVersion(reader.readInt(reader.getItem(1) - 7));
+		withAccess(readHeaderAccess(reader));
+		withName(reader.getClassName());
+		withSuperName(reader.getSuperName());
+		withInterfaces(Arrays.asList(reader.getInterfaces()));
 		return withBytecode(reader.b);
 	}
 
@@ -91,6 +139,18 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 		return new BasicJvmClassInfo(this);
 	}
 
+	/**
+	 * Builds a class that only populates its members, annotations and other non-header
+	 * values from the bytecode once they are first requested.
+	 *
+	 * @return Lazily populated class model.
+	 */
+	@Nonnull
+	public JvmClassInfo buildLazy() {
+		verify();
+		return new LazyJvmClassInfo(this);
+	}
+
 	@Override
 	protected void verify() {
 		super.verify();
@@ -100,6 +160,50 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 			throw new IllegalStateException("Version cannot be lower than 44 (v1)");
 	}
 
+	/**
+	 * ASM merges some class attributes into the access flags passed to {@link ClassVisitor#visit}.
+	 * To match what a full read would yield, we skip over the fields and methods and check for those attributes.
+	 *
+	 * @param reader
+	 * 		ASM class reader to pull data from.
+	 *
+	 * @return Class access flags, including the pseudo-flags ASM derives from class attributes.
+	 */
+	private static int readHeaderAccess(@Nonnull ClassReader reader) {
+		int offset = reader.header;
+		int access = reader.readUnsignedShort(offset);
+
+		// Skip 'this', 'super' and interfaces.
+		offset += 8 + 2 * reader.readUnsignedShort(offset + 6);
+
+		// Skip fields, then methods. Both have the same layout.
+		for (int i = 0; i < 2; i++) {
+			int memberCount = reader.readUnsignedShort(offset);
+			offset += 2;
+			while (memberCount-- > 0) {
+				int attributeCount = reader.readUnsignedShort(offset + 6);
+				offset += 8;
+				while (attributeCount-- > 0)
+					offset += 6 + reader.readInt(offset + 2);
+			}
+		}
+
+		// Check class attributes.
+		char[] buffer = new char[reader.getMaxStringLength()];
+		int attributeCount = reader.readUnsignedShort(offset);
+		offset += 2;
+		while (attributeCount-- > 0) {
+			String attributeName = reader.readUTF8(offset, buffer);
+			switch (attributeName) {
+				case "Deprecated" -> access |= Opcodes.ACC_DEPRECATED;
+				case "Synthetic" -> access |= Opcodes.ACC_SYNTHETIC;
+				case "Record" -> access |= Opcodes.ACC_RECORD;
+			}
+			offset += 6 + reader.readInt(offset + 2);
+		}
+		return access;
+	}
+
 	private class ClassBuilderAppender extends ClassVisitor {
 		private final List<AnnotationInfo> annotations = new ArrayList<>();
 		private final List<TypeAnnotationInfo> typeAnnotations = new ArrayList<>();
@@ -107,8 +211,8 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 		private final List<FieldMember> fields = new ArrayList<>();
 		private final List<MethodMember> methods = new ArrayList<>();
 
-		protected ClassBuilderAppender() {
-			super(getAsmVersion());
+		protected ClassBuilderAppender(@Nullable ClassVisitor cv) {
+			super(getAsmVersion(), cv);
 		}
 
 		@Override
@@ -138,13 +242,14 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-			return new AnnotationBuilderAppender(visible, descriptor, annotations::add);
+			return new AnnotationBuilderAppender(super.visitAnnotation(descriptor, visible),
+					visible, descriptor, annotations::add);
 		}
 
 		@Override
 		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
-			return new AnnotationBuilderAppender(visible, descriptor,
-					anno -> typeAnnotations.add(anno.withTypeInfo(typeRef, typePath)));
+			return new AnnotationBuilderAppender(super.visitTypeAnnotation(typeRef, typePath, descriptor, visible),
+					visible, descriptor, anno -> typeAnnotations.add(anno.withTypeInfo(typeRef, typePath)));
 		}
 
 		@Override
@@ -174,9 +279,11 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 
 		@Override
 		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
-			return new FieldBuilderAppender(access, name, descriptor, signature, value) {
+			FieldVisitor fv = super.visitField(access, name, descriptor, signature, value);
+			return new FieldBuilderAppender(fv, access, name, descriptor, signature, value) {
 				@Override
 				public void visitEnd() {
+					super.visitEnd();
 					fields.add(getFieldMember());
 				}
 			};
@@ -184,9 +291,11 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 
 		@Override
 		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-			return new MethodBuilderAppender(access, name, descriptor, signature, exceptions) {
+			MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+			return new MethodBuilderAppender(mv, access, name, descriptor, signature, exceptions) {
 				@Override
 				public void visitEnd() {
+					super.visitEnd();
 					methods.add(getMethodMember());
 				}
 			};
@@ -209,21 +318,22 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 	private static class FieldBuilderAppender extends FieldVisitor {
 		private final BasicFieldMember fieldMember;
 
-		public FieldBuilderAppender(int access, String name, String descriptor,
+		public FieldBuilderAppender(@Nullable FieldVisitor fv, int access, String name, String descriptor,
 									String signature, Object value) {
-			super(getAsmVersion());
+			super(getAsmVersion(), fv);
 			fieldMember = new BasicFieldMember(name, descriptor, signature, access, value);
 		}
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-			return new AnnotationBuilderAppender(visible, descriptor, fieldMember::addAnnotation);
+			return new AnnotationBuilderAppender(super.visitAnnotation(descriptor, visible),
+					visible, descriptor, fieldMember::addAnnotation);
 		}
 
 		@Override
 		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
-			return new AnnotationBuilderAppender(visible, descriptor,
-					anno -> fieldMember.addTypeAnnotation(anno.withTypeInfo(typeRef, typePath)));
+			return new AnnotationBuilderAppender(super.visitTypeAnnotation(typeRef, typePath, descriptor, visible),
+					visible, descriptor, anno -> fieldMember.addTypeAnnotation(anno.withTypeInfo(typeRef, typePath)));
 		}
 
 		@Nonnull
@@ -235,22 +345,23 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 	private static class MethodBuilderAppender extends MethodVisitor {
 		private final BasicMethodMember methodMember;
 
-		public MethodBuilderAppender(int access, String name, String descriptor,
+		public MethodBuilderAppender(@Nullable MethodVisitor mv, int access, String name, String descriptor,
 									 String signature, String[] exceptions) {
-			super(getAsmVersion());
+			super(getAsmVersion(), mv);
 			List<String> exceptionList = exceptions == null ? Collections.emptyList() : Arrays.asList(exceptions);
 			methodMember = new BasicMethodMember(name, descriptor, signature, access, exceptionList, new ArrayList<>());
 		}
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-			return new AnnotationBuilderAppender(visible, descriptor, methodMember::addAnnotation);
+			return new AnnotationBuilderAppender(super.visitAnnotation(descriptor, visible),
+					visible, descriptor, methodMember::addAnnotation);
 		}
 
 		@Override
 		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
-			return new AnnotationBuilderAppender(visible, descriptor,
-					anno -> methodMember.addTypeAnnotation(anno.withTypeInfo(typeRef, typePath)));
+			return new AnnotationBuilderAppender(super.visitTypeAnnotation(typeRef, typePath, descriptor, visible),
+					visible, descriptor, anno -> methodMember.addTypeAnnotation(anno.withTypeInfo(typeRef, typePath)));
 		}
 
 		@Override
@@ -272,9 +383,9 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 		private final boolean visible;
 		private final String descriptor;
 
-		protected AnnotationBuilderAppender(boolean visible, String descriptor,
+		protected AnnotationBuilderAppender(@Nullable AnnotationVisitor av, boolean visible, String descriptor,
 											Consumer<BasicAnnotationInfo> annotationConsumer) {
-			super(getAsmVersion());
+			super(getAsmVersion(), av);
 			this.visible = visible;
 			this.descriptor = descriptor;
 			this.annotationConsumer = annotationConsumer;
@@ -305,7 +416,7 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String name, String descriptor) {
-			return new AnnotationBuilderAppender(true, descriptor, anno -> {
+			return new AnnotationBuilderAppender(super.visitAnnotation(name, descriptor), true, descriptor, anno -> {
 				if (name == null) {
 					arrayValues.add(anno);
 				} else {
@@ -317,9 +428,10 @@ public class JvmClassInfoBuilder extends AbstractClassInfoBuilder<JvmClassInfoBu
 		@Override
 		public AnnotationVisitor visitArray(String name) {
 			AnnotationBuilderAppender outer = this;
-			return new AnnotationBuilderAppender(true, "", null) {
+			return new AnnotationBuilderAppender(super.visitArray(name), true, "", null) {
 				@Override
 				public void visitEnd() {
+					super.visitEnd();
 					AnnotationBuilderAppender inner = this;
 					outer.elements.put(name, new BasicAnnotationElement(name, inner.arrayValues));
 				}
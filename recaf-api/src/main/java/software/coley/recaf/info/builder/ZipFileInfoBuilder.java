@@ -2,6 +2,7 @@ package software.coley.recaf.info.builder;
 
 import software.coley.recaf.info.BasicZipFileInfo;
 import software.coley.recaf.info.ZipFileInfo;
+import software.coley.recaf.util.IOUtil;
 
 /**
  * Builder for {@link ZipFileInfo}.
@@ -41,6 +42,26 @@ public class ZipFileInfoBuilder extends FileInfoBuilder<ZipFileInfoBuilder> {
 		return new WarFileInfoBuilder(this);
 	}
 
+	/**
+	 * @param name
+	 * 		File name, where the extension determines the container type.
+	 *
+	 * @return Builder of the container type matching the file extension,
+	 * or this builder if the extension is unknown.
+	 */
+	public ZipFileInfoBuilder asTypeOfName(String name) {
+		if (name == null) return this;
+		String extension = IOUtil.getExtension(name);
+		if (extension == null) return this;
+		return switch (extension.toUpperCase()) {
+			case "JAR" -> asJar();
+			case "APK" -> asApk();
+			case "WAR" -> asWar();
+			case "JMOD" -> asJMod();
+			default -> this;
+		};
+	}
+
 	@Override
 	public BasicZipFileInfo build() {
 		return new BasicZipFileInfo(this);
@@ -7,8 +7,8 @@ import javax.tools.*;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
 
 /**
  * File manager extension for handling updates to java file object's output stream.
@@ -39,19 +39,15 @@ public class VirtualFileManager extends ForwardingJavaFileManager<JavaFileManage
 										 Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
 		Iterable<JavaFileObject> list = super.list(location, packageName, kinds, recurse);
 		if (StandardLocation.CLASS_PATH.equals(location) && kinds.contains(JavaFileObject.Kind.CLASS)) {
-			String formatted = packageName.isEmpty() ? "" : packageName.replace('.', '/') + '/';
-			Predicate<String> check;
-			if (recurse) {
-				check = name -> name.startsWith(formatted);
-			} else {
-				check = name -> name.startsWith(formatted) &&
-						name.indexOf('/', formatted.length()) == -1;
-			}
+			String formatted = packageName.replace('.', '/');
 			return () -> new ClassPathIterator(list.iterator(), virtualClasspath.stream()
-					.flatMap(resource -> resource.getJvmClassBundle().entrySet().stream())
-					.filter(entry -> check.test(entry.getKey()))
-					.<JavaFileObject>map(entry -> new ResourceVirtualJavaFileObject(entry.getKey(),
-							entry.getValue().getBytecode(), JavaFileObject.Kind.CLASS))
+					.map(WorkspaceResource::getJvmClassBundle)
+					.flatMap(bundle -> (recurse ? bundle.getKeysUnderPackage(formatted) :
+							bundle.getKeysInPackage(formatted)).stream()
+							.map(bundle::get)
+							.filter(Objects::nonNull))
+					.<JavaFileObject>map(cls -> new ResourceVirtualJavaFileObject(cls.getName(),
+							cls.getBytecode(), JavaFileObject.Kind.CLASS))
 					.iterator());
 		}
 		return list;
@@ -0,0 +1,465 @@
+package software.coley.recaf.services.inheritance;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import software.coley.recaf.info.ClassInfo;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable snapshot of an {@link InheritanceGraph}, where each class is given a dense integer ID.
+ * <br>
+ * Direct parents and children are stored in flat offset/value arrays, and the ancestors and descendants of a class
+ * are computed once into sorted ID arrays. This makes queries such as {@link #isParentOf(String, String)} and
+ * {@link #getCommon(String, String)} simple binary searches, rather than walking {@link InheritanceVertex} sets.
+ * The arrays are sized to the closure rather than to the whole graph, so caching them for every class takes
+ * memory relative to the size of the hierarchies, not the square of the number of classes.
+ * <br>
+ * Snapshots do not update when the graph changes. Use {@link InheritanceGraph#getCompactGraph()} to get
+ * a snapshot of the current state of the graph.
+ *
+ * @author Matt Coley
+ */
+public class CompactInheritanceGraph {
+	private static final String OBJECT = "java/lang/Object";
+	private final Map<String, Integer> nameToId;
+	private final InheritanceVertex[] vertices;
+	private final int[] parentOffsets;
+	private final int[] parentIds;
+	private final int[] childOffsets;
+	private final int[] childIds;
+	private final int[] componentIds;
+	private final int[] componentOffsets;
+	private final int[] componentMembers;
+	private final int objectId;
+	private final AtomicReferenceArray<int[]> ancestors;
+	private final AtomicReferenceArray<int[]> descendants;
+	private final ThreadLocal<VisitMarks> visitMarks;
+
+	/**
+	 * @param graph
+	 * 		Graph to pull vertices from.
+	 * @param names
+	 * 		Names of classes to include. Parents of the classes are included as well.
+	 */
+	CompactInheritanceGraph(@Nonnull InheritanceGraph graph, @Nonnull Collection<String> names) {
+		Map<String, Integer> ids = new HashMap<>(names.size());
+		List<InheritanceVertex> vertexList = new ArrayList<>(names.size());
+		for (String name : names)
+			register(graph, ids, vertexList, name);
+
+		// Collect edges, registering parents outside the initial names as they are found.
+		// The vertex list grows as we go, so this also covers parents of those parents.
+		int[] edgeChildren = new int[vertexList.size()];
+		int[] edgeParents = new int[vertexList.size()];
+		int edgeCount = 0;
+		for (int id = 0; id < vertexList.size(); id++) {
+			ClassInfo info = vertexList.get(id).getValue();
+			String name = info.getName();
+			List<String> parentNames = new ArrayList<>(info.getInterfaces().size() + 1);
+			if (info.getSuperName() != null)
+				parentNames.add(info.getSuperName());
+			parentNames.addAll(info.getInterfaces());
+			int start = edgeCount;
+			for (String parentName : parentNames) {
+				if (name.equals(parentName))
+					continue;
+				int parentId = register(graph, ids, vertexList, parentName);
+				if (parentId < 0 || containsParent(edgeParents, start, edgeCount, parentId))
+					continue;
+				if (edgeCount == edgeChildren.length) {
+					edgeChildren = Arrays.copyOf(edgeChildren, edgeCount * 2 + 1);
+					edgeParents = Arrays.copyOf(edgeParents, edgeCount * 2 + 1);
+				}
+				edgeChildren[edgeCount] = id;
+				edgeParents[edgeCount] = parentId;
+				edgeCount++;
+			}
+		}
+
+		int size = vertexList.size();
+		nameToId = ids;
+		vertices = vertexList.toArray(InheritanceVertex[]::new);
+		parentOffsets = new int[size + 1];
+		parentIds = new int[edgeCount];
+		childOffsets = new int[size + 1];
+		childIds = new int[edgeCount];
+		fill(edgeChildren, edgeParents, edgeCount, parentOffsets, parentIds);
+		fill(edgeParents, edgeChildren, edgeCount, childOffsets, childIds);
+		objectId = ids.getOrDefault(OBJECT, -1);
+		componentIds = computeComponents(size, edgeChildren, edgeParents, edgeCount, objectId);
+		int[] members = new int[size];
+		for (int i = 0; i < size; i++)
+			members[i] = i;
+		componentOffsets = new int[size + 1];
+		componentMembers = new int[size];
+		fill(componentIds, members, size, componentOffsets, componentMembers);
+		ancestors = new AtomicReferenceArray<>(size);
+		descendants = new AtomicReferenceArray<>(size);
+		visitMarks = ThreadLocal.withInitial(() -> new VisitMarks(size));
+	}
+
+	/**
+	 * @return Number of classes in the graph.
+	 */
+	public int size() {
+		return vertices.length;
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 *
+	 * @return ID of the class, or {@code -1} if the class is not in the graph.
+	 */
+	public int getId(@Nonnull String name) {
+		Integer id = nameToId.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return Vertex of the class.
+	 */
+	@Nonnull
+	public InheritanceVertex getVertex(int id) {
+		return vertices[id];
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return Name of the class.
+	 */
+	@Nonnull
+	public String getName(int id) {
+		return vertices[id].getName();
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return IDs of classes the given class directly extends or implements.
+	 */
+	@Nonnull
+	public int[] getParentIds(int id) {
+		return Arrays.copyOfRange(parentIds, parentOffsets[id], parentOffsets[id + 1]);
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return IDs of classes directly extending or implementing the given class.
+	 */
+	@Nonnull
+	public int[] getChildIds(int id) {
+		return Arrays.copyOfRange(childIds, childOffsets[id], childOffsets[id + 1]);
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return Sorted IDs of all classes the given class extends or implements, directly or indirectly.
+	 */
+	@Nonnull
+	public int[] getAncestorIds(int id) {
+		return ancestors(id).clone();
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return Sorted IDs of all classes extending or implementing the given class, directly or indirectly.
+	 */
+	@Nonnull
+	public int[] getDescendantIds(int id) {
+		return descendants(id).clone();
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return IDs of all classes the given class extends or implements, directly or indirectly.
+	 */
+	@Nonnull
+	public BitSet getAncestors(int id) {
+		return toBitSet(ancestors(id));
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID.
+	 *
+	 * @return IDs of all classes extending or implementing the given class, directly or indirectly.
+	 */
+	@Nonnull
+	public BitSet getDescendants(int id) {
+		return toBitSet(descendants(id));
+	}
+
+	/**
+	 * @param parent
+	 * 		Supposed parent class name.
+	 * @param child
+	 * 		Supposed child class name.
+	 *
+	 * @return {@code true} when the child extends or implements the parent, directly or indirectly.
+	 */
+	public boolean isParentOf(@Nonnull String parent, @Nonnull String child) {
+		int parentId = getId(parent);
+		int childId = getId(child);
+		return parentId >= 0 && childId >= 0 && Arrays.binarySearch(ancestors(childId), parentId) >= 0;
+	}
+
+	/**
+	 * @param first
+	 * 		First class name.
+	 * @param second
+	 * 		Second class name.
+	 *
+	 * @return Common parent of the classes, following the same rules as {@link InheritanceGraph#getCommon(String, String)}.
+	 */
+	@Nonnull
+	public String getCommon(@Nonnull String first, @Nonnull String second) {
+		int firstId = getId(first);
+		if (firstId < 0 || OBJECT.equals(first) || OBJECT.equals(second))
+			return OBJECT;
+		int secondId = getId(second);
+		if (secondId < 0)
+			return OBJECT;
+
+		// Base case, the second type is in the first type's hierarchy
+		int[] firstParents = ancestors(firstId);
+		if (secondId == firstId || Arrays.binarySearch(firstParents, secondId) >= 0)
+			return second;
+
+		// Iterate over second's parents via breadth-first-search
+		VisitMarks visited = visitMarks.get();
+		visited.reset();
+		int[] queue = new int[16];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = secondId;
+		visited.mark(secondId);
+		while (head < tail) {
+			int next = queue[head++];
+			for (int i = parentOffsets[next]; i < parentOffsets[next + 1]; i++) {
+				int parent = parentIds[i];
+				if (parent == objectId || !visited.mark(parent))
+					continue;
+				if (parent == firstId || Arrays.binarySearch(firstParents, parent) >= 0)
+					return getName(parent);
+				if (tail == queue.length)
+					queue = Arrays.copyOf(queue, tail * 2);
+				queue[tail++] = parent;
+			}
+		}
+		return OBJECT;
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 * @param includeObject
+	 *        {@code true} to include {@link Object} as a vertex.
+	 *
+	 * @return Complete inheritance family of the class.
+	 * Families are not joined through {@link Object}, matching {@link InheritanceVertex#getFamily(boolean)}.
+	 */
+	@Nonnull
+	public Set<InheritanceVertex> getFamily(@Nonnull String name, boolean includeObject) {
+		int id = getId(name);
+		if (id < 0)
+			return Collections.emptySet();
+		if (id == objectId)
+			return includeObject ? Set.of(vertices[id]) : Collections.emptySet();
+		int component = componentIds[id];
+		Set<InheritanceVertex> family = new LinkedHashSet<>();
+		boolean hasObject = false;
+		for (int j = componentOffsets[component]; j < componentOffsets[component + 1]; j++) {
+			int i = componentMembers[j];
+			family.add(vertices[i]);
+			if (!hasObject && objectId >= 0)
+				hasObject = containsParent(parentIds, parentOffsets[i], parentOffsets[i + 1], objectId);
+		}
+		if (includeObject && hasObject)
+			family.add(vertices[objectId]);
+		return family;
+	}
+
+	@Nonnull
+	private int[] ancestors(int id) {
+		int[] ids = ancestors.get(id);
+		if (ids == null) {
+			ids = closure(id, parentOffsets, parentIds);
+			ancestors.set(id, ids);
+		}
+		return ids;
+	}
+
+	@Nonnull
+	private int[] descendants(int id) {
+		int[] ids = descendants.get(id);
+		if (ids == null) {
+			ids = closure(id, childOffsets, childIds);
+			descendants.set(id, ids);
+		}
+		return ids;
+	}
+
+	/**
+	 * @param id
+	 * 		Class ID to start from.
+	 * @param offsets
+	 * 		Edge offsets per class.
+	 * @param edges
+	 * 		Edge targets.
+	 *
+	 * @return Sorted IDs reachable from the start, not including the start unless there is a cycle back to it.
+	 */
+	@Nonnull
+	private int[] closure(int id, @Nonnull int[] offsets, @Nonnull int[] edges) {
+		VisitMarks visited = visitMarks.get();
+		visited.reset();
+		int[] reached = new int[16];
+		int count = 0;
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = id;
+		while (top > 0) {
+			int next = stack[--top];
+			for (int i = offsets[next]; i < offsets[next + 1]; i++) {
+				int target = edges[i];
+				if (!visited.mark(target))
+					continue;
+				if (count == reached.length)
+					reached = Arrays.copyOf(reached, count * 2);
+				reached[count++] = target;
+				if (top == stack.length)
+					stack = Arrays.copyOf(stack, top * 2);
+				stack[top++] = target;
+			}
+		}
+		int[] ids = Arrays.copyOf(reached, count);
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	@Nonnull
+	private static BitSet toBitSet(@Nonnull int[] ids) {
+		BitSet set = new BitSet(ids.length == 0 ? 0 : ids[ids.length - 1] + 1);
+		for (int id : ids)
+			set.set(id);
+		return set;
+	}
+
+	private static int register(@Nonnull InheritanceGraph graph, @Nonnull Map<String, Integer> ids,
+								@Nonnull List<InheritanceVertex> vertexList, @Nullable String name) {
+		if (name == null)
+			return -1;
+		Integer existing = ids.get(name);
+		if (existing != null)
+			return existing;
+		InheritanceVertex vertex = graph.getVertex(name);
+		if (vertex == null || vertex.isModule()) {
+			ids.put(name, -1);
+			return -1;
+		}
+		int id = vertexList.size();
+		vertexList.add(vertex);
+		ids.put(name, id);
+		return id;
+	}
+
+	private static boolean containsParent(@Nonnull int[] values, int start, int end, int value) {
+		for (int i = start; i < end; i++)
+			if (values[i] == value)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Fills offset/value arrays, grouping edge targets by their source.
+	 */
+	private static void fill(@Nonnull int[] sources, @Nonnull int[] targets, int edgeCount,
+							 @Nonnull int[] offsets, @Nonnull int[] values) {
+		for (int i = 0; i < edgeCount; i++)
+			offsets[sources[i] + 1]++;
+		for (int i = 1; i < offsets.length; i++)
+			offsets[i] += offsets[i - 1];
+		int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int i = 0; i < edgeCount; i++)
+			values[positions[sources[i]]++] = targets[i];
+	}
+
+	/**
+	 * @return Component ID per class, where classes are connected by edges not involving {@link Object}.
+	 */
+	@Nonnull
+	private static int[] computeComponents(int size, @Nonnull int[] edgeChildren, @Nonnull int[] edgeParents,
+										   int edgeCount, int objectId) {
+		int[] roots = new int[size];
+		for (int i = 0; i < size; i++)
+			roots[i] = i;
+		for (int i = 0; i < edgeCount; i++) {
+			int child = edgeChildren[i];
+			int parent = edgeParents[i];
+			if (child == objectId || parent == objectId)
+				continue;
+			int childRoot = find(roots, child);
+			int parentRoot = find(roots, parent);
+			if (childRoot != parentRoot)
+				roots[childRoot] = parentRoot;
+		}
+		for (int i = 0; i < size; i++)
+			roots[i] = find(roots, i);
+		return roots;
+	}
+
+	private static int find(@Nonnull int[] roots, int id) {
+		while (roots[id] != id) {
+			roots[id] = roots[roots[id]];
+			id = roots[id];
+		}
+		return id;
+	}
+
+	/**
+	 * Per-thread visited marks for traversals. Marks are stamped with the current traversal,
+	 * so they do not need to be cleared between traversals.
+	 */
+	private static final class VisitMarks {
+		private final int[] stamps;
+		private int stamp;
+
+		private VisitMarks(int size) {
+			stamps = new int[size];
+		}
+
+		private void reset() {
+			if (++stamp == 0) {
+				Arrays.fill(stamps, 0);
+				stamp = 1;
+			}
+		}
+
+		/**
+		 * @return {@code true} when the ID was not yet visited in the current traversal.
+		 */
+		private boolean mark(int id) {
+			if (stamps[id] == stamp)
+				return false;
+			stamps[id] = stamp;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package software.coley.recaf.services.inheritance;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * Class writer that looks up common types in an {@link InheritanceGraph}, rather than loading classes
+ * through a class loader. This allows {@link ClassWriter#COMPUTE_FRAMES} to be used on workspace classes
+ * that are not on the classpath of the current VM.
+ * <br>
+ * Common types are cached by the graph, so writing many classes in bulk does not repeatedly walk the hierarchy.
+ *
+ * @author Matt Coley
+ */
+public class InheritanceClassWriter extends ClassWriter {
+	private final InheritanceGraph graph;
+
+	/**
+	 * @param graph
+	 * 		Inheritance graph to look up common types in.
+	 * @param flags
+	 * 		Writer flags, such as {@link ClassWriter#COMPUTE_FRAMES}.
+	 */
+	public InheritanceClassWriter(@Nonnull InheritanceGraph graph, int flags) {
+		this(graph, null, flags);
+	}
+
+	/**
+	 * @param graph
+	 * 		Inheritance graph to look up common types in.
+	 * @param reader
+	 * 		Reader of the class being transformed, used to copy the constant pool and unchanged methods.
+	 * 		May be {@code null}.
+	 * @param flags
+	 * 		Writer flags, such as {@link ClassWriter#COMPUTE_FRAMES}.
+	 */
+	public InheritanceClassWriter(@Nonnull InheritanceGraph graph, @Nullable ClassReader reader, int flags) {
+		super(reader, flags);
+		this.graph = graph;
+	}
+
+	@Override
+	protected String getCommonSuperClass(String type1, String type2) {
+		return graph.getCommon(type1, type2);
+	}
+}
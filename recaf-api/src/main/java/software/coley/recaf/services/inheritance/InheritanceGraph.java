@@ -14,8 +14,6 @@ import software.coley.recaf.info.builder.JvmClassInfoBuilder;
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.path.ResourcePathNode;
 import software.coley.recaf.services.Service;
-import software.coley.recaf.util.MultiMap;
-import software.coley.recaf.util.MultiMapBuilder;
 import software.coley.recaf.workspace.WorkspaceCloseListener;
 import software.coley.recaf.workspace.WorkspaceModificationListener;
 import software.coley.recaf.workspace.model.Workspace;
@@ -28,6 +26,8 @@ import software.coley.recaf.workspace.model.resource.WorkspaceResource;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -44,10 +44,11 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 	public static final String SERVICE_ID = "graph-inheritance";
 	private static final InheritanceVertex STUB = new InheritanceStubVertex();
 	private static final String OBJECT = "java/lang/Object";
-	private final MultiMap<String, String, Set<String>> parentToChild = MultiMapBuilder
-			.<String, String>hashKeys()
-			.hashValues()
-			.build();
+	private static final int MAX_COMMON_CACHE_SIZE = 100_000;
+	private volatile Map<String, String[]> parentToChild = new ConcurrentHashMap<>();
+	private final AtomicInteger revision = new AtomicInteger();
+	private final Map<ClassPair, String> commonCache = new ConcurrentHashMap<>();
+	private volatile CompactInheritanceGraph compactGraph;
 	private final Map<String, InheritanceVertex> vertices = new ConcurrentHashMap<>();
 	private final Function<String, InheritanceVertex> vertexProvider = createVertexProvider();
 	private final InheritanceGraphConfig config;
@@ -79,16 +80,62 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 	 * Refresh parent-to-child lookup.
 	 */
 	private void refreshChildLookup() {
-		// Clear
-		parentToChild.clear();
-
-		// Repopulate
+		List<ClassInfo> classes = new ArrayList<>();
 		for (WorkspaceResource resource : Lists.add(workspace.getSupportingResources(), workspace.getPrimaryResource())) {
-			resource.getJvmClassBundle().values()
-					.forEach(this::populateParentToChildLookup);
+			classes.addAll(resource.getJvmClassBundle().values());
 			resource.androidClassBundleStream()
-					.flatMap(bundle -> bundle.values().stream())
-					.forEach(this::populateParentToChildLookup);
+					.forEach(bundle -> classes.addAll(bundle.values()));
+		}
+
+		// Collect edges into concurrent sets, then freeze them into arrays once complete.
+		Map<String, Set<String>> edges = new ConcurrentHashMap<>();
+		collectParentEdges(classes, config.getParallelBuild().getValue(), (name, parentName) ->
+				edges.computeIfAbsent(parentName, k -> ConcurrentHashMap.newKeySet()).add(name));
+		Map<String, String[]> lookup = new ConcurrentHashMap<>(edges.size());
+		edges.forEach((parentName, children) -> lookup.put(parentName, children.toArray(String[]::new)));
+		parentToChild = lookup;
+		invalidateCaches();
+	}
+
+	/**
+	 * Collect references from the given classes to their parents, and from their parents to their own parents.
+	 * Parents outside the given classes, such as runtime classes, are looked up in the workspace.
+	 *
+	 * @param classes
+	 * 		Child classes.
+	 * @param parallel
+	 * 		Flag to visit classes across multiple threads.
+	 * @param edgeConsumer
+	 * 		Consumer of child and parent class names.
+	 */
+	private void collectParentEdges(@Nonnull Collection<? extends ClassInfo> classes, boolean parallel,
+									@Nonnull BiConsumer<String, String> edgeConsumer) {
+		Set<String> visited = ConcurrentHashMap.newKeySet();
+		for (ClassInfo info : classes)
+			visited.add(info.getName());
+
+		// Each pass visits the parents found in the prior pass that have not yet been visited.
+		Collection<? extends ClassInfo> pending = classes;
+		while (!pending.isEmpty()) {
+			Stream<? extends ClassInfo> stream = parallel ? pending.parallelStream() : pending.stream();
+			pending = stream
+					.filter(info -> !info.hasModuleModifier())
+					.flatMap(info -> {
+						String name = info.getName();
+						String superName = info.getSuperName();
+						List<String> parents = new ArrayList<>(info.getInterfaces().size() + 1);
+						if (superName != null)
+							parents.add(superName);
+						parents.addAll(info.getInterfaces());
+						for (String parent : parents)
+							edgeConsumer.accept(name, parent);
+						return parents.stream();
+					})
+					.filter(visited::add)
+					.map(workspace::findClass)
+					.filter(Objects::nonNull)
+					.<ClassInfo>map(ClassPathNode::getValue)
+					.toList();
 		}
 	}
 
@@ -101,7 +148,29 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 	 * 		Parent class name.
 	 */
 	private void populateParentToChildLookup(@Nonnull String name, @Nonnull String parentName) {
-		parentToChild.put(parentName, name);
+		// Replace the array rather than modifying it, so concurrent readers see a consistent state.
+		boolean[] changed = new boolean[1];
+		parentToChild.compute(parentName, (k, children) -> {
+			if (children != null)
+				for (String child : children)
+					if (child.equals(name))
+						return children;
+			changed[0] = true;
+			if (children == null)
+				return new String[]{name};
+			String[] copy = Arrays.copyOf(children, children.length + 1);
+			copy[children.length] = name;
+			return copy;
+		});
+		if (!changed[0])
+			return;
+		invalidateCaches();
+
+		// Only existing vertices need to drop their cached relations, there is no need to create them here.
+		InheritanceVertex parentVertex = vertices.get(parentName);
+		InheritanceVertex childVertex = vertices.get(name);
+		if (parentVertex != null) parentVertex.clearCachedVertices();
+		if (childVertex != null) childVertex.clearCachedVertices();
 	}
 
 	/**
@@ -111,30 +180,7 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 	 * 		Child class.
 	 */
 	private void populateParentToChildLookup(@Nonnull ClassInfo info) {
-		// Skip module classes
-		if (info.hasModuleModifier())
-			return;
-
-		// Add direct parent
-		String name = info.getName();
-		String superName = info.getSuperName();
-		if (superName != null)
-			populateParentToChildLookup(name, superName);
-
-		// Visit parent
-		InheritanceVertex superVertex = vertexProvider.apply(superName);
-		if (superVertex != null && !superVertex.isJavaLangObject() && superVertex.getValue() != null && !superVertex.isLoop())
-			populateParentToChildLookup(superVertex.getValue());
-
-		// Add direct interfaces
-		for (String itf : info.getInterfaces()) {
-			populateParentToChildLookup(name, itf);
-
-			// Visit interfaces
-			InheritanceVertex interfaceVertex = vertexProvider.apply(itf);
-			if (interfaceVertex != null && interfaceVertex.getValue() != null)
-				populateParentToChildLookup(interfaceVertex.getValue());
-		}
+		collectParentEdges(List.of(info), false, this::populateParentToChildLookup);
 	}
 
 	/**
@@ -160,7 +206,19 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 	 * 		Parent class name.
 	 */
 	private void removeParentToChildLookup(@Nonnull String name, @Nonnull String parentName) {
-		parentToChild.remove(parentName, name);
+		boolean[] changed = new boolean[1];
+		parentToChild.computeIfPresent(parentName, (k, children) -> {
+			String[] copy = Arrays.stream(children)
+					.filter(child -> !child.equals(name))
+					.toArray(String[]::new);
+			if (copy.length == children.length)
+				return children;
+			changed[0] = true;
+			return copy.length == 0 ? null : copy;
+		});
+		if (!changed[0])
+			return;
+		invalidateCaches();
 		InheritanceVertex parentVertex = getVertex(parentName);
 		InheritanceVertex childVertex = getVertex(name);
 		if (parentVertex != null) parentVertex.clearCachedVertices();
@@ -175,7 +233,10 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 	 */
 	@Nonnull
 	private Collection<String> getDirectChildren(String parent) {
-		return parentToChild.getIfPresent(parent);
+		String[] children = parentToChild.get(parent);
+		if (children == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(Arrays.asList(children));
 	}
 
 	/**
@@ -206,6 +267,46 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 		return vertex.getFamily(includeObject);
 	}
 
+	/**
+	 * @return Snapshot of the graph using integer class IDs, for repeated hierarchy queries.
+	 * The snapshot is created on demand, and re-created on the next call after the graph changes.
+	 */
+	@Nonnull
+	public CompactInheritanceGraph getCompactGraph() {
+		CompactInheritanceGraph compact = compactGraph;
+		if (compact == null) {
+			synchronized (this) {
+				compact = compactGraph;
+				if (compact == null) {
+					int startRevision = revision.get();
+					Set<String> names = new HashSet<>(parentToChild.keySet());
+					for (String[] children : parentToChild.values())
+						Collections.addAll(names, children);
+					compact = new CompactInheritanceGraph(this, names);
+
+					// Only keep the snapshot if the graph did not change while it was being created,
+					// or while it was being published.
+					if (revision.get() == startRevision) {
+						compactGraph = compact;
+						if (revision.get() != startRevision)
+							compactGraph = null;
+					}
+				}
+			}
+		}
+		return compact;
+	}
+
+	/**
+	 * Drops the current {@link #getCompactGraph() compact graph} and {@link #getCommon(String, String) common types},
+	 * as the graph has changed.
+	 */
+	private void invalidateCaches() {
+		revision.incrementAndGet();
+		compactGraph = null;
+		commonCache.clear();
+	}
+
 	/**
 	 * @param first
 	 * 		First class name.
@@ -213,9 +314,34 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 	 * 		Second class name.
 	 *
 	 * @return Common parent of the classes.
+	 * Results are cached until the graph changes, so repeated lookups such as those made when computing frames are cheap.
+	 * @see InheritanceClassWriter
 	 */
 	@Nonnull
 	public String getCommon(@Nonnull String first, @Nonnull String second) {
+		ClassPair key = new ClassPair(first, second);
+		String common = commonCache.get(key);
+		if (common != null)
+			return common;
+
+		int startRevision = revision.get();
+		common = computeCommon(first, second);
+
+		// Only cache the result if the graph did not change while it was being computed.
+		// The graph can also change between the check and the insertion, after the cache was cleared,
+		// so the check is repeated after and the stale result is dropped.
+		if (revision.get() == startRevision) {
+			if (commonCache.size() >= MAX_COMMON_CACHE_SIZE)
+				commonCache.clear();
+			commonCache.put(key, common);
+			if (revision.get() != startRevision)
+				commonCache.remove(key, common);
+		}
+		return common;
+	}
+
+	@Nonnull
+	private String computeCommon(@Nonnull String first, @Nonnull String second) {
 		// Full upwards hierarchy for the first
 		InheritanceVertex vertex = getVertex(first);
 		if (vertex == null || OBJECT.equals(first) || OBJECT.equals(second))
@@ -309,7 +435,9 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 			}
 		}
 
-		// Update vertex wrapped class-info
+		// Update vertex wrapped class-info.
+		// Caches only need to be dropped by the lookup changes above, as other changes such as to method bodies
+		// do not affect the hierarchy. This keeps them intact when transforms write classes back in bulk.
 		InheritanceVertex vertex = getVertex(name);
 		if (vertex != null)
 			vertex.setValue(newValue);
@@ -358,7 +486,8 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 
 	@Override
 	public void onWorkspaceClosed(@Nonnull Workspace workspace) {
-		parentToChild.clear();
+		parentToChild = new ConcurrentHashMap<>();
+		invalidateCaches();
 		vertices.clear();
 	}
 
@@ -374,6 +503,17 @@ public class InheritanceGraph implements Service, WorkspaceModificationListener,
 		return config;
 	}
 
+	/**
+	 * Key for {@link #getCommon(String, String)} results.
+	 *
+	 * @param first
+	 * 		First class name.
+	 * @param second
+	 * 		Second class name.
+	 */
+	private record ClassPair(@Nonnull String first, @Nonnull String second) {
+	}
+
 	private static class InheritanceStubVertex extends InheritanceVertex {
 		private InheritanceStubVertex() {
 			super(new StubClass(), in -> null, in -> null, false);
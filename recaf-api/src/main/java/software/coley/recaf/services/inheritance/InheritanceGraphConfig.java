@@ -2,7 +2,9 @@ package software.coley.recaf.services.inheritance;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import software.coley.observables.ObservableBoolean;
 import software.coley.recaf.config.BasicConfigContainer;
+import software.coley.recaf.config.BasicConfigValue;
 import software.coley.recaf.config.ConfigGroups;
 import software.coley.recaf.services.ServiceConfig;
 
@@ -13,8 +15,19 @@ import software.coley.recaf.services.ServiceConfig;
  */
 @ApplicationScoped
 public class InheritanceGraphConfig extends BasicConfigContainer implements ServiceConfig {
+	private final ObservableBoolean parallelBuild = new ObservableBoolean(true);
+
 	@Inject
 	public InheritanceGraphConfig() {
 		super(ConfigGroups.SERVICE_ANALYSIS, InheritanceGraph.SERVICE_ID + CONFIG_SUFFIX);
+		// Add values
+		addValue(new BasicConfigValue<>("parallel-build", Boolean.class, parallelBuild));
+	}
+
+	/**
+	 * @return {@code true} to populate the graph across multiple threads when a workspace is opened.
+	 */
+	public ObservableBoolean getParallelBuild() {
+		return parallelBuild;
 	}
 }
@@ -8,6 +8,7 @@ import software.coley.recaf.info.ClassInfo;
 import software.coley.recaf.info.member.FieldMember;
 import software.coley.recaf.info.member.MethodMember;
 import software.coley.recaf.services.Service;
+import software.coley.recaf.services.inheritance.CompactInheritanceGraph;
 import software.coley.recaf.services.inheritance.InheritanceGraph;
 import software.coley.recaf.services.inheritance.InheritanceVertex;
 import software.coley.recaf.services.mapping.Mappings;
@@ -71,13 +72,14 @@ public class MappingGenerator implements Service {
 
 		// Pull a class, create mappings for its inheritance family, then remove those classes from the map.
 		// When the map is empty everything has been run through the mapping generation process.
+		CompactInheritanceGraph compactGraph = inheritanceGraph.getCompactGraph();
 		while (!classMap.isEmpty()) {
 			// Get family from the class.
 			String className = classMap.firstKey();
 			Set<InheritanceVertex> family = inheritanceGraph.getVertexFamily(className, false);
 
 			// Create mappings for the family
-			generateFamilyMappings(mappings, family, generator, filter);
+			generateFamilyMappings(mappings, compactGraph, family, generator, filter);
 
 			// Remove all family members from the class map.
 			family.forEach(vertex -> classMap.remove(vertex.getName()));
@@ -85,8 +87,9 @@ public class MappingGenerator implements Service {
 		return mappings;
 	}
 
-	private void generateFamilyMappings(@Nonnull MappingsAdapter mappings, @Nonnull Set<InheritanceVertex> family,
-										@Nonnull NameGenerator generator, @Nonnull NameGeneratorFilter filter) {
+	private void generateFamilyMappings(@Nonnull MappingsAdapter mappings, @Nonnull CompactInheritanceGraph compactGraph,
+										@Nonnull Set<InheritanceVertex> family, @Nonnull NameGenerator generator,
+										@Nonnull NameGeneratorFilter filter) {
 		// Collect the members in the family that are inheritable, and methods that are library implementations.
 		// We want this information so that for these members we give them a single name throughout the family.
 		//  - Methods can be indirectly linked by two interfaces describing the same signature,
@@ -138,10 +141,7 @@ public class MappingGenerator implements Service {
 				if (inheritableFields.contains(field)) {
 					// Field is 'inheritable' meaning it needs to have a consistent name
 					// for all children and parents of this vertex.
-					Set<InheritanceVertex> targetFamilyMembers = new HashSet<>();
-					targetFamilyMembers.add(vertex);
-					targetFamilyMembers.addAll(vertex.getAllChildren());
-					targetFamilyMembers.addAll(vertex.getAllParents());
+					Collection<InheritanceVertex> targetFamilyMembers = getLineage(compactGraph, vertex);
 					targetFamilyMembers.forEach(immediateTreeVertex -> {
 						if (immediateTreeVertex.hasField(fieldName, fieldDesc)) {
 							String treeOwner = immediateTreeVertex.getName();
@@ -221,6 +221,35 @@ public class MappingGenerator implements Service {
 		});
 	}
 
+	/**
+	 * @param compactGraph
+	 * 		Compact graph to look up the hierarchy in.
+	 * @param vertex
+	 * 		Some vertex.
+	 *
+	 * @return The vertex, and all of its parents and children.
+	 */
+	@Nonnull
+	private static Collection<InheritanceVertex> getLineage(@Nonnull CompactInheritanceGraph compactGraph,
+															@Nonnull InheritanceVertex vertex) {
+		int id = compactGraph.getId(vertex.getName());
+		if (id < 0)
+			return List.of(vertex);
+		int[] ancestors = compactGraph.getAncestorIds(id);
+		int[] descendants = compactGraph.getDescendantIds(id);
+		int[] lineage = Arrays.copyOf(ancestors, ancestors.length + descendants.length + 1);
+		System.arraycopy(descendants, 0, lineage, ancestors.length, descendants.length);
+		lineage[lineage.length - 1] = id;
+		Arrays.sort(lineage);
+
+		// IDs are only shared between ancestors and descendants when there are cycles.
+		List<InheritanceVertex> vertices = new ArrayList<>(lineage.length);
+		for (int i = 0; i < lineage.length; i++)
+			if (i == 0 || lineage[i] != lineage[i - 1])
+				vertices.add(compactGraph.getVertex(lineage[i]));
+		return vertices;
+	}
+
 	@Nonnull
 	@Override
 	public String getServiceId() {
@@ -0,0 +1,23 @@
+package software.coley.recaf.services.search;
+
+/**
+ * Feedback that can cancel a search from another thread. For instance a search-as-you-type control can cancel
+ * the prior search when a new one is started, so superseded searches stop using the search threads.
+ *
+ * @author Matt Coley
+ */
+public class CancellableSearchFeedback implements SearchFeedback {
+	private volatile boolean cancelled;
+
+	/**
+	 * Requests the search to stop.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	@Override
+	public boolean hasRequestedCancellation() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,49 @@
+package software.coley.recaf.services.search;
+
+import jakarta.annotation.Nonnull;
+import software.coley.recaf.services.search.result.Result;
+
+/**
+ * Feedback passed into a search, allowing the caller to control the search while it runs,
+ * and to receive results as they are found.
+ *
+ * @author Matt Coley
+ * @see CancellableSearchFeedback
+ */
+public interface SearchFeedback {
+	/**
+	 * Feedback that never cancels the search.
+	 */
+	SearchFeedback NONE = new SearchFeedback() {
+		// Defaults only
+	};
+
+	/**
+	 * Checked before each class or file is visited, and as results are found.
+	 * Once cancelled, the search stops visiting content and returns the results found so far.
+	 *
+	 * @return {@code true} when the search should stop.
+	 */
+	default boolean hasRequestedCancellation() {
+		return false;
+	}
+
+	/**
+	 * @return Maximum number of results to collect. Once reached the search stops as if it were cancelled.
+	 * Negative values for no limit.
+	 */
+	default int getMaxResults() {
+		return -1;
+	}
+
+	/**
+	 * Called as soon as each result is found, before the search completes.
+	 * Results are reported from the search threads, in no particular order.
+	 *
+	 * @param result
+	 * 		Result found.
+	 */
+	default void onResult(@Nonnull Result<?> result) {
+		// no-op by default
+	}
+}
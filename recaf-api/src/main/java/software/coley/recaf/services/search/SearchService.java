@@ -1,33 +1,49 @@
 package software.coley.recaf.services.search;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
-import software.coley.recaf.info.AndroidClassInfo;
-import software.coley.recaf.info.FileInfo;
-import software.coley.recaf.info.JvmClassInfo;
 import software.coley.recaf.path.*;
 import software.coley.recaf.services.Service;
+import software.coley.recaf.services.search.builtin.AbstractValueQuery;
+import software.coley.recaf.services.search.builtin.InstructionPatternQuery;
+import software.coley.recaf.services.search.builtin.MultiStringQuery;
 import software.coley.recaf.services.search.builtin.NumberQuery;
 import software.coley.recaf.services.search.builtin.ReferenceQuery;
 import software.coley.recaf.services.search.builtin.StringQuery;
+import software.coley.recaf.services.search.index.OpcodeIndex;
+import software.coley.recaf.services.search.index.ReferenceIndex;
+import software.coley.recaf.services.search.index.ValueIndex;
 import software.coley.recaf.services.search.result.*;
+import software.coley.recaf.util.CancelSignal;
 import software.coley.recaf.util.threading.ThreadPoolFactory;
 import software.coley.recaf.util.threading.ThreadUtil;
+import software.coley.recaf.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.model.Workspace;
 import software.coley.recaf.workspace.model.bundle.AndroidClassBundle;
 import software.coley.recaf.workspace.model.bundle.FileBundle;
 import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
 import software.coley.recaf.workspace.model.resource.WorkspaceResource;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Outline for running various searches.
  *
  * @author Matt Coley
+ * @see InstructionPatternQuery
  * @see NumberQuery
  * @see ReferenceQuery
  * @see StringQuery
@@ -35,11 +51,27 @@ import java.util.concurrent.ExecutorService;
 @ApplicationScoped
 public class SearchService implements Service {
 	public static final String SERVICE_ID = "search";
+	private static final int MIN_CHUNK_SIZE = 16;
+	private static final int MAX_CHUNK_SIZE = 512;
+	private static final int TARGET_CHUNK_COUNT = 4 * Runtime.getRuntime().availableProcessors();
+	private final ExecutorService searchPool = ThreadPoolFactory.newWorkStealingPool(SERVICE_ID);
 	private final SearchServiceConfig config;
+	private final WorkspaceManager workspaceManager;
+	private final Instance<ValueIndex> valueIndexInstance;
+	private final Instance<ReferenceIndex> referenceIndexInstance;
+	private final Instance<OpcodeIndex> opcodeIndexInstance;
 
 	@Inject
-	public SearchService(SearchServiceConfig config) {
+	public SearchService(@Nonnull SearchServiceConfig config,
+						 @Nonnull WorkspaceManager workspaceManager,
+						 @Nonnull Instance<ValueIndex> valueIndexInstance,
+						 @Nonnull Instance<ReferenceIndex> referenceIndexInstance,
+						 @Nonnull Instance<OpcodeIndex> opcodeIndexInstance) {
 		this.config = config;
+		this.workspaceManager = workspaceManager;
+		this.valueIndexInstance = valueIndexInstance;
+		this.referenceIndexInstance = referenceIndexInstance;
+		this.opcodeIndexInstance = opcodeIndexInstance;
 	}
 
 	/**
@@ -54,6 +86,20 @@ public class SearchService implements Service {
 		return search(workspace, Collections.singletonList(query));
 	}
 
+	/**
+	 * @param workspace
+	 * 		Workspace to search in.
+	 * @param query
+	 * 		Query of search parameters.
+	 * @param feedback
+	 * 		Feedback to control the search, such as cancelling it.
+	 *
+	 * @return Results of search.
+	 */
+	public Results search(@Nonnull Workspace workspace, @Nonnull Query query, @Nonnull SearchFeedback feedback) {
+		return search(workspace, Collections.singletonList(query), feedback);
+	}
+
 	/**
 	 * @param workspace
 	 * 		Workspace to search in.
@@ -63,17 +109,48 @@ public class SearchService implements Service {
 	 * @return Results of search.
 	 */
 	public Results search(@Nonnull Workspace workspace, @Nonnull List<Query> queries) {
-		Results results = new Results();
+		return search(workspace, queries, SearchFeedback.NONE);
+	}
+
+	/**
+	 * @param workspace
+	 * 		Workspace to search in.
+	 * @param queries
+	 * 		Multiple queries of search parameters.
+	 * @param feedback
+	 * 		Feedback to control the search, such as cancelling it.
+	 *
+	 * @return Results of search. If the search was cancelled, or hit the {@link SearchFeedback#getMaxResults() limit},
+	 * the results found before stopping.
+	 */
+	public Results search(@Nonnull Workspace workspace, @Nonnull List<Query> queries,
+						  @Nonnull SearchFeedback feedback) {
+		SearchState state = new SearchState(feedback);
+		List<Query> batchedQueries = batchStringQueries(queries);
+
+		// Indices are only populated when there are queries they can serve
+		ValueIndex valueIndex = queries.stream().anyMatch(q -> q instanceof AbstractValueQuery) ?
+				getValueIndex(workspace) : null;
+		ReferenceIndex referenceIndex = queries.stream().anyMatch(q -> q instanceof ReferenceQuery) ?
+				getReferenceIndex(workspace) : null;
+		OpcodeIndex opcodeIndex = queries.stream().anyMatch(q -> q instanceof InstructionPatternQuery) ?
+				getOpcodeIndex(workspace) : null;
 
 		// Build visitors
 		AndroidClassSearchVisitor androidClassVisitorTemp = null;
 		JvmClassSearchVisitor jvmClassVisitorTemp = null;
 		FileSearchVisitor fileVisitorTemp = null;
-		for (Query query : queries) {
+		for (Query query : batchedQueries) {
 			if (query instanceof AndroidClassQuery androidClassQuery) {
 				androidClassVisitorTemp = androidClassQuery.visitor(androidClassVisitorTemp);
 			}
-			if (query instanceof JvmClassQuery jvmClassQuery) {
+			if (query instanceof AbstractValueQuery valueQuery && valueIndex != null) {
+				jvmClassVisitorTemp = valueQuery.visitor(jvmClassVisitorTemp, valueIndex);
+			} else if (query instanceof ReferenceQuery referenceQuery && referenceIndex != null) {
+				jvmClassVisitorTemp = referenceQuery.visitor(jvmClassVisitorTemp, referenceIndex);
+			} else if (query instanceof InstructionPatternQuery patternQuery && opcodeIndex != null) {
+				jvmClassVisitorTemp = patternQuery.visitor(jvmClassVisitorTemp, opcodeIndex);
+			} else if (query instanceof JvmClassQuery jvmClassQuery) {
 				jvmClassVisitorTemp = jvmClassQuery.visitor(jvmClassVisitorTemp);
 			}
 			if (query instanceof FileQuery fileQuery) {
@@ -85,47 +162,38 @@ public class SearchService implements Service {
 		FileSearchVisitor fileVisitor = fileVisitorTemp;
 
 		// Run visitors on contents of workspace
-		ExecutorService service = ThreadPoolFactory.newFixedThreadPool(SERVICE_ID + ":" + queries.hashCode());
+		ExecutorService service = ThreadUtil.phasingService(searchPool);
 		WorkspacePathNode workspaceNode = new WorkspacePathNode(workspace);
 		for (WorkspaceResource resource : workspace.getAllResources(false)) {
+			if (state.isStopped())
+				break;
 			ResourcePathNode resourceNode = workspaceNode.child(resource);
 			// Visit android content
 			if (androidClassVisitor != null) {
 				for (AndroidClassBundle bundle : resource.getAndroidClassBundles().values()) {
 					BundlePathNode bundleNode = resourceNode.child(bundle);
-					for (AndroidClassInfo classInfo : bundle) {
+					submitChunked(service, state, bundle.values(), (sink, classInfo) -> {
 						ClassPathNode classPath = bundleNode
 								.child(classInfo.getPackageName())
 								.child(classInfo);
-						service.submit(() -> {
-							androidClassVisitor.visit((path, value) -> results.add(createResult(path, value)), classPath, classInfo);
-						});
-					}
+						androidClassVisitor.visit(sink, classPath, classInfo);
+					});
 				}
 			}
 
 			// Visit JVM content
 			if (jvmClassVisitor != null) {
-				JvmClassBundle primaryBundle = resource.getJvmClassBundle();
-				BundlePathNode primaryBundleNode = resourceNode.child(primaryBundle);
-				for (JvmClassInfo classInfo : primaryBundle) {
-					ClassPathNode classPath = primaryBundleNode
-							.child(classInfo.getPackageName())
-							.child(classInfo);
-					service.submit(() -> {
-						jvmClassVisitor.visit((path, value) -> results.add(createResult(path, value)), classPath, classInfo);
-					});
-				}
-				for (JvmClassBundle bundle : resource.getVersionedJvmClassBundles().values()) {
+				List<JvmClassBundle> bundles = new ArrayList<>();
+				bundles.add(resource.getJvmClassBundle());
+				bundles.addAll(resource.getVersionedJvmClassBundles().values());
+				for (JvmClassBundle bundle : bundles) {
 					BundlePathNode bundleNode = resourceNode.child(bundle);
-					for (JvmClassInfo classInfo : bundle) {
+					submitChunked(service, state, bundle.values(), (sink, classInfo) -> {
 						ClassPathNode classPath = bundleNode
 								.child(classInfo.getPackageName())
 								.child(classInfo);
-						service.submit(() -> {
-							jvmClassVisitor.visit((path, value) -> results.add(createResult(path, value)), classPath, classInfo);
-						});
-					}
+						jvmClassVisitor.visit(sink, classPath, classInfo);
+					});
 				}
 			}
 
@@ -133,19 +201,135 @@ public class SearchService implements Service {
 			if (fileVisitor != null) {
 				FileBundle fileBundle = resource.getFileBundle();
 				BundlePathNode bundleNode = resourceNode.child(fileBundle);
-				for (FileInfo fileInfo : fileBundle) {
+				submitChunked(service, state, fileBundle.values(), (sink, fileInfo) -> {
 					FilePathNode filePath = bundleNode
 							.child(fileInfo.getDirectoryName())
 							.child(fileInfo);
-					service.submit(() -> {
-						fileVisitor.visit((path, value) -> results.add(createResult(path, value)), filePath, fileInfo);
-					});
-				}
+					fileVisitor.visit(sink, filePath, fileInfo);
+				});
 			}
 		}
 
 		ThreadUtil.blockUntilComplete(service);
-		return results;
+		return state.toResults();
+	}
+
+	/**
+	 * @param queries
+	 * 		Queries to search with.
+	 *
+	 * @return Queries with multiple {@link StringQuery} instances compiled into a single {@link MultiStringQuery},
+	 * so each string is scanned once rather than once per query.
+	 */
+	@Nonnull
+	private static List<Query> batchStringQueries(@Nonnull List<Query> queries) {
+		List<StringQuery> stringQueries = new ArrayList<>();
+		List<Query> otherQueries = new ArrayList<>();
+		for (Query query : queries) {
+			if (query instanceof StringQuery stringQuery)
+				stringQueries.add(stringQuery);
+			else
+				otherQueries.add(query);
+		}
+		if (stringQueries.size() < 2)
+			return queries;
+		otherQueries.add(new MultiStringQuery(stringQueries));
+		return otherQueries;
+	}
+
+	/**
+	 * Splits the items into chunks, submitting one task per chunk rather than one task per item.
+	 * Path nodes of items are created by the visit action within the task, so no per-item state
+	 * is allocated up front.
+	 *
+	 * @param service
+	 * 		Service to submit to.
+	 * @param state
+	 * 		State of the search the tasks belong to.
+	 * @param items
+	 * 		Classes or files to visit.
+	 * @param visit
+	 * 		Action visiting a single class or file, reporting results to the given sink.
+	 * @param <T>
+	 * 		Item type.
+	 */
+	private static <T> void submitChunked(@Nonnull ExecutorService service, @Nonnull SearchState state,
+										  @Nonnull Collection<T> items,
+										  @Nonnull BiConsumer<BiConsumer<PathNode<?>, Object>, T> visit) {
+		if (items.isEmpty())
+			return;
+
+		// Snapshot the items so that the chunks can be sliced by index.
+		List<T> snapshot = new ArrayList<>(items);
+		int size = snapshot.size();
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / TARGET_CHUNK_COUNT));
+		for (int start = 0; start < size; start += chunkSize) {
+			List<T> chunk = snapshot.subList(start, Math.min(size, start + chunkSize));
+			service.submit(() -> {
+				// Each task collects into its own buffer, so workers do not contend on a shared result set.
+				// Paths are unique to each item, so duplicate results can only come from within the same task.
+				NavigableSet<Result<?>> buffer = new TreeSet<>();
+				BiConsumer<PathNode<?>, Object> sink = (path, value) -> state.accept(buffer, path, value);
+				try {
+					for (T item : chunk) {
+						if (state.isStopped())
+							break;
+						visit.accept(sink, item);
+					}
+				} catch (CancelSignal ignored) {
+					// Search cancelled or limit reached while visiting
+				} finally {
+					if (!buffer.isEmpty())
+						state.buffers.add(buffer);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @param workspace
+	 * 		Workspace to search in.
+	 *
+	 * @return Value index of the workspace, or {@code null} if the workspace is not the current workspace,
+	 * or the index is not ready yet.
+	 */
+	@Nullable
+	private ValueIndex getValueIndex(@Nonnull Workspace workspace) {
+		// The index is workspace scoped, so it can only be used when searching the current workspace.
+		if (workspaceManager.getCurrent() != workspace || valueIndexInstance.isUnsatisfied())
+			return null;
+		ValueIndex index = valueIndexInstance.get();
+		return index.isReady() ? index : null;
+	}
+
+	/**
+	 * @param workspace
+	 * 		Workspace to search in.
+	 *
+	 * @return Reference index of the workspace, or {@code null} if the workspace is not the current workspace,
+	 * or the index is not ready yet.
+	 */
+	@Nullable
+	private ReferenceIndex getReferenceIndex(@Nonnull Workspace workspace) {
+		if (workspaceManager.getCurrent() != workspace || referenceIndexInstance.isUnsatisfied())
+			return null;
+		ReferenceIndex index = referenceIndexInstance.get();
+		return index.isReady() ? index : null;
+	}
+
+	/**
+	 * @param workspace
+	 * 		Workspace to search in.
+	 *
+	 * @return Opcode index of the workspace, or {@code null} if the workspace is not the current workspace,
+	 * or the index is not ready yet.
+	 */
+	@Nullable
+	private OpcodeIndex getOpcodeIndex(@Nonnull Workspace workspace) {
+		if (workspaceManager.getCurrent() != workspace || opcodeIndexInstance.isUnsatisfied())
+			return null;
+		OpcodeIndex index = opcodeIndexInstance.get();
+		return index.isReady() ? index : null;
 	}
 
 	private static Result<?> createResult(@Nonnull PathNode<?> path, @Nonnull Object value) {
@@ -157,11 +341,72 @@ public class SearchService implements Service {
 			return new ClassReferenceResult(path, (ClassReferenceResult.ClassReference) value);
 		if (value instanceof MemberReferenceResult.MemberReference)
 			return new MemberReferenceResult(path, (MemberReferenceResult.MemberReference) value);
+		if (value instanceof InstructionPatternResult.InstructionMatch)
+			return new InstructionPatternResult(path, (InstructionPatternResult.InstructionMatch) value);
 
 		// Unknown value type
 		throw new UnsupportedOperationException("Unsupported search result value type: " + value.getClass().getName());
 	}
 
+	/**
+	 * Results and stop conditions of a single search.
+	 */
+	private static class SearchState {
+		private final Queue<NavigableSet<Result<?>>> buffers = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger resultCount = new AtomicInteger();
+		private final SearchFeedback feedback;
+		private final int maxResults;
+		private volatile boolean limitReached;
+
+		private SearchState(@Nonnull SearchFeedback feedback) {
+			this.feedback = feedback;
+			this.maxResults = feedback.getMaxResults();
+		}
+
+		/**
+		 * @return {@code true} when no more content should be visited.
+		 */
+		private boolean isStopped() {
+			return limitReached || feedback.hasRequestedCancellation();
+		}
+
+		/**
+		 * Records a result. Aborts the current visitor with {@link CancelSignal} when the search is stopped.
+		 * Results already in the buffer are ignored, so they are not counted towards the limit or streamed twice.
+		 *
+		 * @param buffer
+		 * 		Buffer of the task the result was found in.
+		 * @param path
+		 * 		Path of the result.
+		 * @param value
+		 * 		Value of the result.
+		 */
+		private void accept(@Nonnull NavigableSet<Result<?>> buffer, @Nonnull PathNode<?> path, @Nonnull Object value) {
+			if (isStopped())
+				throw CancelSignal.get();
+			Result<?> result = createResult(path, value);
+			if (buffer.contains(result))
+				return;
+			if (maxResults >= 0 && resultCount.incrementAndGet() > maxResults) {
+				limitReached = true;
+				throw CancelSignal.get();
+			}
+			buffer.add(result);
+			feedback.onResult(result);
+		}
+
+		/**
+		 * @return Merged results of all tasks.
+		 */
+		@Nonnull
+		private Results toResults() {
+			List<Result<?>> merged = new ArrayList<>();
+			for (NavigableSet<Result<?>> buffer : buffers)
+				merged.addAll(buffer);
+			return new Results(merged);
+		}
+	}
+
 	@Nonnull
 	@Override
 	public String getServiceId() {
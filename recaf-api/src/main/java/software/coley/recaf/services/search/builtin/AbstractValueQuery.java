@@ -10,6 +10,7 @@ import org.objectweb.asm.tree.LdcInsnNode;
 import org.slf4j.Logger;
 import software.coley.recaf.RecafConstants;
 import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.info.AndroidClassInfo;
 import software.coley.recaf.info.JvmClassInfo;
 import software.coley.recaf.info.annotation.BasicAnnotationInfo;
 import software.coley.recaf.info.member.FieldMember;
@@ -18,10 +19,14 @@ import software.coley.recaf.path.AnnotationPathNode;
 import software.coley.recaf.path.ClassMemberPathNode;
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.path.PathNode;
+import software.coley.recaf.services.search.AndroidClassQuery;
+import software.coley.recaf.services.search.AndroidClassSearchVisitor;
 import software.coley.recaf.services.search.FileQuery;
 import software.coley.recaf.services.search.JvmClassQuery;
 import software.coley.recaf.services.search.JvmClassSearchVisitor;
+import software.coley.recaf.services.search.index.ValueIndex;
 
+import java.util.Set;
 import java.util.function.BiConsumer;
 
 /**
@@ -31,7 +36,7 @@ import java.util.function.BiConsumer;
  * @see StringQuery
  * @see NumberQuery
  */
-public abstract class AbstractValueQuery implements JvmClassQuery, FileQuery {
+public abstract class AbstractValueQuery implements AndroidClassQuery, JvmClassQuery, FileQuery {
 	private static final Number[] OP_TO_VALUE = {
 			0, // NOP
 			0, // NULL
@@ -41,15 +46,106 @@ public abstract class AbstractValueQuery implements JvmClassQuery, FileQuery {
 			0D, 1D // DCONST_X
 	};
 
-	// TODO: Implement android query when android capabilities are fleshed out enough to have comparable
-	//    search capabilities in method code
-
 	protected abstract boolean isMatch(Object value);
 
+	/**
+	 * @return {@code true} when {@link #isMatch(Object)} only matches {@link String} and {@link Number} values,
+	 * which allows the query to be served by a {@link ValueIndex}.
+	 */
+	protected boolean isIndexable() {
+		return false;
+	}
+
+	/**
+	 * @param index
+	 * 		Index of values in the workspace.
+	 *
+	 * @return Classes that may contain a match.
+	 */
+	@Nonnull
+	protected Set<JvmClassInfo> findCandidates(@Nonnull ValueIndex index) {
+		return index.getClassesWithValue(this::isMatch);
+	}
+
+	/**
+	 * Dalvik constants are untyped, so the bits of a number may be either an integer or a floating point value.
+	 *
+	 * @return {@code true} when Dalvik number constants should also be matched as floating point values.
+	 */
+	protected boolean matchesFloatingPoint() {
+		return false;
+	}
+
+	/**
+	 * Cheap check run before a class is visited in full, when there is no index to consult.
+	 *
+	 * @param classInfo
+	 * 		Class to check.
+	 *
+	 * @return {@code false} when the class cannot contain a match, so visiting it can be skipped.
+	 */
+	protected boolean mayContainMatch(@Nonnull JvmClassInfo classInfo) {
+		return true;
+	}
+
 	@Nonnull
 	@Override
 	public JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate) {
-		return new JvmVisitor(delegate);
+		return new JvmVisitor(delegate, null);
+	}
+
+	/**
+	 * @param delegate
+	 * 		Visitor to delegate to.
+	 * @param index
+	 * 		Index of values in the workspace, used to skip classes that cannot contain a match.
+	 *
+	 * @return Visitor for the query.
+	 */
+	@Nonnull
+	public JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate, @Nonnull ValueIndex index) {
+		if (!isIndexable() || !index.isReady())
+			return visitor(delegate);
+		return new JvmVisitor(delegate, findCandidates(index));
+	}
+
+	@Nonnull
+	@Override
+	public AndroidClassSearchVisitor visitor(@Nullable AndroidClassSearchVisitor delegate) {
+		return new AndroidVisitor(delegate);
+	}
+
+	/**
+	 * Searches Android classes through their field values and Dalvik code, without translating them to JVM bytecode.
+	 */
+	private class AndroidVisitor implements AndroidClassSearchVisitor {
+		private final AndroidClassSearchVisitor delegate;
+
+		private AndroidVisitor(@Nullable AndroidClassSearchVisitor delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void visit(@Nonnull BiConsumer<PathNode<?>, Object> resultSink,
+						  @Nonnull ClassPathNode classPath,
+						  @Nonnull AndroidClassInfo classInfo) {
+			if (delegate != null) delegate.visit(resultSink, classPath, classInfo);
+
+			for (FieldMember field : classInfo.getFields()) {
+				Object value = field.getDefaultValue();
+				if (value != null && isMatch(value))
+					resultSink.accept(classPath.child(field), value);
+			}
+			boolean floatingPoint = matchesFloatingPoint();
+			DexSearchUtil.forEachInstruction(classPath, classInfo, (memberPath, instruction) -> {
+				for (Object value : DexSearchUtil.getConstants(instruction, floatingPoint)) {
+					if (isMatch(value)) {
+						resultSink.accept(memberPath, value);
+						break;
+					}
+				}
+			});
+		}
 	}
 
 	/**
@@ -57,9 +153,11 @@ public abstract class AbstractValueQuery implements JvmClassQuery, FileQuery {
 	 */
 	private class JvmVisitor implements JvmClassSearchVisitor {
 		private final JvmClassSearchVisitor delegate;
+		private final Set<JvmClassInfo> candidates;
 
-		private JvmVisitor(@Nullable JvmClassSearchVisitor delegate) {
+		private JvmVisitor(@Nullable JvmClassSearchVisitor delegate, @Nullable Set<JvmClassInfo> candidates) {
 			this.delegate = delegate;
+			this.candidates = candidates;
 		}
 
 		@Override
@@ -68,6 +166,15 @@ public abstract class AbstractValueQuery implements JvmClassQuery, FileQuery {
 						  @Nonnull JvmClassInfo classInfo) {
 			if (delegate != null) delegate.visit(resultSink, classPath, classInfo);
 
+			// Skip classes the index tells us have no matching values.
+			// Without an index, fall back to the query's own cheaper pre-check.
+			if (candidates != null) {
+				if (!candidates.contains(classInfo))
+					return;
+			} else if (!mayContainMatch(classInfo)) {
+				return;
+			}
+
 			classInfo.getClassReader().accept(new AsmClassValueVisitor(resultSink, classPath, classInfo), 0);
 		}
 	}
@@ -0,0 +1,134 @@
+package software.coley.recaf.services.search.builtin;
+
+import com.android.tools.r8.dex.code.*;
+import com.android.tools.r8.graph.Code;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.objectweb.asm.Type;
+import software.coley.recaf.info.AndroidClassInfo;
+import software.coley.recaf.info.BasicAndroidClassInfo;
+import software.coley.recaf.info.member.MethodMember;
+import software.coley.recaf.path.ClassPathNode;
+import software.coley.recaf.path.PathNode;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Utilities for searching Dalvik code directly from the backing {@link DexProgramClass} of Android classes,
+ * rather than translating the class to JVM bytecode first.
+ *
+ * @author Matt Coley
+ */
+final class DexSearchUtil {
+	private DexSearchUtil() {
+	}
+
+	/**
+	 * Visits the instructions of each method with Dalvik code.
+	 *
+	 * @param classPath
+	 * 		Path to the class.
+	 * @param classInfo
+	 * 		Class to visit.
+	 * @param consumer
+	 * 		Consumer of the path of the declaring method, and an instruction within it.
+	 * 		Instructions do not have their own path nodes, so the path of the declaring method is used.
+	 */
+	static void forEachInstruction(@Nonnull ClassPathNode classPath, @Nonnull AndroidClassInfo classInfo,
+								   @Nonnull BiConsumer<PathNode<?>, DexInstruction> consumer) {
+		if (!(classInfo instanceof BasicAndroidClassInfo basicClassInfo))
+			return;
+		DexProgramClass dexClass = basicClassInfo.getDexClass();
+		for (DexEncodedMethod method : dexClass.methods()) {
+			Code code = method.getCode();
+			if (code == null || !code.isDexCode())
+				continue;
+			MethodMember member = classInfo.getDeclaredMethod(method.getName().toString(),
+					method.getProto().toDescriptorString());
+			PathNode<?> memberPath = member == null ? classPath : classPath.child(member);
+			for (DexInstruction instruction : code.asDexCode().instructions)
+				consumer.accept(memberPath, instruction);
+		}
+	}
+
+	/**
+	 * @param instruction
+	 * 		Some instruction.
+	 * @param floatingPoint
+	 * 		{@code true} to also offer numbers as the {@code float} or {@code double} value of their bits.
+	 *
+	 * @return Candidate values of the constant pushed by the instruction, or an empty list if it does not push
+	 * a string or number constant. Dalvik does not distinguish integer from floating point constants, so numbers
+	 * are given as their raw {@code int} or {@code long} value, followed by their floating point value if requested.
+	 */
+	@Nonnull
+	static List<Object> getConstants(@Nonnull DexInstruction instruction, boolean floatingPoint) {
+		if (instruction instanceof DexConstString constString)
+			return List.of(constString.getString().toString());
+		if (instruction instanceof DexConstStringJumbo constString)
+			return List.of(constString.getString().toString());
+		if (instruction instanceof DexConst4 constant)
+			return intCandidates(constant.decodedValue(), floatingPoint);
+		if (instruction instanceof DexConst16 constant)
+			return intCandidates(constant.decodedValue(), floatingPoint);
+		if (instruction instanceof DexConst constant)
+			return intCandidates(constant.decodedValue(), floatingPoint);
+		if (instruction instanceof DexConstHigh16 constant)
+			return intCandidates(constant.decodedValue(), floatingPoint);
+		if (instruction instanceof DexConstWide16 constant)
+			return wideCandidates(constant.decodedValue(), floatingPoint);
+		if (instruction instanceof DexConstWide32 constant)
+			return wideCandidates(constant.decodedValue(), floatingPoint);
+		if (instruction instanceof DexConstWide constant)
+			return wideCandidates(constant.decodedValue(), floatingPoint);
+		if (instruction instanceof DexConstWideHigh16 constant)
+			return wideCandidates(constant.decodedValue(), floatingPoint);
+		return List.of();
+	}
+
+	@Nonnull
+	private static List<Object> intCandidates(int value, boolean floatingPoint) {
+		return floatingPoint ? List.of(value, Float.intBitsToFloat(value)) : List.of(value);
+	}
+
+	@Nonnull
+	private static List<Object> wideCandidates(long value, boolean floatingPoint) {
+		return floatingPoint ? List.of(value, Double.longBitsToDouble(value)) : List.of(value);
+	}
+
+	/**
+	 * @param instruction
+	 * 		Some instruction.
+	 *
+	 * @return Type operand of the instruction, or {@code null} if it does not operate on a type.
+	 */
+	@Nullable
+	static DexType getTypeOperand(@Nonnull DexInstruction instruction) {
+		if (instruction instanceof DexNewInstance newInstance)
+			return newInstance.getType();
+		if (instruction instanceof DexCheckCast checkCast)
+			return checkCast.getType();
+		if (instruction instanceof DexConstClass constClass)
+			return constClass.getType();
+		if (instruction instanceof DexInstanceOf instanceOf)
+			return instanceOf.getType();
+		if (instruction instanceof DexNewArray newArray)
+			return newArray.getType();
+		return null;
+	}
+
+	/**
+	 * @param type
+	 * 		Dex type.
+	 *
+	 * @return Internal name of the type, matching how types are named in JVM references.
+	 */
+	@Nonnull
+	static String getInternalName(@Nonnull DexType type) {
+		return Type.getType(type.toDescriptorString()).getInternalName();
+	}
+}
@@ -0,0 +1,574 @@
+package software.coley.recaf.services.search.builtin;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+import org.objectweb.asm.util.Printer;
+import software.coley.recaf.RecafConstants;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.member.MethodMember;
+import software.coley.recaf.path.ClassMemberPathNode;
+import software.coley.recaf.path.PathNode;
+import software.coley.recaf.services.search.JvmClassQuery;
+import software.coley.recaf.services.search.JvmClassSearchVisitor;
+import software.coley.recaf.services.search.index.OpcodeIndex;
+import software.coley.recaf.services.search.result.InstructionPatternResult;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Search for sequences of instructions in method code.
+ * <br>
+ * Each line of a pattern matches one instruction, in the form {@code OPCODE operand}:
+ * <ul>
+ *     <li>{@code OPCODE} is the name of an opcode, such as {@code INVOKESTATIC}, or {@code *} for any opcode.</li>
+ *     <li>{@code operand} is optional, and when omitted any operand matches. Otherwise it is matched against the
+ *     operand text of the instruction. Within it, {@code *} matches any text, and {@code {name}} matches any text
+ *     and captures it. Later uses of the same capture name must match the same text.</li>
+ *     <li>A line of {@code ...} matches any number of instructions, including none.</li>
+ * </ul>
+ * Operand text is formatted as follows:
+ * <ul>
+ *     <li>Field and method instructions: {@code owner.name descriptor}</li>
+ *     <li>Invoke dynamic instructions: {@code name descriptor}</li>
+ *     <li>Type instructions: {@code type}</li>
+ *     <li>Constant instructions: the value, with strings wrapped in quotes, and types as descriptors</li>
+ *     <li>Int and variable instructions: the operand or variable index</li>
+ *     <li>{@code IINC}: {@code index increment}</li>
+ *     <li>{@code MULTIANEWARRAY}: {@code descriptor dimensions}</li>
+ *     <li>Anything else, such as jumps and switches: empty</li>
+ * </ul>
+ * For example, a call of a static string decryption method taking a single string constant:
+ * <pre>{@code
+ * LDC "*"
+ * INVOKESTATIC {owner}.* (Ljava/lang/String;)Ljava/lang/String;
+ * }</pre>
+ *
+ * @author Matt Coley
+ */
+public class InstructionPatternQuery implements JvmClassQuery {
+	private static final Pattern CAPTURE_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9]*");
+	private static final Map<String, Integer> OPCODES = new HashMap<>();
+	private static final int NO_LATER_MATCH = -2;
+	private final List<String> pattern;
+	private final List<Element> elements;
+	private final int[] segmentEnds;
+	private final boolean segmentsIndependent;
+
+	static {
+		for (int op = 0; op < Printer.OPCODES.length; op++) {
+			String name = Printer.OPCODES[op];
+			if (!name.isEmpty())
+				OPCODES.put(name, op);
+		}
+	}
+
+	/**
+	 * @param pattern
+	 * 		Pattern lines, one per instruction.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		When the pattern is empty, or contains an unknown opcode or invalid capture.
+	 */
+	public InstructionPatternQuery(@Nonnull List<String> pattern) {
+		this.pattern = List.copyOf(pattern);
+		elements = compile(pattern);
+		segmentEnds = computeSegmentEnds(elements);
+		segmentsIndependent = isSegmentsIndependent(elements);
+	}
+
+	/**
+	 * @return Pattern lines.
+	 */
+	@Nonnull
+	public List<String> getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return Runs of consecutive opcodes that any match must contain.
+	 * Runs are broken up by elements matching any opcode, or any number of instructions.
+	 */
+	@Nonnull
+	public List<int[]> getRequiredOpcodeRuns() {
+		List<int[]> runs = new ArrayList<>();
+		List<Integer> run = new ArrayList<>();
+		for (Element element : elements) {
+			if (element.gap || element.opcode < 0) {
+				if (!run.isEmpty())
+					runs.add(run.stream().mapToInt(Integer::intValue).toArray());
+				run.clear();
+			} else {
+				run.add(element.opcode);
+			}
+		}
+		if (!run.isEmpty())
+			runs.add(run.stream().mapToInt(Integer::intValue).toArray());
+		return runs;
+	}
+
+	@Nonnull
+	@Override
+	public JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate) {
+		return visitor(delegate, (Set<JvmClassInfo>) null);
+	}
+
+	/**
+	 * @param delegate
+	 * 		Visitor to delegate to.
+	 * @param index
+	 * 		Index of opcodes in the workspace, used to skip classes that cannot contain a match.
+	 *
+	 * @return Visitor for the query.
+	 */
+	@Nonnull
+	public JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate, @Nonnull OpcodeIndex index) {
+		List<int[]> runs = getRequiredOpcodeRuns();
+		if (!index.isReady() || runs.isEmpty())
+			return visitor(delegate);
+		return visitor(delegate, index.getClassesWithSequences(runs));
+	}
+
+	@Nonnull
+	private JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate,
+										  @Nullable Set<JvmClassInfo> candidates) {
+		return (resultSink, classPath, classInfo) -> {
+			if (delegate != null)
+				delegate.visit(resultSink, classPath, classInfo);
+
+			// Skip classes the index tells us do not have the opcodes of the pattern.
+			if (candidates != null && !candidates.contains(classInfo))
+				return;
+
+			classInfo.getClassReader().accept(new ClassVisitor(RecafConstants.getAsmVersion()) {
+				@Override
+				public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+					MethodMember member = classInfo.getDeclaredMethod(name, desc);
+					if (member == null)
+						return null;
+					return new MethodNode(RecafConstants.getAsmVersion(), access, name, desc, signature, exceptions) {
+						@Override
+						public void visitEnd() {
+							search(resultSink, classPath.child(member), instructions);
+						}
+					};
+				}
+			}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		};
+	}
+
+	/**
+	 * @param resultSink
+	 * 		Sink to feed matches to.
+	 * @param memberPath
+	 * 		Path to the method.
+	 * @param list
+	 * 		Instructions of the method.
+	 */
+	private void search(@Nonnull BiConsumer<PathNode<?>, Object> resultSink,
+						@Nonnull ClassMemberPathNode memberPath,
+						@Nonnull InsnList list) {
+		// Only real instructions are matched, labels/frames/line numbers are skipped.
+		List<AbstractInsnNode> insns = new ArrayList<>(list.size());
+		for (AbstractInsnNode insn : list)
+			if (insn.getOpcode() >= 0)
+				insns.add(insn);
+		MethodState state = new MethodState(insns);
+		Map<String, String> captures = new HashMap<>();
+		int start = 0;
+		while (start < insns.size()) {
+			int end = segmentsIndependent ? matchSegments(state, start, captures) : match(state, 0, start, captures);
+			if (end == NO_LATER_MATCH)
+				break;
+			if (end < 0) {
+				// Segments matched before a later one failed leave their captures behind.
+				captures.clear();
+				start++;
+				continue;
+			}
+
+			List<String> matched = new ArrayList<>(end - start);
+			for (int i = start; i < end; i++)
+				matched.add(state.text(i));
+			resultSink.accept(memberPath.childInsn(insns.get(start)),
+					new InstructionPatternResult.InstructionMatch(matched, captures));
+			captures = new HashMap<>();
+
+			// Continue after the match, so matches do not overlap
+			start = Math.max(end, start + 1);
+		}
+	}
+
+	/**
+	 * Matches patterns where no capture is shared between segments, the runs of elements between gaps.
+	 * Where a segment matches does not affect whether later segments match, other than by position.
+	 * So each segment after a gap can be placed at the earliest position it matches, without backtracking.
+	 * This is the same match the backtracking {@link #match(MethodState, int, int, Map)} finds,
+	 * since gaps match as few instructions as possible.
+	 *
+	 * @param state
+	 * 		Instructions of the method.
+	 * @param insnIndex
+	 * 		Index of the instruction to start matching at.
+	 * @param captures
+	 * 		Populated with the captures of the match, if one is found.
+	 *
+	 * @return Index after the last matched instruction, {@code -1} for no match at the given index,
+	 * or {@link #NO_LATER_MATCH} when there is no match at the given index or any later index.
+	 */
+	private int matchSegments(@Nonnull MethodState state, int insnIndex, @Nonnull Map<String, String> captures) {
+		int position = insnIndex;
+		boolean afterGap = false;
+		int elementIndex = 0;
+		while (elementIndex < elements.size()) {
+			if (elements.get(elementIndex).gap) {
+				afterGap = true;
+				elementIndex++;
+				continue;
+			}
+			int segmentEnd = segmentEnds[elementIndex];
+			int length = segmentEnd - elementIndex;
+			if (afterGap) {
+				// Scan for the earliest position the segment matches at.
+				// Later start indices place prior segments no earlier, so if there is no such position
+				// then there are no matches at later start indices either.
+				while (true) {
+					if (position + length > state.size())
+						return NO_LATER_MATCH;
+					if (matchSegment(state, elementIndex, segmentEnd, position, captures))
+						break;
+					position++;
+				}
+			} else if (!matchSegment(state, elementIndex, segmentEnd, position, captures)) {
+				return -1;
+			}
+			position += length;
+			elementIndex = segmentEnd;
+			afterGap = false;
+		}
+		return position;
+	}
+
+	/**
+	 * @param state
+	 * 		Instructions of the method.
+	 * @param from
+	 * 		Index of the first element of the segment.
+	 * @param to
+	 * 		Index after the last element of the segment.
+	 * @param insnIndex
+	 * 		Index of the instruction to match the first element against.
+	 * @param captures
+	 * 		Captures so far. Populated with the captures of the segment if it matches, otherwise left unchanged.
+	 *
+	 * @return {@code true} when each element of the segment matches the instructions starting at the given index.
+	 */
+	private boolean matchSegment(@Nonnull MethodState state, int from, int to, int insnIndex,
+								 @Nonnull Map<String, String> captures) {
+		if (insnIndex + (to - from) > state.size())
+			return false;
+		List<String> bound = null;
+		for (int i = from; i < to; i++) {
+			List<String> elementBound = matchElement(state, elements.get(i), insnIndex + i - from, captures);
+			if (elementBound == null) {
+				unbind(captures, bound);
+				return false;
+			}
+			if (!elementBound.isEmpty()) {
+				if (bound == null)
+					bound = new ArrayList<>();
+				bound.addAll(elementBound);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Backtracking matcher, used for patterns where captures are shared between segments.
+	 * Captures are bound in place, and unbound again when a branch fails, rather than copied per branch.
+	 *
+	 * @param state
+	 * 		Instructions of the method.
+	 * @param elementIndex
+	 * 		Index of the pattern element to match.
+	 * @param insnIndex
+	 * 		Index of the instruction to match the element against.
+	 * @param captures
+	 * 		Captures so far. Populated with the captures of the match if one is found, otherwise left unchanged.
+	 *
+	 * @return Index after the last matched instruction, or {@code -1} for no match.
+	 */
+	private int match(@Nonnull MethodState state, int elementIndex, int insnIndex,
+					  @Nonnull Map<String, String> captures) {
+		if (elementIndex == elements.size())
+			return insnIndex;
+		Element element = elements.get(elementIndex);
+		if (element.gap) {
+			// Match as few instructions as possible
+			for (int skip = insnIndex; skip <= state.size(); skip++) {
+				int end = match(state, elementIndex + 1, skip, captures);
+				if (end >= 0)
+					return end;
+			}
+			return -1;
+		}
+		List<String> bound = matchElement(state, element, insnIndex, captures);
+		if (bound == null)
+			return -1;
+		int end = match(state, elementIndex + 1, insnIndex + 1, captures);
+		if (end < 0)
+			unbind(captures, bound);
+		return end;
+	}
+
+	/**
+	 * @param state
+	 * 		Instructions of the method.
+	 * @param element
+	 * 		Pattern element to match, which is not a gap.
+	 * @param insnIndex
+	 * 		Index of the instruction to match the element against.
+	 * @param captures
+	 * 		Captures so far. Populated with captures first bound by the element if it matches.
+	 *
+	 * @return Names of captures first bound by the element, or {@code null} for no match.
+	 */
+	@Nullable
+	private static List<String> matchElement(@Nonnull MethodState state, @Nonnull Element element, int insnIndex,
+											 @Nonnull Map<String, String> captures) {
+		if (insnIndex >= state.size())
+			return null;
+		if (element.opcode >= 0 && element.opcode != state.opcode(insnIndex))
+			return null;
+		if (element.operand == null)
+			return Collections.emptyList();
+		Matcher matcher = element.operand.matcher(state.operand(insnIndex));
+		if (!matcher.matches())
+			return null;
+		List<String> bound = null;
+		for (String name : element.captureNames) {
+			String value = matcher.group(name);
+			String prior = captures.putIfAbsent(name, value);
+			if (prior == null) {
+				if (bound == null)
+					bound = new ArrayList<>(element.captureNames.size());
+				bound.add(name);
+			} else if (!prior.equals(value)) {
+				unbind(captures, bound);
+				return null;
+			}
+		}
+		return bound == null ? Collections.emptyList() : bound;
+	}
+
+	private static void unbind(@Nonnull Map<String, String> captures, @Nullable List<String> bound) {
+		if (bound != null)
+			for (String name : bound)
+				captures.remove(name);
+	}
+
+	/**
+	 * @param elements
+	 * 		Compiled pattern elements.
+	 *
+	 * @return Array where each non-gap element index maps to the index after the last element of its segment.
+	 */
+	@Nonnull
+	private static int[] computeSegmentEnds(@Nonnull List<Element> elements) {
+		int[] ends = new int[elements.size()];
+		int end = elements.size();
+		for (int i = elements.size() - 1; i >= 0; i--) {
+			if (elements.get(i).gap)
+				end = i;
+			else
+				ends[i] = end;
+		}
+		return ends;
+	}
+
+	/**
+	 * @param elements
+	 * 		Compiled pattern elements.
+	 *
+	 * @return {@code true} when no capture name is used in more than one segment.
+	 */
+	private static boolean isSegmentsIndependent(@Nonnull List<Element> elements) {
+		Set<String> priorSegmentNames = new HashSet<>();
+		Set<String> segmentNames = new HashSet<>();
+		for (Element element : elements) {
+			if (element.gap) {
+				priorSegmentNames.addAll(segmentNames);
+				segmentNames.clear();
+				continue;
+			}
+			for (String name : element.captureNames) {
+				if (priorSegmentNames.contains(name))
+					return false;
+				segmentNames.add(name);
+			}
+		}
+		return true;
+	}
+
+	@Nonnull
+	private static List<Element> compile(@Nonnull List<String> pattern) {
+		List<Element> elements = new ArrayList<>(pattern.size());
+		for (String line : pattern) {
+			line = line.strip();
+			if (line.isEmpty())
+				continue;
+			if (line.equals("...")) {
+				elements.add(new Element(true, -1, null, Collections.emptyList()));
+				continue;
+			}
+			int split = line.indexOf(' ');
+			String opcodeName = split < 0 ? line : line.substring(0, split);
+			String operand = split < 0 ? null : line.substring(split + 1).strip();
+			int opcode;
+			if (opcodeName.equals("*")) {
+				opcode = -1;
+			} else {
+				Integer op = OPCODES.get(opcodeName.toUpperCase(Locale.ROOT));
+				if (op == null)
+					throw new IllegalArgumentException("Unknown opcode in pattern: " + opcodeName);
+				opcode = op;
+			}
+			List<String> captureNames = new ArrayList<>();
+			Pattern operandPattern = operand == null ? null : compileOperand(operand, captureNames);
+			elements.add(new Element(false, opcode, operandPattern, captureNames));
+		}
+		// Gaps only ever match between instructions, so a pattern of only gaps would match nothing meaningful.
+		if (elements.stream().allMatch(Element::gap))
+			throw new IllegalArgumentException("Pattern has no instructions");
+		return elements;
+	}
+
+	@Nonnull
+	private static Pattern compileOperand(@Nonnull String operand, @Nonnull List<String> captureNames) {
+		StringBuilder regex = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (int i = 0; i < operand.length(); i++) {
+			char c = operand.charAt(i);
+			if (c == '*' || c == '{') {
+				if (!literal.isEmpty()) {
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				if (c == '*') {
+					regex.append(".*");
+				} else {
+					int close = operand.indexOf('}', i);
+					if (close < 0)
+						throw new IllegalArgumentException("Unclosed capture in pattern: " + operand);
+					String name = operand.substring(i + 1, close);
+					if (!CAPTURE_NAME.matcher(name).matches())
+						throw new IllegalArgumentException("Invalid capture name in pattern: " + name);
+					if (captureNames.contains(name)) {
+						regex.append("\\k<").append(name).append('>');
+					} else {
+						regex.append("(?<").append(name).append(">.*)");
+						captureNames.add(name);
+					}
+					i = close;
+				}
+			} else {
+				literal.append(c);
+			}
+		}
+		if (!literal.isEmpty())
+			regex.append(Pattern.quote(literal.toString()));
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+
+	/**
+	 * @param insn
+	 * 		Some instruction.
+	 *
+	 * @return Operand text of the instruction.
+	 */
+	@Nonnull
+	private static String operandText(@Nonnull AbstractInsnNode insn) {
+		if (insn instanceof FieldInsnNode field)
+			return field.owner + '.' + field.name + ' ' + field.desc;
+		if (insn instanceof MethodInsnNode method)
+			return method.owner + '.' + method.name + ' ' + method.desc;
+		if (insn instanceof InvokeDynamicInsnNode indy)
+			return indy.name + ' ' + indy.desc;
+		if (insn instanceof TypeInsnNode type)
+			return type.desc;
+		if (insn instanceof IntInsnNode intInsn)
+			return String.valueOf(intInsn.operand);
+		if (insn instanceof VarInsnNode var)
+			return String.valueOf(var.var);
+		if (insn instanceof IincInsnNode iinc)
+			return iinc.var + " " + iinc.incr;
+		if (insn instanceof MultiANewArrayInsnNode array)
+			return array.desc + ' ' + array.dims;
+		if (insn instanceof LdcInsnNode ldc) {
+			if (ldc.cst instanceof String string)
+				return '"' + string + '"';
+			if (ldc.cst instanceof Type type)
+				return type.getDescriptor();
+			return String.valueOf(ldc.cst);
+		}
+		return "";
+	}
+
+	/**
+	 * Single line of a pattern.
+	 *
+	 * @param gap
+	 * 		Matches any number of instructions when {@code true}.
+	 * @param opcode
+	 * 		Opcode to match, or {@code -1} for any.
+	 * @param operand
+	 * 		Operand text to match, or {@code null} for any.
+	 * @param captureNames
+	 * 		Names of captures in the operand.
+	 */
+	private record Element(boolean gap, int opcode, @Nullable Pattern operand, @Nonnull List<String> captureNames) {
+	}
+
+	/**
+	 * Instructions of a method, with their text computed only when a pattern needs it.
+	 */
+	private static class MethodState {
+		private final List<AbstractInsnNode> insns;
+		private final String[] operands;
+
+		private MethodState(@Nonnull List<AbstractInsnNode> insns) {
+			this.insns = insns;
+			operands = new String[insns.size()];
+		}
+
+		private int size() {
+			return insns.size();
+		}
+
+		private int opcode(int index) {
+			return insns.get(index).getOpcode();
+		}
+
+		@Nonnull
+		private String operand(int index) {
+			String operand = operands[index];
+			if (operand == null)
+				operand = operands[index] = operandText(insns.get(index));
+			return operand;
+		}
+
+		@Nonnull
+		private String text(int index) {
+			String operand = operand(index);
+			String name = Printer.OPCODES[opcode(index)];
+			return operand.isEmpty() ? name : name + ' ' + operand;
+		}
+	}
+}
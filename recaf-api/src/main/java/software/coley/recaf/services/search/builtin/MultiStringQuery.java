@@ -0,0 +1,82 @@
+package software.coley.recaf.services.search.builtin;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.services.search.FileSearchVisitor;
+import software.coley.recaf.util.MultiTextMatcher;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * String search for many {@link StringQuery} instances at once. Rather than testing each string against every query,
+ * the queries are compiled into a single {@link MultiTextMatcher} so each string is scanned once.
+ *
+ * @author Matt Coley
+ */
+public class MultiStringQuery extends AbstractValueQuery {
+	private final List<StringQuery> queries;
+	private final MultiTextMatcher matcher;
+
+	/**
+	 * @param queries
+	 * 		Queries to match against.
+	 */
+	public MultiStringQuery(@Nonnull List<StringQuery> queries) {
+		this.queries = List.copyOf(queries);
+		matcher = new MultiTextMatcher(
+				this.queries.stream().map(StringQuery::getMatchMode).toList(),
+				this.queries.stream().map(StringQuery::getTarget).toList());
+	}
+
+	/**
+	 * @return Queries matched against.
+	 */
+	@Nonnull
+	public List<StringQuery> getQueries() {
+		return queries;
+	}
+
+	/**
+	 * @param text
+	 * 		Text of a result.
+	 *
+	 * @return Queries that match the text.
+	 */
+	@Nonnull
+	public List<StringQuery> getMatchingQueries(@Nonnull String text) {
+		BitSet matches = matcher.matches(text);
+		List<StringQuery> matching = new ArrayList<>(matches.cardinality());
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1))
+			matching.add(queries.get(i));
+		return matching;
+	}
+
+	@Override
+	protected boolean isMatch(Object value) {
+		if (value instanceof String text)
+			return matcher.matchesAny(text);
+		return false;
+	}
+
+	@Override
+	protected boolean isIndexable() {
+		return true;
+	}
+
+	@Override
+	protected boolean mayContainMatch(@Nonnull JvmClassInfo classInfo) {
+		// Same reasoning as the single string query, regex keys can cost more than the visit they would save.
+		if (matcher.hasRegex())
+			return true;
+		return StringQuery.hasUtf8Match(classInfo, matcher.getMinLength(), this::isMatch);
+	}
+
+	@Nonnull
+	@Override
+	public FileSearchVisitor visitor(@Nullable FileSearchVisitor delegate) {
+		return new StringQuery.TextFileVisitor(delegate, this::isMatch);
+	}
+}
@@ -4,9 +4,11 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import regexodus.Matcher;
 import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.TextFileInfo;
 import software.coley.recaf.path.FilePathNode;
 import software.coley.recaf.path.PathNode;
 import software.coley.recaf.services.search.FileSearchVisitor;
+import software.coley.recaf.util.LineIndex;
 import software.coley.recaf.util.NumberMatchMode;
 import software.coley.recaf.util.NumberUtil;
 
@@ -41,6 +43,18 @@ public class NumberQuery extends AbstractValueQuery {
 		return false;
 	}
 
+	@Override
+	protected boolean isIndexable() {
+		return true;
+	}
+
+	@Override
+	protected boolean matchesFloatingPoint() {
+		// Integer targets are only matched against raw values, so that modes such as 'NOT' do not also match
+		// the floating point reading of every integer constant.
+		return target instanceof Float || target instanceof Double;
+	}
+
 	@Nonnull
 	@Override
 	public FileSearchVisitor visitor(@Nullable FileSearchVisitor delegate) {
@@ -65,12 +79,11 @@ public class NumberQuery extends AbstractValueQuery {
 
 			// Search text files text content on a line by line basis
 			if (fileInfo.isTextFile()) {
-				String text = fileInfo.asTextFile().getText();
-
-				// Split by single newline (including goofy carriage returns)
-				String[] lines = text.split("\\r?\\n\\r?");
-				for (int i = 0; i < lines.length; i++) {
-					String lineText = lines[i];
+				TextFileInfo textFile = fileInfo.asTextFile();
+				String text = textFile.getText();
+				LineIndex lines = textFile.getLineIndex();
+				for (int i = 0; i < lines.getLineCount(); i++) {
+					String lineText = text.substring(lines.getLineStart(i), lines.getLineEnd(i));
 
 					// Extract numbers (decimal, hex) from line, check if match
 					Matcher matcher = getMatcher("(?:\\b|-)(?:\\d+(?:.\\d+[DdFf]?)?|0[xX][0-9a-fA-F]+)\\b", lineText);
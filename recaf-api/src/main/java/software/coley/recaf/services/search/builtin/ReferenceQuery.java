@@ -1,5 +1,8 @@
 package software.coley.recaf.services.search.builtin;
 
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexType;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.objectweb.asm.*;
@@ -16,14 +19,18 @@ import software.coley.recaf.path.AnnotationPathNode;
 import software.coley.recaf.path.ClassMemberPathNode;
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.path.PathNode;
+import software.coley.recaf.services.search.AndroidClassQuery;
+import software.coley.recaf.services.search.AndroidClassSearchVisitor;
 import software.coley.recaf.services.search.JvmClassQuery;
 import software.coley.recaf.services.search.JvmClassSearchVisitor;
+import software.coley.recaf.services.search.index.ReferenceIndex;
 import software.coley.recaf.services.search.result.ClassReferenceResult;
 import software.coley.recaf.services.search.result.MemberReferenceResult;
 import software.coley.recaf.util.StringUtil;
 import software.coley.recaf.util.TextMatchMode;
 import software.coley.recaf.util.Types;
 
+import java.util.Set;
 import java.util.function.BiConsumer;
 
 /**
@@ -31,7 +38,7 @@ import java.util.function.BiConsumer;
  *
  * @author Matt Coley
  */
-public class ReferenceQuery implements JvmClassQuery {
+public class ReferenceQuery implements AndroidClassQuery, JvmClassQuery {
 	private final TextMatchMode matchMode;
 	private final String targetOwner;
 	private final String targetName;
@@ -119,13 +126,115 @@ public class ReferenceQuery implements JvmClassQuery {
 	@Nonnull
 	@Override
 	public JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate) {
+		return visitor(delegate, (Set<JvmClassInfo>) null);
+	}
+
+	/**
+	 * @param delegate
+	 * 		Visitor to delegate to.
+	 * @param index
+	 * 		Index of references in the workspace, used to skip classes that cannot contain a match.
+	 *
+	 * @return Visitor for the query.
+	 */
+	@Nonnull
+	public JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate, @Nonnull ReferenceIndex index) {
+		if (!index.isReady())
+			return visitor(delegate);
+		return visitor(delegate, findCandidates(index));
+	}
+
+	@Nonnull
+	private JvmClassSearchVisitor visitor(@Nullable JvmClassSearchVisitor delegate,
+										  @Nullable Set<JvmClassInfo> candidates) {
 		return (resultSink, currentLocation, classInfo) -> {
 			if (delegate != null)
 				delegate.visit(resultSink, currentLocation, classInfo);
+
+			// Skip classes the index tells us have no matching references.
+			if (candidates != null && !candidates.contains(classInfo))
+				return;
+
 			classInfo.getClassReader().accept(new AsmReferenceClassVisitor(resultSink, currentLocation, classInfo), 0);
 		};
 	}
 
+	@Nonnull
+	@Override
+	public AndroidClassSearchVisitor visitor(@Nullable AndroidClassSearchVisitor delegate) {
+		// Searches Dalvik code directly, without translating the class to JVM bytecode.
+		return (resultSink, currentLocation, classInfo) -> {
+			if (delegate != null)
+				delegate.visit(resultSink, currentLocation, classInfo);
+
+			DexSearchUtil.forEachInstruction(currentLocation, classInfo, (memberPath, instruction) -> {
+				DexMethod method = instruction.getMethod();
+				if (method != null) {
+					String owner = DexSearchUtil.getInternalName(method.getHolderType());
+					String name = method.getName().toString();
+					String desc = method.getProto().toDescriptorString();
+					if (isMemberRefMatch(owner, name, desc))
+						resultSink.accept(memberPath, mref(owner, name, desc));
+
+					// Check types used in ref
+					Type methodType = Type.getMethodType(desc);
+					String methodRetType = methodType.getReturnType().getInternalName();
+					if (isClassRefMatch(methodRetType))
+						resultSink.accept(memberPath, cref(methodRetType));
+					for (Type argumentType : methodType.getArgumentTypes()) {
+						if (isClassRefMatch(argumentType.getInternalName()))
+							resultSink.accept(memberPath, cref(argumentType.getInternalName()));
+					}
+				}
+
+				DexField field = instruction.getField();
+				if (field != null) {
+					String owner = DexSearchUtil.getInternalName(field.getHolderType());
+					String name = field.getName().toString();
+					String desc = field.getType().toDescriptorString();
+					if (isMemberRefMatch(owner, name, desc))
+						resultSink.accept(memberPath, mref(owner, name, desc));
+
+					// Check types used in ref
+					String fieldType = getInternalName(desc);
+					if (isClassRefMatch(fieldType))
+						resultSink.accept(memberPath, cref(fieldType));
+				}
+
+				DexType type = DexSearchUtil.getTypeOperand(instruction);
+				if (type != null) {
+					String typeName = DexSearchUtil.getInternalName(type);
+					if (isClassRefMatch(typeName))
+						resultSink.accept(memberPath, cref(typeName));
+				}
+			});
+		};
+	}
+
+	/**
+	 * @param index
+	 * 		Index of references in the workspace.
+	 *
+	 * @return Classes that may contain a match, or {@code null} when the query matches all classes.
+	 */
+	@Nullable
+	private Set<JvmClassInfo> findCandidates(@Nonnull ReferenceIndex index) {
+		if (classRefOnly) {
+			// Without an owner any class reference is a match.
+			if (StringUtil.isNullOrEmpty(targetOwner))
+				return null;
+
+			// Untyped references are recorded as empty names, which always match.
+			if (matchMode == TextMatchMode.EQUALS) {
+				Set<JvmClassInfo> candidates = index.getClassesReferencingClass(targetOwner);
+				candidates.addAll(index.getClassesReferencingClass(""));
+				return candidates;
+			}
+			return index.getClassesReferencingClass(this::isClassRefMatch);
+		}
+		return index.getClassesReferencingMember(ref -> isMemberRefMatch(ref.getOwner(), ref.getName(), ref.getDescr()));
+	}
+
 	/**
 	 * Visits references in classes.
 	 */
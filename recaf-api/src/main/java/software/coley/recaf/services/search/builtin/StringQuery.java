@@ -2,13 +2,25 @@ package software.coley.recaf.services.search.builtin;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import me.coley.cafedude.classfile.ConstantPoolConstants;
+import org.objectweb.asm.ClassReader;
 import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.TextFileInfo;
 import software.coley.recaf.path.FilePathNode;
 import software.coley.recaf.path.PathNode;
 import software.coley.recaf.services.search.FileSearchVisitor;
+import software.coley.recaf.services.search.index.ValueIndex;
+import software.coley.recaf.util.LineIndex;
 import software.coley.recaf.util.TextMatchMode;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 /**
  * String search implementation.
@@ -30,6 +42,22 @@ public class StringQuery extends AbstractValueQuery {
 		this.target = target;
 	}
 
+	/**
+	 * @return Text matching mode.
+	 */
+	@Nonnull
+	public TextMatchMode getMatchMode() {
+		return matchMode;
+	}
+
+	/**
+	 * @return Text to match against.
+	 */
+	@Nonnull
+	public String getTarget() {
+		return target;
+	}
+
 	@Override
 	protected boolean isMatch(Object value) {
 		if (value instanceof String text)
@@ -37,20 +65,105 @@ public class StringQuery extends AbstractValueQuery {
 		return false;
 	}
 
+	@Override
+	protected boolean isIndexable() {
+		return true;
+	}
+
+	@Nonnull
+	@Override
+	protected Set<JvmClassInfo> findCandidates(@Nonnull ValueIndex index) {
+		// Exact matches can be looked up directly rather than testing each value.
+		if (matchMode == TextMatchMode.EQUALS)
+			return index.getClassesWithValue(target);
+		return super.findCandidates(index);
+	}
+
+	@Override
+	protected boolean mayContainMatch(@Nonnull JvmClassInfo classInfo) {
+		// Regex matching every UTF8 entry can cost more than the full visit it would save.
+		if (matchMode == TextMatchMode.REGEX)
+			return true;
+		return hasUtf8Match(classInfo, target.length(), this::isMatch);
+	}
+
+	/**
+	 * All string values we visit (ldc, field constants, annotation values, bootstrap arguments)
+	 * are backed by UTF8 entries in the constant pool. If none match, the class cannot hold a match.
+	 *
+	 * @param classInfo
+	 * 		Class to check.
+	 * @param minLength
+	 * 		Minimum length of a matching string.
+	 * @param filter
+	 * 		String match check.
+	 *
+	 * @return {@code true} when any UTF8 constant pool entry matches.
+	 */
+	static boolean hasUtf8Match(@Nonnull JvmClassInfo classInfo, int minLength, @Nonnull Predicate<String> filter) {
+		ClassReader reader = classInfo.getClassReader();
+		byte[] bytecode = classInfo.getBytecode();
+		int itemCount = reader.getItemCount();
+		char[] buffer = new char[reader.getMaxStringLength()];
+		for (int i = 1; i < itemCount; i++) {
+			int offset = reader.getItem(i);
+			if (offset >= 10 && reader.readByte(offset - 1) == ConstantPoolConstants.UTF8) {
+				int length = reader.readUnsignedShort(offset);
+				if (length >= minLength && filter.test(readUtf(bytecode, offset + 2, length, buffer)))
+					return true;
+			}
+		}
+		return false;
+	}
+
 	@Nonnull
 	@Override
 	public FileSearchVisitor visitor(@Nullable FileSearchVisitor delegate) {
-		return new FileVisitor(delegate);
+		return new TextFileVisitor(delegate, matchMode, target);
 	}
 
 	/**
 	 * Points {@link #visitor(FileSearchVisitor)} to file content.
+	 * <br>
+	 * Lines are located with the file's {@link LineIndex} rather than splitting the text.
+	 * Literal match modes compare characters in place, only creating strings for matching lines.
+	 * Large files are split into line ranges and scanned in parallel.
 	 */
-	private class FileVisitor implements FileSearchVisitor {
+	static class TextFileVisitor implements FileSearchVisitor {
+		private static final int PARALLEL_THRESHOLD = 1 << 18;
 		private final FileSearchVisitor delegate;
+		private final Predicate<String> filter;
+		private final TextMatchMode literalMode;
+		private final String literal;
+
+		/**
+		 * @param delegate
+		 * 		Optional delegate visitor.
+		 * @param filter
+		 * 		Line match check.
+		 */
+		TextFileVisitor(@Nullable FileSearchVisitor delegate, @Nonnull Predicate<String> filter) {
+			this(delegate, filter, null, null);
+		}
 
-		private FileVisitor(FileSearchVisitor delegate) {
+		/**
+		 * @param delegate
+		 * 		Optional delegate visitor.
+		 * @param mode
+		 * 		Line match mode.
+		 * @param target
+		 * 		Text to match lines against.
+		 */
+		TextFileVisitor(@Nullable FileSearchVisitor delegate, @Nonnull TextMatchMode mode, @Nonnull String target) {
+			this(delegate, line -> mode.match(target, line), mode == TextMatchMode.REGEX ? null : mode, target);
+		}
+
+		private TextFileVisitor(@Nullable FileSearchVisitor delegate, @Nonnull Predicate<String> filter,
+								@Nullable TextMatchMode literalMode, @Nullable String literal) {
 			this.delegate = delegate;
+			this.filter = filter;
+			this.literalMode = literalMode;
+			this.literal = literal;
 		}
 
 		@Override
@@ -61,16 +174,111 @@ public class StringQuery extends AbstractValueQuery {
 
 			// Search text files text content on a line by line basis
 			if (fileInfo.isTextFile()) {
-				String text = fileInfo.asTextFile().getText();
-
-				// Split by single newline (including goofy carriage returns)
-				String[] lines = text.split("\\r?\\n\\r?");
-				for (int i = 0; i < lines.length; i++) {
-					String lineText = lines[i];
-					if (isMatch(lineText))
-						resultSink.accept(filePath.child(i + 1), lineText);
+				TextFileInfo textFile = fileInfo.asTextFile();
+				String text = textFile.getText();
+				LineIndex lines = textFile.getLineIndex();
+
+				// Results are fed to the sink on this thread, as the sink is not shared between threads.
+				for (int line : scan(text, lines, 0, lines.getLineCount()))
+					resultSink.accept(filePath.child(line + 1),
+							text.substring(lines.getLineStart(line), lines.getLineEnd(line)));
+			}
+		}
+
+		/**
+		 * @param text
+		 * 		Text to scan.
+		 * @param lines
+		 * 		Line offsets of the text.
+		 * @param from
+		 * 		First line to scan, inclusive.
+		 * @param to
+		 * 		Last line to scan, exclusive.
+		 *
+		 * @return Zero-based indices of matching lines, in order.
+		 */
+		@Nonnull
+		private List<Integer> scan(@Nonnull String text, @Nonnull LineIndex lines, int from, int to) {
+			if (from >= to)
+				return Collections.emptyList();
+			if (to - from > 1 && lines.getLineEnd(to - 1) - lines.getLineStart(from) > PARALLEL_THRESHOLD) {
+				int mid = (from + to) >>> 1;
+				ForkJoinTask<List<Integer>> left = ForkJoinTask.adapt(() -> scan(text, lines, from, mid));
+				ForkJoinTask<List<Integer>> right = ForkJoinTask.adapt(() -> scan(text, lines, mid, to));
+				ForkJoinTask.invokeAll(left, right);
+				List<Integer> matches = new ArrayList<>(left.join());
+				matches.addAll(right.join());
+				return matches;
+			}
+			List<Integer> matches = new ArrayList<>();
+			if (literalMode == TextMatchMode.CONTAINS) {
+				// Jump between occurrences rather than checking each line.
+				int end = lines.getLineEnd(to - 1);
+				int offset = lines.getLineStart(from);
+				while (offset <= end) {
+					int found = text.indexOf(literal, offset);
+					if (found < 0 || found + literal.length() > end)
+						break;
+					int line = lines.getLineAt(found);
+					if (found + literal.length() <= lines.getLineEnd(line)) {
+						matches.add(line);
+						if (line + 1 >= to)
+							break;
+						offset = lines.getLineStart(line + 1);
+					} else {
+						// Occurrence spans a line separator
+						offset = found + 1;
+					}
 				}
+			} else {
+				for (int line = from; line < to; line++)
+					if (isLineMatch(text, lines.getLineStart(line), lines.getLineEnd(line)))
+						matches.add(line);
+			}
+			return matches;
+		}
+
+		private boolean isLineMatch(@Nonnull String text, int start, int end) {
+			if (literalMode == null)
+				return filter.test(text.substring(start, end));
+			int length = literal.length();
+			return switch (literalMode) {
+				case EQUALS -> end - start == length && text.regionMatches(start, literal, 0, length);
+				case STARTS_WITH -> end - start >= length && text.regionMatches(start, literal, 0, length);
+				case ENDS_WITH -> end - start >= length && text.regionMatches(end - length, literal, 0, length);
+				default -> filter.test(text.substring(start, end));
+			};
+		}
+	}
+
+	/**
+	 * Decodes a modified UTF-8 constant pool entry.
+	 *
+	 * @param bytecode
+	 * 		Class file bytes.
+	 * @param offset
+	 * 		Offset of the first byte of the encoded string.
+	 * @param length
+	 * 		Number of encoded bytes.
+	 * @param buffer
+	 * 		Buffer at least as large as the longest string in the class.
+	 *
+	 * @return Decoded string.
+	 */
+	@Nonnull
+	private static String readUtf(@Nonnull byte[] bytecode, int offset, int length, @Nonnull char[] buffer) {
+		int end = offset + length;
+		int count = 0;
+		while (offset < end) {
+			int b = bytecode[offset++];
+			if ((b & 0x80) == 0) {
+				buffer[count++] = (char) (b & 0x7F);
+			} else if ((b & 0xE0) == 0xC0) {
+				buffer[count++] = (char) (((b & 0x1F) << 6) + (bytecode[offset++] & 0x3F));
+			} else {
+				buffer[count++] = (char) (((b & 0xF) << 12) + ((bytecode[offset++] & 0x3F) << 6) + (bytecode[offset++] & 0x3F));
 			}
 		}
+		return new String(buffer, 0, count);
 	}
 }
@@ -0,0 +1,360 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.services.Service;
+import software.coley.recaf.util.threading.ThreadPoolFactory;
+import software.coley.recaf.workspace.WorkspaceModificationListener;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.ResourceJvmClassListener;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Common base for inverted indices of the classes of a workspace.
+ * Maps each key collected from a class to the classes containing it, so that a search only needs to visit
+ * classes which can contain a match.
+ * <p>
+ * The index is populated in the background when the workspace is opened, and is kept up to date as classes
+ * in the workspace are added, updated and removed. Until it is {@link #isReady() ready} searches should fall back
+ * to visiting all classes. Implementations may provide a {@link ClassKeyStore} so that the keys of classes seen
+ * in previously opened workspaces are loaded rather than collected again.
+ *
+ * @param <K>
+ * 		Type of keys collected from classes.
+ *
+ * @author Matt Coley
+ */
+public abstract class AbstractClassIndex<K> implements Service, WorkspaceModificationListener, ResourceJvmClassListener {
+	private static final Logger logger = Logging.get(AbstractClassIndex.class);
+	private static final ExecutorService populatePool = ThreadPoolFactory.newFixedThreadPool("search-index");
+	private final Map<K, Set<JvmClassInfo>> keyToClasses = new HashMap<>();
+	private final Map<JvmClassInfo, Set<K>> classToKeys = new IdentityHashMap<>();
+	private final Set<JvmClassInfo> removedWhilePopulating = newClassSet();
+	private final ClassKeyStore<K> store;
+	private final boolean active;
+	private volatile CompletableFuture<Void> populated;
+	private volatile boolean ready;
+
+	/**
+	 * @param active
+	 * 		Flag indicating if the index should be populated and kept up to date.
+	 */
+	protected AbstractClassIndex(boolean active) {
+		this(active, null);
+	}
+
+	/**
+	 * @param active
+	 * 		Flag indicating if the index should be populated and kept up to date.
+	 * @param store
+	 * 		Store to look up the keys of classes seen before in, and to record the keys of new classes in.
+	 * 		May be {@code null} to always collect keys from classes.
+	 */
+	protected AbstractClassIndex(boolean active, @Nullable ClassKeyStore<K> store) {
+		this.active = active;
+		this.store = store;
+	}
+
+	/**
+	 * Registers listeners on the workspace and starts populating the index in the background.
+	 * Called by implementations once they are fully constructed.
+	 *
+	 * @param workspace
+	 * 		Workspace to pull data from.
+	 */
+	protected final void initialize(@Nonnull Workspace workspace) {
+		// Only initialize & register listeners if active
+		if (!active)
+			return;
+
+		// Listeners are registered before taking the snapshot of classes to populate with,
+		// so that no changes are missed in between.
+		workspace.addWorkspaceModificationListener(this);
+		List<JvmClassInfo> classes = new ArrayList<>();
+		for (WorkspaceResource resource : workspace.getAllResources(false)) {
+			resource.addResourceJvmClassListener(this);
+			classes(resource).forEach(classes::add);
+		}
+		populated = CompletableFuture.runAsync(() -> {
+			try {
+				populate(classes);
+				synchronized (this) {
+					removedWhilePopulating.clear();
+					ready = true;
+				}
+			} catch (Throwable t) {
+				// Searches keep visiting all classes instead.
+				logger.error("Failed to populate index '{}'", getServiceId(), t);
+			}
+		}, populatePool);
+	}
+
+	/**
+	 * @return {@code true} when the index is kept up to date.
+	 * {@code false} when the index was disabled when the workspace was opened.
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * @return {@code true} when the index is active and has been populated, so that it can be used by searches.
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Blocks until the index has been populated.
+	 *
+	 * @return {@code true} when the index is ready.
+	 * {@code false} when it is not active, or could not be populated.
+	 */
+	public boolean awaitReady() {
+		CompletableFuture<Void> populated = this.populated;
+		if (populated != null)
+			populated.join();
+		return ready;
+	}
+
+	/**
+	 * Populates the index with the classes in the workspace when it was opened. Called on a background thread.
+	 *
+	 * @param classes
+	 * 		Classes to populate the index with.
+	 */
+	protected void populate(@Nonnull List<JvmClassInfo> classes) {
+		if (store == null) {
+			for (JvmClassInfo classInfo : classes)
+				populate(classInfo, collectKeys(classInfo));
+			return;
+		}
+
+		// Look up each class in the store by the hash of its content,
+		// so that classes shared with previously opened workspaces are not visited again.
+		List<String> hashes = new ArrayList<>(classes.size());
+		for (JvmClassInfo classInfo : classes)
+			hashes.add(ClassKeyStore.hash(classInfo.getBytecode()));
+		Map<String, Set<K>> stored = store.load(hashes);
+		Map<String, Set<K>> missed = new HashMap<>();
+		for (int i = 0; i < classes.size(); i++) {
+			JvmClassInfo classInfo = classes.get(i);
+			String hash = hashes.get(i);
+			Set<K> keys = stored.get(hash);
+			if (keys == null)
+				keys = missed.computeIfAbsent(hash, h -> collectKeys(classInfo));
+			populate(classInfo, keys);
+		}
+		if (!missed.isEmpty())
+			store.store(missed, stored.keySet());
+	}
+
+	/**
+	 * Adds a class to the index while it is being populated.
+	 * Classes that were removed from the workspace since population began are skipped.
+	 *
+	 * @param classInfo
+	 * 		Class to add keys of into the index.
+	 * @param keys
+	 * 		Keys of the class.
+	 */
+	protected final synchronized void populate(@Nonnull JvmClassInfo classInfo, @Nonnull Set<K> keys) {
+		if (!removedWhilePopulating.contains(classInfo))
+			link(classInfo, keys);
+	}
+
+	/**
+	 * @param classInfo
+	 * 		Class to visit.
+	 *
+	 * @return Keys of the class.
+	 *
+	 * @throws Throwable
+	 * 		When the class cannot be visited.
+	 */
+	@Nonnull
+	protected abstract Set<K> collect(@Nonnull JvmClassInfo classInfo) throws Throwable;
+
+	/**
+	 * @param classInfo
+	 * 		Class to visit.
+	 *
+	 * @return Keys of the class, or an empty set if the class cannot be visited.
+	 */
+	@Nonnull
+	protected final Set<K> collectKeys(@Nonnull JvmClassInfo classInfo) {
+		try {
+			return collect(classInfo);
+		} catch (Throwable t) {
+			// The query visitor will fail on the class too, so there are no results to lose.
+			logger.debug("Failed to collect '{}' keys of class '{}'", getServiceId(), classInfo.getName(), t);
+			return Collections.emptySet();
+		}
+	}
+
+	/**
+	 * @param key
+	 * 		Some key.
+	 *
+	 * @return Classes that contain the exact key.
+	 */
+	@Nonnull
+	protected final synchronized Set<JvmClassInfo> getClasses(@Nonnull K key) {
+		Set<JvmClassInfo> classes = newClassSet();
+		Set<JvmClassInfo> matched = keyToClasses.get(key);
+		if (matched != null)
+			classes.addAll(matched);
+		return classes;
+	}
+
+	/**
+	 * @param matcher
+	 * 		Filter of keys to match. Tested once per distinct key in the workspace.
+	 *
+	 * @return Classes that contain any key matched by the filter.
+	 */
+	@Nonnull
+	protected final synchronized Set<JvmClassInfo> getClasses(@Nonnull Predicate<? super K> matcher) {
+		Set<JvmClassInfo> classes = newClassSet();
+		keyToClasses.forEach((key, matched) -> {
+			if (matcher.test(key))
+				classes.addAll(matched);
+		});
+		return classes;
+	}
+
+	/**
+	 * @param keys
+	 * 		Some keys.
+	 *
+	 * @return Classes that contain all the given keys.
+	 * If no keys are given, all classes in the index.
+	 */
+	@Nonnull
+	protected final synchronized Set<JvmClassInfo> getClassesWithAll(@Nonnull Collection<? extends K> keys) {
+		Set<JvmClassInfo> classes = newClassSet();
+		if (keys.isEmpty()) {
+			classes.addAll(classToKeys.keySet());
+			return classes;
+		}
+		boolean first = true;
+		for (K key : keys) {
+			Set<JvmClassInfo> matched = keyToClasses.getOrDefault(key, Collections.emptySet());
+			if (first) {
+				classes.addAll(matched);
+				first = false;
+			} else {
+				classes.retainAll(matched);
+			}
+			if (classes.isEmpty())
+				break;
+		}
+		return classes;
+	}
+
+	/**
+	 * @return Number of distinct keys in the index.
+	 */
+	protected final synchronized int getKeyCount() {
+		return keyToClasses.size();
+	}
+
+	/**
+	 * @param classInfo
+	 * 		Class to add keys of into the index.
+	 */
+	private void add(@Nonnull JvmClassInfo classInfo) {
+		// Collect keys outside the lock, reading the class is the expensive part.
+		Set<K> keys = collectKeys(classInfo);
+		synchronized (this) {
+			link(classInfo, keys);
+		}
+	}
+
+	/**
+	 * @param classInfo
+	 * 		Class to remove keys of from the index.
+	 */
+	private synchronized void remove(@Nonnull JvmClassInfo classInfo) {
+		if (!ready)
+			removedWhilePopulating.add(classInfo);
+		Set<K> keys = classToKeys.remove(classInfo);
+		if (keys != null)
+			unlink(classInfo, keys);
+	}
+
+	private void link(@Nonnull JvmClassInfo classInfo, @Nonnull Set<K> keys) {
+		Set<K> prior = classToKeys.put(classInfo, keys);
+		if (prior != null)
+			unlink(classInfo, prior);
+		for (K key : keys)
+			keyToClasses.computeIfAbsent(key, k -> newClassSet()).add(classInfo);
+	}
+
+	private void unlink(@Nonnull JvmClassInfo classInfo, @Nonnull Set<K> keys) {
+		for (K key : keys) {
+			Set<JvmClassInfo> classes = keyToClasses.get(key);
+			if (classes != null) {
+				classes.remove(classInfo);
+				if (classes.isEmpty())
+					keyToClasses.remove(key);
+			}
+		}
+	}
+
+	@Nonnull
+	private static Set<JvmClassInfo> newClassSet() {
+		// Classes with the same content can exist in multiple bundles, so track by identity.
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	/**
+	 * @param resource
+	 * 		Resource to get classes of.
+	 *
+	 * @return Stream of all JVM classes in the resource, including versioned classes.
+	 */
+	@Nonnull
+	private static Stream<JvmClassInfo> classes(@Nonnull WorkspaceResource resource) {
+		return Stream.concat(resource.jvmClassBundleStream(),
+				resource.getVersionedJvmClassBundles().values().stream()).flatMap(bundle -> bundle.values().stream());
+	}
+
+	@Override
+	public void onAddLibrary(@Nonnull Workspace workspace, @Nonnull WorkspaceResource library) {
+		library.addResourceJvmClassListener(this);
+		classes(library).forEach(this::add);
+	}
+
+	@Override
+	public void onRemoveLibrary(@Nonnull Workspace workspace, @Nonnull WorkspaceResource library) {
+		library.removeResourceJvmClassListener(this);
+		classes(library).forEach(this::remove);
+	}
+
+	@Override
+	public void onNewClass(@Nonnull WorkspaceResource resource, @Nonnull JvmClassBundle bundle, @Nonnull JvmClassInfo cls) {
+		add(cls);
+	}
+
+	@Override
+	public void onUpdateClass(@Nonnull WorkspaceResource resource, @Nonnull JvmClassBundle bundle, @Nonnull JvmClassInfo oldCls, @Nonnull JvmClassInfo newCls) {
+		remove(oldCls);
+		add(newCls);
+	}
+
+	@Override
+	public void onRemoveClass(@Nonnull WorkspaceResource resource, @Nonnull JvmClassBundle bundle, @Nonnull JvmClassInfo cls) {
+		remove(cls);
+	}
+}
@@ -0,0 +1,351 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * On-disk store of the keys collected from classes by an {@link AbstractClassIndex}, keyed by the SHA-256 hash
+ * of the content of each class.
+ * <p>
+ * The store is split into shards by the first byte of the hash. Each shard starts with a table of its entries
+ * sorted by hash, followed by the keys of each entry. Looking up classes only reads the tables of the shards they
+ * fall into, and the keys of entries that are found. Storing classes only rewrites the shards they fall into,
+ * copying the existing entries over without reading their keys. Each shard holds up to {@link #MAX_SHARD_ENTRIES}
+ * entries, dropping the least recently used ones first.
+ *
+ * @param <K>
+ * 		Type of keys stored.
+ *
+ * @author Matt Coley
+ */
+public final class ClassKeyStore<K> {
+	private static final Logger logger = Logging.get(ClassKeyStore.class);
+	private static final int MAGIC = 0x52434B53; // RCKS
+	private static final int HASH_SIZE = 32;
+	private static final int HEADER_SIZE = Integer.BYTES * 3;
+	private static final int ENTRY_SIZE = HASH_SIZE + Long.BYTES + Long.BYTES + Integer.BYTES;
+	private static final int MAX_SHARD_ENTRIES = 1000;
+	private static final HexFormat HEX = HexFormat.of();
+	private final Path directory;
+	private final int version;
+	private final KeyCodec<K> codec;
+
+	/**
+	 * @param directory
+	 * 		Directory to store shards in.
+	 * @param version
+	 * 		Version of the format of stored keys. Shards of other versions are ignored, and replaced when written to.
+	 * @param codec
+	 * 		Reads and writes keys.
+	 */
+	public ClassKeyStore(@Nonnull Path directory, int version, @Nonnull KeyCodec<K> codec) {
+		this.directory = directory;
+		this.version = version;
+		this.codec = codec;
+	}
+
+	/**
+	 * @param content
+	 * 		Class content.
+	 *
+	 * @return Hash of the content to look up and store the keys of the class with.
+	 */
+	@Nonnull
+	public static String hash(@Nonnull byte[] content) {
+		try {
+			return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 not supported", ex);
+		}
+	}
+
+	/**
+	 * @param hashes
+	 * 		Content hashes of classes to look up.
+	 *
+	 * @return Map of content hashes to the stored keys of the class, for the hashes found in the store.
+	 * Equal strings within keys are shared.
+	 */
+	@Nonnull
+	public Map<String, Set<K>> load(@Nonnull Collection<String> hashes) {
+		Map<String, Set<K>> found = new HashMap<>();
+		Map<String, String> strings = new HashMap<>();
+		UnaryOperator<String> interner = string -> strings.computeIfAbsent(string, s -> s);
+		for (Map.Entry<Integer, List<String>> shardHashes : groupByShard(hashes).entrySet()) {
+			Path path = shardPath(shardHashes.getKey());
+			if (!Files.isRegularFile(path))
+				continue;
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				ByteBuffer table = readTable(channel);
+				if (table == null)
+					continue;
+				for (String hash : shardHashes.getValue()) {
+					int index = indexOf(table, HEX.parseHex(hash));
+					if (index < 0)
+						continue;
+					int position = index * ENTRY_SIZE + HASH_SIZE + Long.BYTES;
+					ByteBuffer payload = readFully(channel, table.getLong(position), table.getInt(position + Long.BYTES));
+					DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+					int count = in.readInt();
+					Set<K> keys = new HashSet<>(count);
+					for (int i = 0; i < count; i++)
+						keys.add(codec.read(in, interner));
+					found.put(hash, keys);
+				}
+			} catch (IOException ex) {
+				logger.warn("Discarding unreadable index shard '{}'", path.getFileName(), ex);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Merges new entries into the shards they fall into. Shards are written to a temporary file,
+	 * then moved over the existing shard. Readers, including other running instances, thus only ever
+	 * see complete shards.
+	 *
+	 * @param entries
+	 * 		Map of content hashes to the keys of the class, to add to the store.
+	 * @param used
+	 * 		Content hashes of classes already in the store which were used, and so should be kept over other entries.
+	 */
+	public void store(@Nonnull Map<String, Set<K>> entries, @Nonnull Collection<String> used) {
+		Set<String> usedSet = new HashSet<>(used);
+		Map<Integer, List<String>> shards = groupByShard(entries.keySet());
+		for (Map.Entry<Integer, List<String>> shardHashes : shards.entrySet()) {
+			Map<String, byte[]> added = new HashMap<>();
+			for (String hash : shardHashes.getValue()) {
+				try {
+					added.put(hash, encode(entries.get(hash)));
+				} catch (IOException ex) {
+					logger.debug("Cannot store index keys of class '{}'", hash, ex);
+				}
+			}
+			if (!added.isEmpty())
+				merge(shardHashes.getKey(), added, usedSet);
+		}
+	}
+
+	private void merge(int shard, @Nonnull Map<String, byte[]> added, @Nonnull Set<String> used) {
+		Path path = shardPath(shard);
+		Path temp = null;
+		try {
+			Files.createDirectories(directory);
+			temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+			long now = System.currentTimeMillis();
+			try (FileChannel existing = Files.isRegularFile(path) ? FileChannel.open(path, StandardOpenOption.READ) : null;
+				 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				// Carry over existing entries which are not replaced.
+				List<Entry> merged = new ArrayList<>();
+				ByteBuffer table = existing == null ? null : readTable(existing);
+				if (table != null) {
+					int count = table.capacity() / ENTRY_SIZE;
+					for (int i = 0; i < count; i++) {
+						int position = i * ENTRY_SIZE;
+						byte[] hash = new byte[HASH_SIZE];
+						table.get(position, hash);
+						String hex = HEX.formatHex(hash);
+						if (added.containsKey(hex))
+							continue;
+						long stamp = used.contains(hex) ? now : table.getLong(position + HASH_SIZE);
+						long offset = table.getLong(position + HASH_SIZE + Long.BYTES);
+						int length = table.getInt(position + HASH_SIZE + Long.BYTES * 2);
+						merged.add(new Entry(hash, stamp, offset, length, null));
+					}
+				}
+				added.forEach((hash, payload) -> merged.add(new Entry(HEX.parseHex(hash), now, -1, payload.length, payload)));
+
+				// Drop the least recently used entries beyond the limit.
+				List<Entry> kept = merged;
+				if (kept.size() > MAX_SHARD_ENTRIES) {
+					kept.sort(Comparator.comparingLong(Entry::stamp).reversed());
+					kept = new ArrayList<>(kept.subList(0, MAX_SHARD_ENTRIES));
+				}
+				kept.sort((a, b) -> Arrays.compareUnsigned(a.hash(), b.hash()));
+
+				// Write header and table, then the keys of each entry in the same order.
+				ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE + kept.size() * ENTRY_SIZE);
+				head.putInt(MAGIC).putInt(version).putInt(kept.size());
+				long offset = head.capacity();
+				for (Entry entry : kept) {
+					head.put(entry.hash()).putLong(entry.stamp()).putLong(offset).putInt(entry.length());
+					offset += entry.length();
+				}
+				writeFully(out, head.flip());
+				for (Entry entry : kept) {
+					if (entry.payload() != null) {
+						writeFully(out, ByteBuffer.wrap(entry.payload()));
+					} else {
+						long copied = 0;
+						while (copied < entry.length())
+							copied += existing.transferTo(entry.offset() + copied, entry.length() - copied, out);
+					}
+				}
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException ex) {
+			logger.warn("Failed to store index shard '{}'", path.getFileName(), ex);
+			try {
+				if (temp != null)
+					Files.deleteIfExists(temp);
+			} catch (IOException ignored) {
+				// Left for the OS to clean up.
+			}
+		}
+	}
+
+	@Nonnull
+	private byte[] encode(@Nonnull Set<K> keys) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(keys.size());
+		for (K key : keys)
+			codec.write(out, key);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param channel
+	 * 		Shard file.
+	 *
+	 * @return Table of entries in the shard, or {@code null} if the shard is of another format or version.
+	 *
+	 * @throws IOException
+	 * 		When the shard cannot be read.
+	 */
+	@Nullable
+	private ByteBuffer readTable(@Nonnull FileChannel channel) throws IOException {
+		if (channel.size() < HEADER_SIZE)
+			return null;
+		ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != version)
+			return null;
+		int count = header.getInt(8);
+		if (count < 0 || count > MAX_SHARD_ENTRIES || HEADER_SIZE + (long) count * ENTRY_SIZE > channel.size())
+			throw new IOException("Invalid entry count: " + count);
+		return readFully(channel, HEADER_SIZE, count * ENTRY_SIZE);
+	}
+
+	/**
+	 * @param table
+	 * 		Table of entries, sorted by hash.
+	 * @param hash
+	 * 		Hash to find.
+	 *
+	 * @return Index of the entry with the hash, or {@code -1} if there is none.
+	 */
+	private static int indexOf(@Nonnull ByteBuffer table, @Nonnull byte[] hash) {
+		byte[] array = table.array();
+		int low = 0;
+		int high = table.capacity() / ENTRY_SIZE - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int start = mid * ENTRY_SIZE;
+			int cmp = Arrays.compareUnsigned(array, start, start + HASH_SIZE, hash, 0, HASH_SIZE);
+			if (cmp < 0)
+				low = mid + 1;
+			else if (cmp > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	@Nonnull
+	private static ByteBuffer readFully(@Nonnull FileChannel channel, long position, int length) throws IOException {
+		if (length < 0 || position + length > channel.size())
+			throw new IOException("Entry out of bounds");
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new EOFException();
+		return buffer;
+	}
+
+	private static void writeFully(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	@Nonnull
+	private static Map<Integer, List<String>> groupByShard(@Nonnull Collection<String> hashes) {
+		Map<Integer, List<String>> shards = new TreeMap<>();
+		for (String hash : hashes)
+			shards.computeIfAbsent(Integer.parseInt(hash, 0, 2, 16), s -> new ArrayList<>()).add(hash);
+		return shards;
+	}
+
+	@Nonnull
+	private Path shardPath(int shard) {
+		return directory.resolve(String.format("%02x.idx", shard));
+	}
+
+	/**
+	 * @param hash
+	 * 		Content hash of the class.
+	 * @param stamp
+	 * 		Time the entry was last used.
+	 * @param offset
+	 * 		Offset of the keys in the existing shard, when the entry is carried over.
+	 * @param length
+	 * 		Length of the encoded keys.
+	 * @param payload
+	 * 		Encoded keys, when the entry is new.
+	 */
+	private record Entry(@Nonnull byte[] hash, long stamp, long offset, int length, @Nullable byte[] payload) {
+	}
+
+	/**
+	 * Reads and writes keys of an index.
+	 *
+	 * @param <K>
+	 * 		Type of keys.
+	 */
+	public interface KeyCodec<K> {
+		/**
+		 * @param out
+		 * 		Output to write to.
+		 * @param key
+		 * 		Key to write.
+		 *
+		 * @throws IOException
+		 * 		When the key cannot be written.
+		 */
+		void write(@Nonnull DataOutput out, @Nonnull K key) throws IOException;
+
+		/**
+		 * @param in
+		 * 		Input to read from.
+		 * @param strings
+		 * 		Interner to pass read strings through, so equal strings across entries are shared.
+		 *
+		 * @return Read key.
+		 *
+		 * @throws IOException
+		 * 		When the key cannot be read.
+		 */
+		@Nonnull
+		K read(@Nonnull DataInput in, @Nonnull UnaryOperator<String> strings) throws IOException;
+	}
+}
@@ -0,0 +1,194 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.annotation.Nonnull;
+import jakarta.inject.Inject;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import software.coley.recaf.RecafConstants;
+import software.coley.recaf.cdi.EagerInitialization;
+import software.coley.recaf.cdi.WorkspaceScoped;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.services.search.builtin.InstructionPatternQuery;
+import software.coley.recaf.workspace.model.Workspace;
+
+import java.util.*;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Inverted index of the opcodes, and pairs of consecutive opcodes, used in the methods of classes in a workspace.
+ * Allows an {@link InstructionPatternQuery} to only visit classes which contain the opcode sequences of its pattern.
+ * <p>
+ * Opcodes are recorded as ASM reports them, so the same opcode forms are seen as when matching patterns.
+ *
+ * @author Matt Coley
+ */
+@WorkspaceScoped
+@EagerInitialization
+public class OpcodeIndex extends AbstractClassIndex<Integer> {
+	public static final String SERVICE_ID = "search-opcodes";
+	private final OpcodeIndexConfig config;
+
+	/**
+	 * @param config
+	 * 		Index config options.
+	 * @param workspace
+	 * 		Workspace to pull data from.
+	 */
+	@Inject
+	public OpcodeIndex(@Nonnull OpcodeIndexConfig config, @Nonnull Workspace workspace) {
+		super(config.getActive().getValue());
+		this.config = config;
+		initialize(workspace);
+	}
+
+	/**
+	 * @param sequences
+	 * 		Sequences of consecutive opcodes.
+	 *
+	 * @return Classes containing all the given opcodes and consecutive opcode pairs, in any of their methods.
+	 * This is a superset of the classes which contain each sequence in full.
+	 */
+	@Nonnull
+	public Set<JvmClassInfo> getClassesWithSequences(@Nonnull List<int[]> sequences) {
+		// When there is nothing to filter on, every indexed class is a candidate
+		Set<Integer> grams = new LinkedHashSet<>();
+		for (int[] sequence : sequences) {
+			for (int i = 0; i < sequence.length; i++) {
+				grams.add(unigram(sequence[i]));
+				if (i > 0)
+					grams.add(bigram(sequence[i - 1], sequence[i]));
+			}
+		}
+		return getClassesWithAll(grams);
+	}
+
+	/**
+	 * @return Number of distinct opcodes and opcode pairs in the index.
+	 */
+	public int getGramCount() {
+		return getKeyCount();
+	}
+
+	@Nonnull
+	@Override
+	protected Set<Integer> collect(@Nonnull JvmClassInfo classInfo) {
+		Set<Integer> grams = new HashSet<>();
+		classInfo.getClassReader().accept(new ClassVisitor(RecafConstants.getAsmVersion()) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+				return new OpcodeCollector(grams);
+			}
+		}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return grams;
+	}
+
+	private static int unigram(int opcode) {
+		return opcode;
+	}
+
+	private static int bigram(int first, int second) {
+		return (1 << 16) | (first << 8) | second;
+	}
+
+	@Nonnull
+	@Override
+	public String getServiceId() {
+		return SERVICE_ID;
+	}
+
+	@Nonnull
+	@Override
+	public OpcodeIndexConfig getServiceConfig() {
+		return config;
+	}
+
+	/**
+	 * Collects opcodes and consecutive opcode pairs of a method.
+	 */
+	private static class OpcodeCollector extends MethodVisitor {
+		private final Set<Integer> grams;
+		private int previous = -1;
+
+		private OpcodeCollector(@Nonnull Set<Integer> grams) {
+			super(RecafConstants.getAsmVersion());
+			this.grams = grams;
+		}
+
+		private void opcode(int opcode) {
+			grams.add(unigram(opcode));
+			if (previous >= 0)
+				grams.add(bigram(previous, opcode));
+			previous = opcode;
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			opcode(opcode);
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			opcode(opcode);
+		}
+
+		@Override
+		public void visitVarInsn(int opcode, int varIndex) {
+			opcode(opcode);
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			opcode(opcode);
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+			opcode(opcode);
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			opcode(opcode);
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+										   Object... bootstrapMethodArguments) {
+			opcode(INVOKEDYNAMIC);
+		}
+
+		@Override
+		public void visitJumpInsn(int opcode, Label label) {
+			opcode(opcode);
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			opcode(LDC);
+		}
+
+		@Override
+		public void visitIincInsn(int varIndex, int increment) {
+			opcode(IINC);
+		}
+
+		@Override
+		public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+			opcode(TABLESWITCH);
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+			opcode(LOOKUPSWITCH);
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+			opcode(MULTIANEWARRAY);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import software.coley.observables.ObservableBoolean;
+import software.coley.recaf.config.BasicConfigContainer;
+import software.coley.recaf.config.BasicConfigValue;
+import software.coley.recaf.config.ConfigGroups;
+import software.coley.recaf.services.ServiceConfig;
+
+/**
+ * Config for {@link OpcodeIndex}.
+ *
+ * @author Matt Coley
+ */
+@ApplicationScoped
+public class OpcodeIndexConfig extends BasicConfigContainer implements ServiceConfig {
+	private final ObservableBoolean active = new ObservableBoolean(true);
+
+	@Inject
+	public OpcodeIndexConfig() {
+		super(ConfigGroups.SERVICE_ANALYSIS, OpcodeIndex.SERVICE_ID + CONFIG_SUFFIX);
+		// Add values
+		addValue(new BasicConfigValue<>("active", Boolean.class, active));
+	}
+
+	/**
+	 * @return Active state of opcode index service.
+	 */
+	public ObservableBoolean getActive() {
+		return active;
+	}
+}
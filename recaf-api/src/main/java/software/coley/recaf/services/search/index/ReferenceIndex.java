@@ -0,0 +1,340 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
+import org.objectweb.asm.*;
+import software.coley.recaf.RecafConstants;
+import software.coley.recaf.cdi.EagerInitialization;
+import software.coley.recaf.cdi.WorkspaceScoped;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.services.file.RecafDirectoriesConfig;
+import software.coley.recaf.services.search.builtin.ReferenceQuery;
+import software.coley.recaf.services.search.result.MemberReferenceResult.MemberReference;
+import software.coley.recaf.util.Types;
+import software.coley.recaf.workspace.model.Workspace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reverse index of the class and member references made by the classes of a workspace.
+ * Maps each referenced class and member to the classes referencing it, so that a {@link ReferenceQuery}
+ * only needs to visit classes which can contain a match. Keys of the index are either the internal name of
+ * a referenced class, or a {@link MemberReference}.
+ * <p>
+ * The references of classes are stored on disk in a {@link ClassKeyStore} when a workspace is opened,
+ * keyed by the content of each class. Opening a workspace with classes seen before loads their stored references
+ * rather than visiting them again.
+ *
+ * @author Matt Coley
+ */
+@WorkspaceScoped
+@EagerInitialization
+public class ReferenceIndex extends AbstractClassIndex<Object> {
+	public static final String SERVICE_ID = "search-references";
+	private static final int STORE_VERSION = 4;
+	private static final int TAG_CLASS = 0;
+	private static final int TAG_MEMBER = 1;
+	private final ReferenceIndexConfig config;
+
+	/**
+	 * @param config
+	 * 		Index config options.
+	 * @param directories
+	 * 		Directory config, for the location to store the index in.
+	 * @param workspace
+	 * 		Workspace to pull data from.
+	 */
+	@Inject
+	public ReferenceIndex(@Nonnull ReferenceIndexConfig config, @Nonnull RecafDirectoriesConfig directories,
+						  @Nonnull Workspace workspace) {
+		this(config, directories.getCacheDirectory().resolve("references"), workspace);
+	}
+
+	/**
+	 * @param config
+	 * 		Index config options.
+	 * @param storeDirectory
+	 * 		Directory to store the index in, or {@code null} to not store it.
+	 * @param workspace
+	 * 		Workspace to pull data from.
+	 */
+	public ReferenceIndex(@Nonnull ReferenceIndexConfig config, @Nullable Path storeDirectory,
+						  @Nonnull Workspace workspace) {
+		super(config.getActive().getValue(), storeDirectory == null || !config.getPersist().getValue() ? null :
+				new ClassKeyStore<>(storeDirectory, STORE_VERSION, new ReferenceCodec()));
+		this.config = config;
+		initialize(workspace);
+	}
+
+	/**
+	 * @param name
+	 * 		Internal name of a class.
+	 *
+	 * @return Classes that reference the exact class.
+	 */
+	@Nonnull
+	public Set<JvmClassInfo> getClassesReferencingClass(@Nonnull String name) {
+		return getClasses(name);
+	}
+
+	/**
+	 * @param matcher
+	 * 		Filter of referenced class names to match. Tested once per distinct name in the workspace.
+	 * 		Untyped references, such as the type of a {@code finally} block handler, are tested as an empty string.
+	 *
+	 * @return Classes that reference any class matched by the filter.
+	 */
+	@Nonnull
+	public Set<JvmClassInfo> getClassesReferencingClass(@Nonnull Predicate<String> matcher) {
+		return getClasses(key -> key instanceof String name && matcher.test(name));
+	}
+
+	/**
+	 * @param matcher
+	 * 		Filter of referenced members to match. Tested once per distinct member in the workspace.
+	 *
+	 * @return Classes that reference any member matched by the filter.
+	 */
+	@Nonnull
+	public Set<JvmClassInfo> getClassesReferencingMember(@Nonnull Predicate<MemberReference> matcher) {
+		return getClasses(key -> key instanceof MemberReference member && matcher.test(member));
+	}
+
+	/**
+	 * @return Number of distinct classes and members referenced in the index.
+	 */
+	public int getReferenceCount() {
+		return getKeyCount();
+	}
+
+	@Nonnull
+	@Override
+	protected Set<Object> collect(@Nonnull JvmClassInfo classInfo) {
+		ClassReferences refs = new ClassReferences(new HashSet<>());
+		classInfo.getClassReader().accept(new ClassReferenceCollector(refs), ClassReader.SKIP_FRAMES);
+		return refs.refs();
+	}
+
+	@Nonnull
+	@Override
+	public String getServiceId() {
+		return SERVICE_ID;
+	}
+
+	@Nonnull
+	@Override
+	public ReferenceIndexConfig getServiceConfig() {
+		return config;
+	}
+
+	/**
+	 * @param refs
+	 * 		Internal names of referenced classes and referenced members, as compared by {@link ReferenceQuery}.
+	 */
+	private record ClassReferences(@Nonnull Set<Object> refs) {
+		private void addClass(@Nullable String name) {
+			refs.add(name == null ? "" : name);
+		}
+
+		private void addDescriptorType(@Nonnull String desc) {
+			addClass(Type.getType(desc).getInternalName());
+		}
+
+		private void addMethodTypes(@Nonnull String desc) {
+			Type methodType = Type.getMethodType(desc);
+			addClass(methodType.getReturnType().getInternalName());
+			for (Type argumentType : methodType.getArgumentTypes())
+				addClass(argumentType.getInternalName());
+		}
+
+		private void addMember(@Nonnull String owner, @Nonnull String name, @Nonnull String desc) {
+			refs.add(new MemberReference(owner, name, desc));
+		}
+	}
+
+	/**
+	 * Reads and writes references in the store.
+	 */
+	private static class ReferenceCodec implements ClassKeyStore.KeyCodec<Object> {
+		@Override
+		public void write(@Nonnull DataOutput out, @Nonnull Object key) throws IOException {
+			// Names and descriptors from class files always fit in modified UTF-8 strings.
+			if (key instanceof MemberReference member) {
+				out.writeByte(TAG_MEMBER);
+				out.writeUTF(member.getOwner());
+				out.writeUTF(member.getName());
+				out.writeUTF(member.getDescr());
+			} else {
+				out.writeByte(TAG_CLASS);
+				out.writeUTF((String) key);
+			}
+		}
+
+		@Nonnull
+		@Override
+		public Object read(@Nonnull DataInput in, @Nonnull UnaryOperator<String> strings) throws IOException {
+			int tag = in.readUnsignedByte();
+			if (tag == TAG_CLASS)
+				return strings.apply(in.readUTF());
+			if (tag == TAG_MEMBER)
+				return new MemberReference(strings.apply(in.readUTF()), strings.apply(in.readUTF()),
+						strings.apply(in.readUTF()));
+			throw new IOException("Unknown reference tag: " + tag);
+		}
+	}
+
+	/**
+	 * Collects references from classes. Visits the same locations searched by {@link ReferenceQuery}.
+	 */
+	private static class ClassReferenceCollector extends ClassVisitor {
+		private final ClassReferences refs;
+
+		private ClassReferenceCollector(@Nonnull ClassReferences refs) {
+			super(RecafConstants.getAsmVersion());
+			this.refs = refs;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+			if (exceptions != null)
+				for (String exception : exceptions)
+					refs.addClass(exception);
+			return new MethodReferenceCollector(refs);
+		}
+	}
+
+	/**
+	 * Collects references from methods.
+	 */
+	private static class MethodReferenceCollector extends MethodVisitor {
+		private final ClassReferences refs;
+
+		private MethodReferenceCollector(@Nonnull ClassReferences refs) {
+			super(RecafConstants.getAsmVersion());
+			this.refs = refs;
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			refs.addClass(type);
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+			refs.addMember(owner, name, desc);
+			refs.addDescriptorType(desc);
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean isInterface) {
+			refs.addMember(owner, name, desc);
+			refs.addMethodTypes(desc);
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			if (value instanceof Handle handle) {
+				refs.addMember(handle.getOwner(), handle.getName(), handle.getDesc());
+				refs.addMethodTypes(handle.getDesc());
+			} else if (value instanceof Type type) {
+				refs.addClass(type.getInternalName());
+			}
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String desc, int numDimensions) {
+			if (Types.isValidDesc(desc))
+				refs.addDescriptorType(desc);
+		}
+
+		@Override
+		public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+			refs.addClass(type);
+		}
+
+		@Override
+		public void visitLocalVariable(String name, String desc, String signature, Label start, Label end, int index) {
+			if (Types.isValidDesc(desc) && !Types.isPrimitive(desc))
+				refs.addDescriptorType(desc);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotationDefault() {
+			return new AnnotationReferenceCollector(refs);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			refs.addDescriptorType(desc);
+			return new AnnotationReferenceCollector(refs);
+		}
+
+		@Override
+		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+			refs.addDescriptorType(desc);
+			return new AnnotationReferenceCollector(refs);
+		}
+
+		@Override
+		public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+			refs.addDescriptorType(desc);
+			return new AnnotationReferenceCollector(refs);
+		}
+
+		@Override
+		public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+			refs.addDescriptorType(desc);
+			return new AnnotationReferenceCollector(refs);
+		}
+
+		@Override
+		public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+			refs.addDescriptorType(desc);
+			return new AnnotationReferenceCollector(refs);
+		}
+
+		@Override
+		public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start,
+															  Label[] end, int[] index, String desc, boolean visible) {
+			refs.addDescriptorType(desc);
+			return new AnnotationReferenceCollector(refs);
+		}
+	}
+
+	/**
+	 * Collects references from annotations, including nested annotations and arrays.
+	 */
+	private static class AnnotationReferenceCollector extends AnnotationVisitor {
+		private final ClassReferences refs;
+
+		private AnnotationReferenceCollector(@Nonnull ClassReferences refs) {
+			super(RecafConstants.getAsmVersion());
+			this.refs = refs;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+			refs.addDescriptorType(descriptor);
+			return this;
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(String name) {
+			return this;
+		}
+
+		@Override
+		public void visitEnum(String name, String descriptor, String value) {
+			// Recorded in the same argument order that the query compares enum references with.
+			refs.addMember(Type.getType(descriptor).getInternalName(), descriptor, value);
+		}
+	}
+}
@@ -0,0 +1,357 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
+import org.objectweb.asm.*;
+import software.coley.recaf.RecafConstants;
+import software.coley.recaf.cdi.EagerInitialization;
+import software.coley.recaf.cdi.WorkspaceScoped;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.services.file.RecafDirectoriesConfig;
+import software.coley.recaf.services.search.builtin.NumberQuery;
+import software.coley.recaf.services.search.builtin.StringQuery;
+import software.coley.recaf.workspace.model.Workspace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Inverted index of the string and number values used in the classes of a workspace.
+ * Maps each distinct value to the classes containing it, so that a {@link StringQuery} or {@link NumberQuery}
+ * only needs to visit classes which can contain a match.
+ * <p>
+ * Values are collected from field constants, instruction operands, bootstrap method arguments and
+ * annotation values.
+ * <p>
+ * The values of classes are stored on disk in a {@link ClassKeyStore} when a workspace is opened,
+ * keyed by the content of each class, the same way as the {@link ReferenceIndex}.
+ *
+ * @author Matt Coley
+ */
+@WorkspaceScoped
+@EagerInitialization
+public class ValueIndex extends AbstractClassIndex<Object> {
+	public static final String SERVICE_ID = "search-values";
+	private static final int STORE_VERSION = 1;
+	private static final int TAG_STRING = 0;
+	private static final int TAG_INT = 1;
+	private static final int TAG_LONG = 2;
+	private static final int TAG_FLOAT = 3;
+	private static final int TAG_DOUBLE = 4;
+	private static final int TAG_BYTE = 5;
+	private static final int TAG_SHORT = 6;
+	private final ValueIndexConfig config;
+
+	/**
+	 * @param config
+	 * 		Index config options.
+	 * @param directories
+	 * 		Directory config, for the location to store the index in.
+	 * @param workspace
+	 * 		Workspace to pull data from.
+	 */
+	@Inject
+	public ValueIndex(@Nonnull ValueIndexConfig config, @Nonnull RecafDirectoriesConfig directories,
+					  @Nonnull Workspace workspace) {
+		this(config, directories.getCacheDirectory().resolve("values"), workspace);
+	}
+
+	/**
+	 * @param config
+	 * 		Index config options.
+	 * @param storeDirectory
+	 * 		Directory to store the index in, or {@code null} to not store it.
+	 * @param workspace
+	 * 		Workspace to pull data from.
+	 */
+	public ValueIndex(@Nonnull ValueIndexConfig config, @Nullable Path storeDirectory,
+					  @Nonnull Workspace workspace) {
+		super(config.getActive().getValue(), storeDirectory == null || !config.getPersist().getValue() ? null :
+				new ClassKeyStore<>(storeDirectory, STORE_VERSION, new ValueCodec()));
+		this.config = config;
+		initialize(workspace);
+	}
+
+	/**
+	 * @param value
+	 * 		Some string or number value.
+	 *
+	 * @return Classes that contain the exact value.
+	 */
+	@Nonnull
+	public Set<JvmClassInfo> getClassesWithValue(@Nonnull Object value) {
+		return getClasses(value);
+	}
+
+	/**
+	 * @param matcher
+	 * 		Filter of values to match. Tested once per distinct value in the workspace.
+	 *
+	 * @return Classes that contain any value matched by the filter.
+	 */
+	@Nonnull
+	public Set<JvmClassInfo> getClassesWithValue(@Nonnull Predicate<Object> matcher) {
+		return getClasses(matcher);
+	}
+
+	/**
+	 * @return Number of distinct values in the index.
+	 */
+	public int getValueCount() {
+		return getKeyCount();
+	}
+
+	@Nonnull
+	@Override
+	protected Set<Object> collect(@Nonnull JvmClassInfo classInfo) {
+		Set<Object> values = new HashSet<>();
+		classInfo.getClassReader().accept(new ClassValueCollector(values), ClassReader.SKIP_FRAMES);
+		return values;
+	}
+
+	/**
+	 * @param value
+	 * 		Some value from a class.
+	 *
+	 * @return {@code true} when it is a type of value that is recorded in the index.
+	 */
+	private static boolean isIndexable(Object value) {
+		return value instanceof String || value instanceof Number;
+	}
+
+	@Nonnull
+	@Override
+	public String getServiceId() {
+		return SERVICE_ID;
+	}
+
+	@Nonnull
+	@Override
+	public ValueIndexConfig getServiceConfig() {
+		return config;
+	}
+
+	/**
+	 * Codec for the values of a class in the {@link ClassKeyStore}.
+	 */
+	private static class ValueCodec implements ClassKeyStore.KeyCodec<Object> {
+		@Override
+		public void write(@Nonnull DataOutput out, @Nonnull Object key) throws IOException {
+			// Strings from class files always fit in modified UTF-8 strings.
+			if (key instanceof String string) {
+				out.writeByte(TAG_STRING);
+				out.writeUTF(string);
+			} else if (key instanceof Integer i) {
+				out.writeByte(TAG_INT);
+				out.writeInt(i);
+			} else if (key instanceof Long l) {
+				out.writeByte(TAG_LONG);
+				out.writeLong(l);
+			} else if (key instanceof Float f) {
+				out.writeByte(TAG_FLOAT);
+				out.writeFloat(f);
+			} else if (key instanceof Double d) {
+				out.writeByte(TAG_DOUBLE);
+				out.writeDouble(d);
+			} else if (key instanceof Byte b) {
+				out.writeByte(TAG_BYTE);
+				out.writeByte(b);
+			} else if (key instanceof Short sh) {
+				out.writeByte(TAG_SHORT);
+				out.writeShort(sh);
+			} else {
+				throw new IOException("Unsupported value type: " + key.getClass().getName());
+			}
+		}
+
+		@Nonnull
+		@Override
+		public Object read(@Nonnull DataInput in, @Nonnull UnaryOperator<String> strings) throws IOException {
+			int tag = in.readUnsignedByte();
+			return switch (tag) {
+				case TAG_STRING -> strings.apply(in.readUTF());
+				case TAG_INT -> in.readInt();
+				case TAG_LONG -> in.readLong();
+				case TAG_FLOAT -> in.readFloat();
+				case TAG_DOUBLE -> in.readDouble();
+				case TAG_BYTE -> in.readByte();
+				case TAG_SHORT -> in.readShort();
+				default -> throw new IOException("Unknown value tag: " + tag);
+			};
+		}
+	}
+
+	/**
+	 * Collects values from classes. Visits a superset of the locations searched by value queries,
+	 * since extra values only make the index less selective, while missing values would lose results.
+	 */
+	private static class ClassValueCollector extends ClassVisitor {
+		private final Set<Object> values;
+
+		private ClassValueCollector(@Nonnull Set<Object> values) {
+			super(RecafConstants.getAsmVersion());
+			this.values = values;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+			return new RecordComponentVisitor(api) {
+				@Override
+				public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+					return new AnnotationValueCollector(values);
+				}
+
+				@Override
+				public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+					return new AnnotationValueCollector(values);
+				}
+			};
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+			if (isIndexable(value))
+				values.add(value);
+			return new FieldVisitor(api) {
+				@Override
+				public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+					return new AnnotationValueCollector(values);
+				}
+
+				@Override
+				public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+					return new AnnotationValueCollector(values);
+				}
+			};
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+			return new MethodValueCollector(values);
+		}
+	}
+
+	/**
+	 * Collects values from methods.
+	 */
+	private static class MethodValueCollector extends MethodVisitor {
+		private final Set<Object> values;
+
+		private MethodValueCollector(@Nonnull Set<Object> values) {
+			super(RecafConstants.getAsmVersion());
+			this.values = values;
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String desc, Handle bsmHandle, Object... bsmArgs) {
+			for (Object bsmArg : bsmArgs)
+				if (isIndexable(bsmArg))
+					values.add(bsmArg);
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			if (opcode >= Opcodes.ICONST_M1 && opcode <= Opcodes.ICONST_5)
+				values.add(opcode - Opcodes.ICONST_0);
+			else if (opcode >= Opcodes.LCONST_0 && opcode <= Opcodes.LCONST_1)
+				values.add((long) (opcode - Opcodes.LCONST_0));
+			else if (opcode >= Opcodes.FCONST_0 && opcode <= Opcodes.FCONST_2)
+				values.add((float) (opcode - Opcodes.FCONST_0));
+			else if (opcode >= Opcodes.DCONST_0 && opcode <= Opcodes.DCONST_1)
+				values.add((double) (opcode - Opcodes.DCONST_0));
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			if (opcode != Opcodes.NEWARRAY)
+				values.add(operand);
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			if (isIndexable(value))
+				values.add(value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotationDefault() {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+
+		@Override
+		public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath,
+															  Label[] start, Label[] end, int[] index,
+															  String desc, boolean visible) {
+			return new AnnotationValueCollector(values);
+		}
+	}
+
+	/**
+	 * Collects values from annotations, including nested annotations and arrays.
+	 */
+	private static class AnnotationValueCollector extends AnnotationVisitor {
+		private final Set<Object> values;
+
+		private AnnotationValueCollector(@Nonnull Set<Object> values) {
+			super(RecafConstants.getAsmVersion());
+			this.values = values;
+		}
+
+		@Override
+		public void visit(String name, Object value) {
+			if (isIndexable(value))
+				values.add(value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+			return this;
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(String name) {
+			return this;
+		}
+	}
+}
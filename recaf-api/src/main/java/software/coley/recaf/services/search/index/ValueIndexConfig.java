@@ -0,0 +1,43 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import software.coley.observables.ObservableBoolean;
+import software.coley.recaf.config.BasicConfigContainer;
+import software.coley.recaf.config.BasicConfigValue;
+import software.coley.recaf.config.ConfigGroups;
+import software.coley.recaf.services.ServiceConfig;
+
+/**
+ * Config for {@link ValueIndex}.
+ *
+ * @author Matt Coley
+ */
+@ApplicationScoped
+public class ValueIndexConfig extends BasicConfigContainer implements ServiceConfig {
+	private final ObservableBoolean active = new ObservableBoolean(true);
+	private final ObservableBoolean persist = new ObservableBoolean(true);
+
+	@Inject
+	public ValueIndexConfig() {
+		super(ConfigGroups.SERVICE_ANALYSIS, ValueIndex.SERVICE_ID + CONFIG_SUFFIX);
+		// Add values
+		addValue(new BasicConfigValue<>("active", Boolean.class, active));
+		addValue(new BasicConfigValue<>("persist", Boolean.class, persist));
+	}
+
+	/**
+	 * @return Active state of value index service.
+	 */
+	public ObservableBoolean getActive() {
+		return active;
+	}
+
+	/**
+	 * @return {@code true} to store the index on disk, so that re-opening the same classes does not need to
+	 * visit them again.
+	 */
+	public ObservableBoolean getPersist() {
+		return persist;
+	}
+}
@@ -0,0 +1,99 @@
+package software.coley.recaf.services.search.result;
+
+import jakarta.annotation.Nonnull;
+import software.coley.recaf.path.PathNode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of an instruction pattern match.
+ *
+ * @author Matt Coley
+ */
+public class InstructionPatternResult extends Result<InstructionPatternResult.InstructionMatch> {
+	private final InstructionMatch match;
+
+	/**
+	 * @param path
+	 * 		Path to the first instruction of the match.
+	 * @param match
+	 * 		Matched instructions.
+	 */
+	public InstructionPatternResult(@Nonnull PathNode<?> path, @Nonnull InstructionMatch match) {
+		super(path);
+		this.match = match;
+	}
+
+	@Nonnull
+	@Override
+	protected InstructionMatch getValue() {
+		return match;
+	}
+
+	/**
+	 * @return Matched instructions.
+	 */
+	@Nonnull
+	public InstructionMatch getMatch() {
+		return match;
+	}
+
+	public static class InstructionMatch {
+		private final List<String> instructions;
+		private final Map<String, String> captures;
+
+		/**
+		 * @param instructions
+		 * 		Text of the matched instructions.
+		 * @param captures
+		 * 		Operand text captured by the pattern, by capture name.
+		 */
+		public InstructionMatch(@Nonnull List<String> instructions, @Nonnull Map<String, String> captures) {
+			this.instructions = List.copyOf(instructions);
+			this.captures = Map.copyOf(captures);
+		}
+
+		/**
+		 * @return Text of the matched instructions.
+		 */
+		@Nonnull
+		public List<String> getInstructions() {
+			return instructions;
+		}
+
+		/**
+		 * @return Operand text captured by the pattern, by capture name.
+		 */
+		@Nonnull
+		public Map<String, String> getCaptures() {
+			return captures;
+		}
+
+		@Override
+		public String toString() {
+			return "InstructionMatch{" +
+					"instructions=" + instructions +
+					", captures=" + captures +
+					'}';
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			InstructionMatch that = (InstructionMatch) o;
+
+			if (!instructions.equals(that.instructions)) return false;
+			return captures.equals(that.captures);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = instructions.hashCode();
+			result = 31 * result + captures.hashCode();
+			return result;
+		}
+	}
+}
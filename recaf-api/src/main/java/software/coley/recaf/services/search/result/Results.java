@@ -1,7 +1,9 @@
 package software.coley.recaf.services.search.result;
 
+import jakarta.annotation.Nonnull;
 import software.coley.collections.delegate.DelegatingSortedSet;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.TreeSet;
 
@@ -17,4 +19,14 @@ public class Results extends DelegatingSortedSet<Result<?>> {
 	public Results() {
 		super(Collections.synchronizedNavigableSet(new TreeSet<>()));
 	}
+
+	/**
+	 * New results backed by tree-set.
+	 *
+	 * @param results
+	 * 		Initial results to populate.
+	 */
+	public Results(@Nonnull Collection<? extends Result<?>> results) {
+		super(Collections.synchronizedNavigableSet(new TreeSet<>(results)));
+	}
 }
@@ -0,0 +1,109 @@
+package software.coley.recaf.util;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Arrays;
+
+/**
+ * Offsets of lines in some text, allowing lines to be located without splitting the text.
+ * <br>
+ * Lines are separated by {@code \n}, with an optional {@code \r} on either side, and trailing empty lines
+ * are not included. This matches the lines given by {@code text.split("\\r?\\n\\r?")}.
+ *
+ * @author Matt Coley
+ */
+public class LineIndex {
+	private final int[] starts;
+	private final int[] ends;
+
+	private LineIndex(@Nonnull int[] starts, @Nonnull int[] ends) {
+		this.starts = starts;
+		this.ends = ends;
+	}
+
+	/**
+	 * @param text
+	 * 		Text to index.
+	 *
+	 * @return Index of lines in the text.
+	 */
+	@Nonnull
+	public static LineIndex of(@Nonnull String text) {
+		int length = text.length();
+		int[] starts = new int[16];
+		int[] ends = new int[16];
+		int count = 0;
+		int lineStart = 0;
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) != '\n')
+				continue;
+			int separatorStart = i > lineStart && text.charAt(i - 1) == '\r' ? i - 1 : i;
+			int separatorEnd = i + 1 < length && text.charAt(i + 1) == '\r' ? i + 2 : i + 1;
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+			}
+			starts[count] = lineStart;
+			ends[count++] = separatorStart;
+			lineStart = separatorEnd;
+			i = separatorEnd - 1;
+		}
+
+		// Text without any separators is a single line, even when empty.
+		if (count == 0)
+			return new LineIndex(new int[]{0}, new int[]{length});
+
+		// Last line, after the final separator.
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, count + 1);
+			ends = Arrays.copyOf(ends, count + 1);
+		}
+		starts[count] = lineStart;
+		ends[count++] = length;
+
+		// Drop trailing empty lines.
+		while (count > 0 && starts[count - 1] == ends[count - 1])
+			count--;
+		return new LineIndex(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+	}
+
+	/**
+	 * @return Number of lines.
+	 */
+	public int getLineCount() {
+		return starts.length;
+	}
+
+	/**
+	 * @param line
+	 * 		Zero-based line index.
+	 *
+	 * @return Offset of the first character of the line.
+	 */
+	public int getLineStart(int line) {
+		return starts[line];
+	}
+
+	/**
+	 * @param line
+	 * 		Zero-based line index.
+	 *
+	 * @return Offset after the last character of the line, excluding the line separator.
+	 */
+	public int getLineEnd(int line) {
+		return ends[line];
+	}
+
+	/**
+	 * @param offset
+	 * 		Offset in the text.
+	 *
+	 * @return Zero-based index of the last line starting at or before the offset.
+	 * If the offset is within a line separator, this is the line before the separator.
+	 * {@code -1} if there are no lines.
+	 */
+	public int getLineAt(int offset) {
+		int index = Arrays.binarySearch(starts, offset);
+		return index >= 0 ? index : -index - 2;
+	}
+}
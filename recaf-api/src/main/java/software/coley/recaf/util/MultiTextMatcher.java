@@ -0,0 +1,234 @@
+package software.coley.recaf.util;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches text against many keys at once. Keys using literal {@link TextMatchMode match modes} are compiled into
+ * a single Aho-Corasick automaton, so each text is scanned once regardless of the number of keys.
+ * Keys using {@link TextMatchMode#REGEX} are tested individually.
+ *
+ * @author Matt Coley
+ */
+public class MultiTextMatcher {
+	private static final int ROOT = 0;
+	private final List<TextMatchMode> modes;
+	private final List<String> keys;
+	private final int[] regexKeys;
+	private final int[] emptyKeys;
+	private final int minLength;
+	// Automaton, indexed by state. Transitions of a state are sorted by char for binary search.
+	private final char[][] transitionChars;
+	private final int[][] transitionTargets;
+	private final int[] failure;
+	private final int[][] outputs;
+
+	/**
+	 * @param modes
+	 * 		Match mode of each key.
+	 * @param keys
+	 * 		Keys to match against.
+	 */
+	public MultiTextMatcher(@Nonnull List<TextMatchMode> modes, @Nonnull List<String> keys) {
+		if (modes.size() != keys.size())
+			throw new IllegalArgumentException("Mode and key counts do not match");
+		this.modes = List.copyOf(modes);
+		this.keys = List.copyOf(keys);
+
+		// Build trie of literal keys
+		List<Map<Character, Integer>> trie = new ArrayList<>();
+		List<List<Integer>> trieOutputs = new ArrayList<>();
+		trie.add(new TreeMap<>());
+		trieOutputs.add(new ArrayList<>());
+		List<Integer> regex = new ArrayList<>();
+		List<Integer> empty = new ArrayList<>();
+		int min = Integer.MAX_VALUE;
+		for (int i = 0; i < keys.size(); i++) {
+			String key = keys.get(i);
+			if (modes.get(i) == TextMatchMode.REGEX) {
+				regex.add(i);
+				min = 0;
+				continue;
+			}
+			min = Math.min(min, key.length());
+			if (key.isEmpty()) {
+				empty.add(i);
+				continue;
+			}
+			int state = ROOT;
+			for (int c = 0; c < key.length(); c++) {
+				Integer next = trie.get(state).get(key.charAt(c));
+				if (next == null) {
+					next = trie.size();
+					trie.add(new TreeMap<>());
+					trieOutputs.add(new ArrayList<>());
+					trie.get(state).put(key.charAt(c), next);
+				}
+				state = next;
+			}
+			trieOutputs.get(state).add(i);
+		}
+		regexKeys = regex.stream().mapToInt(Integer::intValue).toArray();
+		emptyKeys = empty.stream().mapToInt(Integer::intValue).toArray();
+		minLength = min == Integer.MAX_VALUE ? 0 : min;
+
+		// Freeze transitions
+		int stateCount = trie.size();
+		transitionChars = new char[stateCount][];
+		transitionTargets = new int[stateCount][];
+		for (int state = 0; state < stateCount; state++) {
+			Map<Character, Integer> edges = trie.get(state);
+			char[] chars = new char[edges.size()];
+			int[] targets = new int[edges.size()];
+			int e = 0;
+			for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+				chars[e] = edge.getKey();
+				targets[e++] = edge.getValue();
+			}
+			transitionChars[state] = chars;
+			transitionTargets[state] = targets;
+		}
+
+		// Compute failure links breadth first, so a state's failure target always has its outputs merged already.
+		failure = new int[stateCount];
+		outputs = new int[stateCount][];
+		outputs[ROOT] = new int[0];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for (int child : transitionTargets[ROOT]) {
+			failure[child] = ROOT;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			int[] own = trieOutputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+			int[] inherited = outputs[failure[state]];
+			int[] merged = Arrays.copyOf(own, own.length + inherited.length);
+			System.arraycopy(inherited, 0, merged, own.length, inherited.length);
+			outputs[state] = merged;
+
+			char[] chars = transitionChars[state];
+			int[] targets = transitionTargets[state];
+			for (int e = 0; e < chars.length; e++) {
+				int child = targets[e];
+				int fallback = failure[state];
+				int next;
+				while ((next = transition(fallback, chars[e])) < 0 && fallback != ROOT)
+					fallback = failure[fallback];
+				failure[child] = next < 0 ? ROOT : next;
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * @return Number of keys.
+	 */
+	public int getKeyCount() {
+		return keys.size();
+	}
+
+	/**
+	 * @return Length of the shortest text that can match any key.
+	 */
+	public int getMinLength() {
+		return minLength;
+	}
+
+	/**
+	 * @return {@code true} when any key uses {@link TextMatchMode#REGEX}.
+	 */
+	public boolean hasRegex() {
+		return regexKeys.length > 0;
+	}
+
+	/**
+	 * @param text
+	 * 		Text to test.
+	 *
+	 * @return {@code true} when the text matches any key.
+	 */
+	public boolean matchesAny(@Nonnull String text) {
+		return scan(text, null);
+	}
+
+	/**
+	 * @param text
+	 * 		Text to test.
+	 *
+	 * @return Indices of keys the text matches.
+	 */
+	@Nonnull
+	public BitSet matches(@Nonnull String text) {
+		BitSet matches = new BitSet(keys.size());
+		scan(text, matches);
+		return matches;
+	}
+
+	/**
+	 * @param text
+	 * 		Text to test.
+	 * @param matches
+	 * 		Set to record indices of matching keys in, or {@code null} to stop at the first match.
+	 *
+	 * @return {@code true} when any key matched.
+	 */
+	private boolean scan(@Nonnull String text, BitSet matches) {
+		boolean found = false;
+		int length = text.length();
+		for (int key : emptyKeys) {
+			if (modes.get(key) != TextMatchMode.EQUALS || length == 0) {
+				if (matches == null) return true;
+				matches.set(key);
+				found = true;
+			}
+		}
+		int state = ROOT;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			int next;
+			while ((next = transition(state, c)) < 0 && state != ROOT)
+				state = failure[state];
+			state = next < 0 ? ROOT : next;
+			for (int key : outputs[state]) {
+				if (matches != null && matches.get(key))
+					continue;
+				int start = i - keys.get(key).length() + 1;
+				boolean match = switch (modes.get(key)) {
+					case CONTAINS -> true;
+					case STARTS_WITH -> start == 0;
+					case ENDS_WITH -> i == length - 1;
+					case EQUALS -> start == 0 && i == length - 1;
+					default -> false;
+				};
+				if (match) {
+					if (matches == null) return true;
+					matches.set(key);
+					found = true;
+				}
+			}
+		}
+		for (int key : regexKeys) {
+			if (matches != null && matches.get(key))
+				continue;
+			if (TextMatchMode.REGEX.match(keys.get(key), text)) {
+				if (matches == null) return true;
+				matches.set(key);
+				found = true;
+			}
+		}
+		return found;
+	}
+
+	private int transition(int state, char c) {
+		int index = Arrays.binarySearch(transitionChars[state], c);
+		return index < 0 ? -1 : transitionTargets[state][index];
+	}
+}
@@ -511,6 +511,30 @@ public class StringUtil {
 		return sb.toString();
 	}
 
+	/**
+	 * @param prefix
+	 * 		Some data to check, being the start of some larger content.
+	 *
+	 * @return {@code true} when it contains only text.
+	 * A multibyte character cut off at the end of the prefix is not treated as malformed.
+	 */
+	public static boolean isTextPrefix(@Nonnull byte[] prefix) {
+		// Find the start of the last character, skipping over UTF-8 continuation bytes.
+		int length = prefix.length;
+		int start = length - 1;
+		while (start > 0 && start > length - 4 && (prefix[start] & 0xC0) == 0x80)
+			start--;
+		if (start < 0)
+			return false;
+
+		// Drop the last character if it is missing some of its continuation bytes.
+		int lead = prefix[start] & 0xFF;
+		int charLength = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+		if (length - start < charLength)
+			prefix = Arrays.copyOf(prefix, start);
+		return isText(prefix);
+	}
+
 	/**
 	 * @param data
 	 * 		Some data to check.
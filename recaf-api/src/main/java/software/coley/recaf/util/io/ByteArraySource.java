@@ -51,6 +51,11 @@ public final class ByteArraySource implements ByteSource {
 		return Arrays.copyOfRange(bytes, off, count);
 	}
 
+	@Override
+	public long length() {
+		return len;
+	}
+
 	@Nonnull
 	@Override
 	public InputStream openStream() {
@@ -41,6 +41,11 @@ public final class ByteBufferSource implements ByteSource {
 		return buf;
 	}
 
+	@Override
+	public long length() {
+		return buffer.remaining();
+	}
+
 	@Nonnull
 	@Override
 	public InputStream openStream() {
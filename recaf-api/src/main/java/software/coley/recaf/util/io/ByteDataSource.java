@@ -50,6 +50,11 @@ public final class ByteDataSource implements ByteSource, AutoCloseable {
 		return buf;
 	}
 
+	@Override
+	public long length() {
+		return data.length();
+	}
+
 	@Nonnull
 	@Override
 	public InputStream openStream() {
@@ -36,6 +36,16 @@ public interface ByteSource {
 	@Nonnull
 	byte[] peek(int count) throws IOException;
 
+	/**
+	 * @return Number of bytes in the source.
+	 *
+	 * @throws IOException
+	 * 		If any I/O error occurs.
+	 */
+	default long length() throws IOException {
+		return readAll().length;
+	}
+
 	/**
 	 * Streams this source.
 	 *
@@ -0,0 +1,117 @@
+package software.coley.recaf.util.io;
+
+import jakarta.annotation.Nonnull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed interning of byte arrays. Contents are keyed by their SHA-256 hash, so that identical contents
+ * read from different sources share a single array instance.
+ * <p>
+ * Interned arrays are only weakly held, so content is released once nothing else refers to it.
+ * Callers must treat interned arrays as immutable, since they may be shared by unrelated holders.
+ *
+ * @author Matt Coley
+ */
+public class ContentInterner {
+	private static final int MIN_LENGTH = 128;
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 not supported", ex);
+		}
+	});
+	private final Map<ByteBuffer, ContentReference> contents = new ConcurrentHashMap<>();
+	private final ReferenceQueue<byte[]> queue = new ReferenceQueue<>();
+	private final LongAdder internedCount = new LongAdder();
+	private final LongAdder internedBytes = new LongAdder();
+
+	/**
+	 * @param content
+	 * 		Content to intern.
+	 *
+	 * @return Prior array with the same content if one exists, otherwise the given array.
+	 */
+	@Nonnull
+	public byte[] intern(@Nonnull byte[] content) {
+		// Tiny contents are not worth the table overhead.
+		if (content.length < MIN_LENGTH)
+			return content;
+
+		expungeStaleEntries();
+		ByteBuffer key = ByteBuffer.wrap(DIGEST.get().digest(content));
+		while (true) {
+			ContentReference existingRef = contents.get(key);
+			if (existingRef == null) {
+				existingRef = contents.putIfAbsent(key, new ContentReference(key, content, queue));
+				if (existingRef == null)
+					return content;
+			}
+
+			// Use the existing content if it is still alive.
+			// Otherwise, replace the dead entry and try again.
+			byte[] existing = existingRef.get();
+			if (existing != null) {
+				// Sanity check the content, the odds of a collision are astronomically low, but not zero.
+				if (!Arrays.equals(existing, content))
+					return content;
+				if (existing != content) {
+					internedCount.increment();
+					internedBytes.add(content.length);
+				}
+				return existing;
+			}
+			contents.remove(key, existingRef);
+		}
+	}
+
+	/**
+	 * @return Total number of contents that were served by already interned arrays.
+	 */
+	public long getInternedCount() {
+		return internedCount.sum();
+	}
+
+	/**
+	 * @return Total number of bytes that were not retained due to being served by already interned arrays.
+	 */
+	public long getInternedBytes() {
+		return internedBytes.sum();
+	}
+
+	/**
+	 * @return Number of distinct contents currently tracked.
+	 */
+	public int size() {
+		expungeStaleEntries();
+		return contents.size();
+	}
+
+	private void expungeStaleEntries() {
+		ContentReference ref;
+		while ((ref = (ContentReference) queue.poll()) != null)
+			contents.remove(ref.key, ref);
+	}
+
+	/**
+	 * Weak reference to content, holding the hash key so the entry can be removed once the content is collected.
+	 */
+	private static class ContentReference extends WeakReference<byte[]> {
+		private final ByteBuffer key;
+
+		private ContentReference(@Nonnull ByteBuffer key, @Nonnull byte[] content,
+								 @Nonnull ReferenceQueue<byte[]> queue) {
+			super(content, queue);
+			this.key = key;
+		}
+	}
+}
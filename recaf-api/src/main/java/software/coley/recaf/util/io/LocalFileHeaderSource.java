@@ -2,12 +2,18 @@ package software.coley.recaf.util.io;
 
 import jakarta.annotation.Nonnull;
 import software.coley.llzip.format.compression.ZipCompressions;
+import software.coley.llzip.format.model.CentralDirectoryFileHeader;
 import software.coley.llzip.format.model.LocalFileHeader;
+import software.coley.llzip.util.BufferData;
 import software.coley.llzip.util.ByteData;
 import software.coley.llzip.util.ByteDataUtil;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
  * Byte source from {@link LocalFileHeader}.
@@ -15,6 +21,7 @@ import java.io.InputStream;
  * @author xDark
  */
 public final class LocalFileHeaderSource implements ByteSource {
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 	private final LocalFileHeader fileHeader;
 	private ByteData decompressed;
 
@@ -40,6 +47,13 @@ public final class LocalFileHeaderSource implements ByteSource {
 		return bytes;
 	}
 
+	@Override
+	public long length() throws IOException {
+		if (!isCompressed())
+			return fileHeader.getFileData().length();
+		return decompress().length();
+	}
+
 	@Nonnull
 	@Override
 	public InputStream openStream() throws IOException {
@@ -56,7 +70,139 @@ public final class LocalFileHeaderSource implements ByteSource {
 	public boolean isEmpty() throws IOException {
 		if (fileHeader.getCompressionMethod() == ZipCompressions.STORED)
 			return fileHeader.getFileData().length() == 0;
-		return decompress().length() == 0;
+		if (decompressed != null)
+			return decompressed.length() == 0;
+
+		// Stop inflating as soon as any content is found.
+		try {
+			return getData(0, extra -> false).length() == 0;
+		} catch (SizeExceededException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return Uncompressed size of the entry, as declared by its local and central directory headers.
+	 * The declared size is not verified against the entry data, see {@link #getData(long, LongPredicate)}.
+	 */
+	public long getDeclaredSize() {
+		if (!isCompressed())
+			return fileHeader.getFileData().length();
+
+		// Local headers of entries followed by a data descriptor declare a size of 0,
+		// so the central directory is checked as well.
+		long size = fileHeader.getUncompressedSize();
+		CentralDirectoryFileHeader centralHeader = fileHeader.getLinkedDirectoryFileHeader();
+		if (centralHeader != null)
+			size = Math.max(size, centralHeader.getUncompressedSize());
+		return Math.max(size, 0);
+	}
+
+	/**
+	 * @return {@code true} when the entry data is compressed.
+	 * {@code false} when the entry data is stored as-is in the archive.
+	 */
+	public boolean isCompressed() {
+		return fileHeader.getCompressionMethod() != ZipCompressions.STORED;
+	}
+
+	/**
+	 * @return Decompressed content of the entry.
+	 * For uncompressed entries this is a view of the archive data.
+	 *
+	 * @throws IOException
+	 * 		When data cannot be decompressed.
+	 */
+	@Nonnull
+	public ByteData getData() throws IOException {
+		return decompress();
+	}
+
+	/**
+	 * Decompresses the entry without inflating more than the given limit, unless more is allowed by the given check.
+	 * Used to bound the memory used by entries whose data inflates to far more than they declare.
+	 *
+	 * @param limit
+	 * 		Number of decompressed bytes allowed up front, typically the {@link #getDeclaredSize() declared size}.
+	 * @param extend
+	 * 		Check called with the number of bytes decompressed beyond what was allowed so far.
+	 * 		Returns {@code true} to allow them and continue, or {@code false} to abort.
+	 *
+	 * @return Decompressed content of the entry.
+	 * For uncompressed entries this is a view of the archive data.
+	 *
+	 * @throws SizeExceededException
+	 * 		When the data decompresses to more than the allowed number of bytes.
+	 * @throws IOException
+	 * 		When data cannot be decompressed.
+	 */
+	@Nonnull
+	public ByteData getData(long limit, @Nonnull LongPredicate extend) throws IOException {
+		ByteData decompressed = this.decompressed;
+		if (decompressed == null) {
+			int method = fileHeader.getCompressionMethod();
+			if (method == ZipCompressions.DEFLATED) {
+				decompressed = inflate(limit, extend);
+			} else {
+				// Other methods are rare enough that they are not inflated incrementally, and are only checked after.
+				decompressed = ZipCompressions.decompress(fileHeader);
+				long length = decompressed.length();
+				if (length > limit && !extend.test(length - limit))
+					throw new SizeExceededException(limit);
+			}
+			this.decompressed = decompressed;
+		}
+		return decompressed;
+	}
+
+	@Nonnull
+	private ByteData inflate(long limit, @Nonnull LongPredicate extend) throws IOException {
+		ByteData input = fileHeader.getFileData();
+		long inputLength = input.length();
+		long inputOffset = 0;
+		byte[] inputBuffer = new byte[16384];
+		byte[] chunk = new byte[65536];
+		byte[] output = new byte[(int) Math.min(Math.max(limit, 16), 1 << 20)];
+		int size = 0;
+		Inflater inflater = new Inflater(true);
+		try {
+			while (!inflater.finished()) {
+				if (inflater.needsInput()) {
+					// Truncated data is handled leniently, keeping what was inflated so far.
+					if (inputOffset >= inputLength)
+						break;
+					int count = (int) Math.min(inputBuffer.length, inputLength - inputOffset);
+					input.get(inputOffset, inputBuffer, 0, count);
+					inputOffset += count;
+					inflater.setInput(inputBuffer, 0, count);
+				}
+				int read = inflater.inflate(chunk);
+				if (read == 0) {
+					if (inflater.needsDictionary())
+						throw new IOException("Deflated entry data requires a preset dictionary");
+					continue;
+				}
+
+				// Check the new size against the limit before keeping the inflated data.
+				long newSize = (long) size + read;
+				if (newSize > limit) {
+					if (!extend.test(newSize - Math.max(limit, size)))
+						throw new SizeExceededException(limit);
+					limit = newSize;
+				}
+				if (newSize > MAX_ARRAY_SIZE)
+					throw new SizeExceededException(MAX_ARRAY_SIZE);
+				if (newSize > output.length)
+					output = Arrays.copyOf(output, (int) Math.min(MAX_ARRAY_SIZE, Math.max(newSize, output.length * 2L)));
+				System.arraycopy(chunk, 0, output, size, read);
+				size = (int) newSize;
+			}
+		} catch (DataFormatException ex) {
+			throw new IOException("Invalid deflated entry data", ex);
+		} finally {
+			inflater.end();
+		}
+		return BufferData.wrap(size == output.length ? output : Arrays.copyOf(output, size));
 	}
 
 	private ByteData decompress() throws IOException {
@@ -66,4 +212,13 @@ public final class LocalFileHeaderSource implements ByteSource {
 		}
 		return decompressed;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Thrown when entry data decompresses to more than was allowed.
+	 */
+	public static final class SizeExceededException extends IOException {
+		private SizeExceededException(long limit) {
+			super("Entry data exceeds the allowed size of " + limit + " bytes");
+		}
+	}
+}
@@ -13,7 +13,7 @@ import java.util.Arrays;
  *
  * @author xDark
  */
-final class PathByteSource implements ByteSource {
+public final class PathByteSource implements ByteSource {
 	private final Path path;
 
 	/**
@@ -24,6 +24,14 @@ final class PathByteSource implements ByteSource {
 		this.path = path;
 	}
 
+	/**
+	 * @return Path to read bytes from.
+	 */
+	@Nonnull
+	public Path getPath() {
+		return path;
+	}
+
 	@Nonnull
 	@Override
 	public byte[] readAll() throws IOException {
@@ -45,6 +53,11 @@ final class PathByteSource implements ByteSource {
 		}
 	}
 
+	@Override
+	public long length() throws IOException {
+		return Files.size(path);
+	}
+
 	@Nonnull
 	@Override
 	public InputStream openStream() throws IOException {
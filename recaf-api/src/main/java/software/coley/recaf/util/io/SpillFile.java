@@ -0,0 +1,105 @@
+package software.coley.recaf.util.io;
+
+import jakarta.annotation.Nonnull;
+import software.coley.llzip.util.ByteData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Temporary file that holds content outside the heap. Content is appended into memory-mapped segments of the file,
+ * and read back through {@link ByteBufferSource} views of those segments.
+ * <p>
+ * Mapped views stay valid after the spill file is closed. The file itself is deleted on close where the
+ * platform allows it, otherwise when the JVM exits.
+ *
+ * @author Matt Coley
+ */
+public class SpillFile implements Closeable {
+	private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+	private final FileChannel channel;
+	private MappedByteBuffer segment;
+	private long fileLength;
+
+	/**
+	 * @throws IOException
+	 * 		When the temporary file cannot be created.
+	 */
+	public SpillFile() throws IOException {
+		Path path = Files.createTempFile("recaf-spill", ".bin");
+		path.toFile().deleteOnExit();
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.DELETE_ON_CLOSE);
+	}
+
+	/**
+	 * @param data
+	 * 		Content to store.
+	 *
+	 * @return Source of the stored content.
+	 *
+	 * @throws IOException
+	 * 		When the content cannot be written to the spill file.
+	 */
+	@Nonnull
+	public synchronized ByteSource store(@Nonnull ByteData data) throws IOException {
+		long length = data.length();
+		if (length > Integer.MAX_VALUE - 8)
+			throw new IOException("Too large content");
+		int size = (int) length;
+
+		// Content that does not fit in a shared segment gets its own mapping.
+		ByteBuffer target;
+		if (size > SEGMENT_SIZE / 4) {
+			target = map(size);
+		} else {
+			if (segment == null || segment.remaining() < size)
+				segment = map(SEGMENT_SIZE);
+			target = segment.slice(segment.position(), size);
+			segment.position(segment.position() + size);
+		}
+
+		// Copy the content into the mapped region in chunks.
+		byte[] buffer = new byte[Math.min(size, 16384)];
+		for (int offset = 0; offset < size; offset += buffer.length) {
+			int count = Math.min(buffer.length, size - offset);
+			data.get(offset, buffer, 0, count);
+			target.put(offset, buffer, 0, count);
+		}
+		return ByteSources.forBuffer(target.asReadOnlyBuffer());
+	}
+
+	/**
+	 * @param size
+	 * 		Size of region to map at the end of the file.
+	 *
+	 * @return Mapped region.
+	 *
+	 * @throws IOException
+	 * 		When the region cannot be mapped.
+	 */
+	@Nonnull
+	private MappedByteBuffer map(int size) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, fileLength, size);
+		fileLength += size;
+		return buffer;
+	}
+
+	/**
+	 * @return Number of bytes reserved in the spill file.
+	 */
+	public synchronized long getLength() {
+		return fileLength;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -4,6 +4,8 @@ import jakarta.annotation.Nonnull;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 
@@ -131,6 +133,35 @@ public class ThreadPoolFactory {
 		return new ScheduledExecutorServiceDelegate(Executors.newScheduledThreadPool(size, new FactoryImpl(name, daemon)));
 	}
 
+	/**
+	 * @param name
+	 * 		Thread pool name.
+	 *
+	 * @return {@link ForkJoinPool} in async mode, suited to many small independent tasks.
+	 * Threads are daemon threads.
+	 */
+	public static ExecutorService newWorkStealingPool(String name) {
+		return newWorkStealingPool(name, MAX);
+	}
+
+	/**
+	 * @param name
+	 * 		Thread pool name.
+	 * @param size
+	 * 		Thread pool parallelism.
+	 *
+	 * @return {@link ForkJoinPool} in async mode, suited to many small independent tasks.
+	 * Threads are daemon threads.
+	 */
+	public static ExecutorService newWorkStealingPool(String name, int size) {
+		ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(name + "-" + thread.getPoolIndex());
+			return thread;
+		};
+		return new ExecutorServiceDelegate(new ForkJoinPool(Math.min(MAX, size), factory, null, true));
+	}
+
 	private static class FactoryImpl implements ThreadFactory {
 		private final String name;
 		private final boolean daemon;
@@ -1,6 +1,7 @@
 package software.coley.recaf.workspace.io;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import me.coley.cafedude.classfile.VersionConstants;
@@ -9,11 +10,13 @@ import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import software.coley.recaf.analytics.logging.Logging;
 import software.coley.recaf.info.Info;
+import software.coley.recaf.info.JvmClassInfo;
 import software.coley.recaf.info.builder.*;
 import software.coley.recaf.services.ServiceConfig;
 import software.coley.recaf.util.ByteHeaderUtil;
-import software.coley.recaf.util.IOUtil;
+import software.coley.recaf.util.UncheckedSupplier;
 import software.coley.recaf.util.io.ByteSource;
+import software.coley.recaf.util.io.ContentInterner;
 import software.coley.recaf.util.visitors.CustomAttributeCollectingVisitor;
 
 import java.io.IOException;
@@ -26,6 +29,8 @@ import java.io.IOException;
 @ApplicationScoped
 public class BasicInfoImporter implements InfoImporter {
 	private static final Logger logger = Logging.get(BasicInfoImporter.class);
+	private static final int HEADER_SIZE = 8192;
+	private final ContentInterner interner = new ContentInterner();
 	private final ClassPatcher classPatcher;
 	private final InfoImporterConfig config;
 
@@ -38,78 +43,82 @@ public class BasicInfoImporter implements InfoImporter {
 	@Nonnull
 	@Override
 	public Info readInfo(String name, ByteSource source) throws IOException {
-		byte[] data = source.readAll();
+		return readInfo(name, source, null);
+	}
+
+	@Nonnull
+	@Override
+	public Info readInfo(String name, ByteSource source, @Nullable UncheckedSupplier<ByteSource> fileSource) throws IOException {
+		// Detect the type of content from a bounded prefix, so files kept off the heap are never read in full.
+		byte[] header = source.peek(HEADER_SIZE);
 
 		// Check for Java classes
-		if (matchesClass(data)) {
+		if (matchesClass(header)) {
+			byte[] data = readContent(source);
 			try {
+				// Read the class, checking for compliance with ASM in the same pass.
+				JvmClassInfo classInfo = readAsmCompliantClass(data);
+				if (classInfo != null)
+					return classInfo;
+
 				// Patch if not compatible with ASM
-				if (!isAsmCompliantClass(data)) {
-					byte[] patched = classPatcher.patch(name, data);
-
-					// Ensure the patch was successful
-					if (!isAsmCompliantClass(patched)) {
-						logger.error("CafeDude patching output is still non-compliant with ASM for file: {}", name);
-						return new FileInfoBuilder<>()
-								.withRawContent(data)
-								.withName(name)
-								.build();
-					} else {
-						logger.debug("CafeDude patched class: {}", name);
-						return new JvmClassInfoBuilder(new ClassReader(patched))
-								.build();
-					}
-				}
+				byte[] patched = classPatcher.patch(name, data);
 
-				// Yield class
-				return new JvmClassInfoBuilder(new ClassReader(data)).build();
+				// Ensure the patch was successful
+				classInfo = readAsmCompliantClass(patched);
+				if (classInfo == null) {
+					logger.error("CafeDude patching output is still non-compliant with ASM for file: {}", name);
+					return new FileInfoBuilder<>()
+							.withRawContent(data)
+							.withName(name)
+							.build();
+				} else {
+					logger.debug("CafeDude patched class: {}", name);
+					return classInfo;
+				}
 			} catch (Throwable t) {
 				throw new IOException("Unhandled exception when reading class: " + name, t);
 			}
 		}
 
+		// Files are backed by the given source if provided, otherwise their content is read onto the heap.
+		ByteSource contentSource = null;
+		if (fileSource != null) {
+			try {
+				contentSource = fileSource.uncheckedGet();
+			} catch (Throwable t) {
+				logger.warn("Failed to move file '{}' off the heap, keeping it in memory", name, t);
+			}
+		}
+		byte[] data = contentSource == null ? readContent(source) : null;
+
 		// Check for ZIP containers (For ZIP/JAR/JMod/WAR)
-		if (ByteHeaderUtil.matchAtAnyOffset(data, ByteHeaderUtil.ZIP)) {
-			ZipFileInfoBuilder builder = new ZipFileInfoBuilder()
-					.withRawContent(data)
-					.withName(name);
-
-			// Handle by file name if known, otherwise treat as regular ZIP.
-			if (name == null) return builder.build();
-
-			// Record name, handle extension to determine info-type
-			String extension = IOUtil.getExtension(name);
-			if (extension == null) return builder.build();
-			return switch (extension.toUpperCase()) {
-				case "JAR" -> builder.asJar().build();
-				case "APK" -> builder.asApk().build();
-				case "WAR" -> builder.asWar().build();
-				case "JMOD" -> builder.asJMod().build();
-				default -> builder.build();
-			};
+		// Content on the heap is scanned in full, content kept off the heap only has its prefix scanned.
+		if (ByteHeaderUtil.matchAtAnyOffset(data == null ? header : data, ByteHeaderUtil.ZIP)) {
+			// Handle by file name extension if known, otherwise treat as regular ZIP.
+			return withContent(new ZipFileInfoBuilder(), data, contentSource)
+					.withName(name)
+					.asTypeOfName(name)
+					.build();
 		}
 
 		// Not a ZIP container, start comparing against other known file types.
-		if (ByteHeaderUtil.match(data, ByteHeaderUtil.DEX)) {
-			return new DexFileInfoBuilder()
-					.withRawContent(data)
+		if (ByteHeaderUtil.match(header, ByteHeaderUtil.DEX)) {
+			return withContent(new DexFileInfoBuilder(), data, contentSource)
 					.withName(name)
 					.build();
-		} else if (ByteHeaderUtil.match(data, ByteHeaderUtil.MODULES)) {
-			return new ModulesFileInfoBuilder()
-					.withRawContent(data)
+		} else if (ByteHeaderUtil.match(header, ByteHeaderUtil.MODULES)) {
+			return withContent(new ModulesFileInfoBuilder(), data, contentSource)
 					.withName(name)
 					.build();
 		} else if (name.endsWith(".arsc") &&
-				ByteHeaderUtil.match(data, ByteHeaderUtil.ARSC)) {
-			return new ArscFileInfoBuilder()
-					.withRawContent(data)
+				ByteHeaderUtil.match(header, ByteHeaderUtil.ARSC)) {
+			return withContent(new ArscFileInfoBuilder(), data, contentSource)
 					.withName(name)
 					.build();
 		} else if (name.endsWith(".xml") &&
-				ByteHeaderUtil.match(data, ByteHeaderUtil.BINARY_XML)) {
-			return new BinaryXmlFileInfoBuilder()
-					.withRawContent(data)
+				ByteHeaderUtil.match(header, ByteHeaderUtil.BINARY_XML)) {
+			return withContent(new BinaryXmlFileInfoBuilder(), data, contentSource)
 					.withName(name)
 					.build();
 		}
@@ -121,12 +130,52 @@ public class BasicInfoImporter implements InfoImporter {
 
 		// No special case known for file, treat as generic file
 		// Will be automatically mapped to a text file if the contents are all mappable characters.
-		return new FileInfoBuilder<>()
-				.withRawContent(data)
+		return withContent(new FileInfoBuilder<>(), data, contentSource)
 				.withName(name)
 				.build();
 	}
 
+	/**
+	 * @param source
+	 * 		Source of content to read.
+	 *
+	 * @return All content of the source, shared with identical prior content if enabled in the config.
+	 *
+	 * @throws IOException
+	 * 		When the content cannot be read.
+	 */
+	@Nonnull
+	private byte[] readContent(@Nonnull ByteSource source) throws IOException {
+		byte[] data = source.readAll();
+
+		// Share identical contents across imported infos
+		if (config.getDeduplicateContent().getValue())
+			data = interner.intern(data);
+		return data;
+	}
+
+	/**
+	 * @param builder
+	 * 		Builder to populate.
+	 * @param data
+	 * 		Content on the heap, or {@code null} when the content is kept off the heap.
+	 * @param contentSource
+	 * 		Source of the content when it is kept off the heap.
+	 * @param <B>
+	 * 		Builder type.
+	 *
+	 * @return Same builder, with its content set.
+	 */
+	@Nonnull
+	private static <B extends FileInfoBuilder<?>> B withContent(@Nonnull B builder, @Nullable byte[] data,
+																 @Nullable ByteSource contentSource) {
+		if (data != null)
+			builder.withRawContent(data);
+		else
+			builder.withContentSource(contentSource);
+		return builder;
+	}
+
 	/**
 	 * Check if the byte array is prefixed by the class file magic header.
 	 *
@@ -163,26 +212,49 @@ public class BasicInfoImporter implements InfoImporter {
 	}
 
 	/**
-	 * Check if the class can be parsed by ASM.
+	 * Reads the class if it can be parsed and written by ASM. The compliance check and the population
+	 * of the class model share a single pass over the class file.
 	 *
 	 * @param content
 	 * 		The class file content.
 	 *
-	 * @return {@code true} if ASM can parse the class.
+	 * @return Class model of the content, lazily populated if enabled in the config.
+	 * {@code null} if ASM cannot parse or write the class, or it has unknown attributes.
 	 */
-	private static boolean isAsmCompliantClass(byte[] content) {
+	@Nullable
+	private JvmClassInfo readAsmCompliantClass(byte[] content) {
+		boolean lazy = config.getLazyClassModel().getValue();
+		JvmClassInfoBuilder builder = new JvmClassInfoBuilder();
+		ClassReader reader;
 		try {
-			CustomAttributeCollectingVisitor visitor = new CustomAttributeCollectingVisitor(new ClassWriter(0));
-			ClassReader reader = new ClassReader(content);
+			// The writer is the end of the chain, so classes that ASM can read but not write are also rejected.
+			// When the model is lazily populated we only need to check compliance here.
+			// The header is read afterward.
+			ClassWriter writer = new ClassWriter(0);
+			CustomAttributeCollectingVisitor visitor =
+					new CustomAttributeCollectingVisitor(lazy ? writer : builder.adaptingVisitor(writer));
+			reader = new ClassReader(content);
 			reader.accept(visitor, 0);
 			if (visitor.hasCustomAttributes()) {
-				throw new IllegalStateException("Unknown attributes found in class: " + reader.getClassName() + "[" +
-						String.join(", ", visitor.getCustomAttributeNames()) + "]");
+				logger.debug("Unknown attributes found in class: {}[{}]", reader.getClassName(),
+						String.join(", ", visitor.getCustomAttributeNames()));
+				return null;
 			}
-			return true;
 		} catch (Throwable t) {
-			return false;
+			return null;
 		}
+		if (lazy)
+			return builder.adaptHeaderFrom(reader).buildLazy();
+		return builder.withBytecode(content).build();
+	}
+
+	/**
+	 * @return Interner used to share identical contents when {@link InfoImporterConfig#getDeduplicateContent()}
+	 * is enabled.
+	 */
+	@Nonnull
+	public ContentInterner getContentInterner() {
+		return interner;
 	}
 
 	@Nonnull
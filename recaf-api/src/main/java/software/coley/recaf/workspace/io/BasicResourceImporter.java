@@ -1,22 +1,32 @@
 package software.coley.recaf.workspace.io;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import software.coley.llzip.format.model.CentralDirectoryFileHeader;
+import software.coley.llzip.format.model.LocalFileHeader;
 import software.coley.llzip.format.model.ZipArchive;
 import software.coley.llzip.util.ByteData;
 import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.config.ConfigContainer;
 import software.coley.recaf.info.*;
 import software.coley.recaf.info.builder.FileInfoBuilder;
+import software.coley.recaf.info.builder.ZipFileInfoBuilder;
 import software.coley.recaf.info.properties.builtin.*;
 import software.coley.recaf.services.Service;
+import software.coley.recaf.services.file.RecafDirectoriesConfig;
 import software.coley.recaf.util.*;
 import software.coley.recaf.util.io.ByteSource;
 import software.coley.recaf.util.io.ByteSources;
 import software.coley.recaf.util.io.LocalFileHeaderSource;
+import software.coley.recaf.util.io.PathByteSource;
+import software.coley.recaf.util.io.SpillFile;
+import software.coley.recaf.util.threading.ThreadPoolFactory;
+import software.coley.recaf.util.threading.ThreadUtil;
 import software.coley.recaf.workspace.model.bundle.AndroidClassBundle;
+import software.coley.recaf.workspace.model.bundle.BasicBundleHistory;
 import software.coley.recaf.workspace.model.bundle.BasicFileBundle;
 import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
 import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
@@ -31,6 +41,8 @@ import java.net.URL;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
 
 /**
  * Basic implementation of the resource importer.
@@ -39,16 +51,44 @@ import java.util.*;
  */
 @ApplicationScoped
 public class BasicResourceImporter implements ResourceImporter, Service {
-	private static final int MAX_ZIP_DEPTH = 3;
 	private static final Logger logger = Logging.get(BasicResourceImporter.class);
+	private static final ExecutorService importThreadPool = ThreadPoolFactory.newFixedThreadPool(SERVICE_ID);
 	private final InfoImporter infoImporter;
 	private final ResourceImporterConfig config;
+	private final ResourceSnapshotCache snapshotCache;
 
 	@Inject
+	public BasicResourceImporter(@Nonnull InfoImporter infoImporter,
+								 @Nonnull ResourceImporterConfig config,
+								 @Nonnull RecafDirectoriesConfig directories) {
+		this(infoImporter, config, new ResourceSnapshotCache(directories.getCacheDirectory().resolve("snapshots")));
+	}
+
+	/**
+	 * @param infoImporter
+	 * 		Importer to read infos with.
+	 * @param config
+	 * 		Importer config.
+	 */
 	public BasicResourceImporter(@Nonnull InfoImporter infoImporter,
 								 @Nonnull ResourceImporterConfig config) {
+		this(infoImporter, config, (ResourceSnapshotCache) null);
+	}
+
+	/**
+	 * @param infoImporter
+	 * 		Importer to read infos with.
+	 * @param config
+	 * 		Importer config.
+	 * @param snapshotCache
+	 * 		Cache of imported resources, or {@code null} to never cache resources.
+	 */
+	public BasicResourceImporter(@Nonnull InfoImporter infoImporter,
+								 @Nonnull ResourceImporterConfig config,
+								 @Nullable ResourceSnapshotCache snapshotCache) {
 		this.infoImporter = infoImporter;
 		this.config = config;
+		this.snapshotCache = snapshotCache;
 	}
 
 	/**
@@ -76,7 +116,7 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 			// If it is a class, we know it MUST be a single JVM class since Android classes do not exist
 			// in single file form. They only come bundled in DEX files.
 			JvmClassInfo readAsJvmClass = readInfo.asClass().asJvmClass();
-			BasicJvmClassBundle bundle = new BasicJvmClassBundle();
+			BasicJvmClassBundle bundle = newClassBundle();
 			bundle.initialPut(readAsJvmClass);
 
 			// To satisfy our file-info requirement for the file resource we can create a wrapper file-info
@@ -97,7 +137,14 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 		// Check for general ZIP container format (ZIP/JAR/WAR/APK/JMod)
 		if (readInfoAsFile.isZipFile()) {
 			ZipFileInfo readInfoAsZip = readInfoAsFile.asZipFile();
-			return handleZip(builder, readInfoAsZip, source);
+			ImportContext context = ImportContext.root(config, source, null, false);
+
+			// Outside of mapped storage every entry is copied onto the heap, so the archive is closed once read.
+			// This releases the mapping of path inputs right away, rather than when it is collected,
+			// which would otherwise keep the input file locked on Windows.
+			try (ZipArchive archive = readArchive(source)) {
+				return handleZip(builder, readInfoAsZip, archive, context);
+			}
 		}
 
 		// Check for DEX file format.
@@ -114,128 +161,58 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 		}
 
 		// Unknown file type
-		BasicFileBundle bundle = new BasicFileBundle();
+		BasicFileBundle bundle = newFileBundle();
 		bundle.initialPut(readInfoAsFile);
 		return builder
 				.withFileBundle(bundle)
 				.build();
 	}
 
-	private WorkspaceFileResource handleZip(WorkspaceResourceBuilder builder, ZipFileInfo zipInfo, ByteSource source) throws IOException {
+	/**
+	 * @param builder
+	 * 		Builder to work with.
+	 * @param zipInfo
+	 * 		Info of the ZIP container.
+	 * @param archive
+	 * 		Parsed ZIP container.
+	 * @param context
+	 * 		Import context of the ZIP container.
+	 *
+	 * @return Read resource.
+	 */
+	private WorkspaceFileResource handleZip(WorkspaceResourceBuilder builder, ZipFileInfo zipInfo, ZipArchive archive,
+											ImportContext context) {
 		logger.info("Reading input from ZIP container '{}'", zipInfo.getName());
 		builder.withFileInfo(zipInfo);
-		BasicJvmClassBundle classes = new BasicJvmClassBundle();
-		BasicFileBundle files = new BasicFileBundle();
+		BasicJvmClassBundle classes = newClassBundle();
+		BasicFileBundle files = newFileBundle();
 		Map<String, AndroidClassBundle> androidClassBundles = new HashMap<>();
 		NavigableMap<Integer, JvmClassBundle> versionedJvmClassBundles = new TreeMap<>();
 		Map<String, WorkspaceFileResource> embeddedResources = new HashMap<>();
 
 		// Read ZIP entries
-		ZipArchive archive = config.getZipStrategy().getValue().mapping().apply(source.readAll());
-		archive.getLocalFiles().forEach(header -> {
-			LocalFileHeaderSource headerSource = new LocalFileHeaderSource(header);
-			String entryName = header.getFileNameAsString();
-
-			// Skip directories. There is no such thing as a 'directory' entry in ZIP files.
-			// The only thing we can say is that if it ends with a '/' and has no data associated with it,
-			// then it is probably a directory.
-			if (entryName.endsWith("/") && Unchecked.getOr(headerSource::isEmpty, false))
-				return;
-
-			// Skip the following cases:
-			//  - zero-length directories
-			//  - path traversal attempts
-			if (entryName.contains("//") || entryName.contains("../"))
-				return;
-
-			// Read the value of the entry to figure out how to handle adding it to the resource builder.
-			Info info;
-			try {
-				info = infoImporter.readInfo(entryName, headerSource);
-			} catch (IOException ex) {
-				logger.error("IO error reading ZIP entry '{}' - skipping", entryName, ex);
-				return;
-			}
-
-			// Record common entry attributes
-			CentralDirectoryFileHeader centralHeader = header.getLinkedDirectoryFileHeader();
-			ZipCompressionProperty.set(info, header.getCompressionMethod());
-			if (centralHeader.getFileCommentLength() > 0)
-				ZipCommentProperty.set(info, centralHeader.getFileCommentAsString());
-			int extraLen = header.getExtraFieldLength();
-			if (extraLen > 0 && extraLen < 0xFFFF) {
-				// Reimplementation of 'java.util.zip.ZipEntry#setExtra0(...)'
-				ByteData extra = header.getExtraField();
-				int off = 0;
-				int len = (int) extra.length();
-				while (off + 4 < len) {
-					int tag = extra.getShort(off);
-					int size = extra.getShort(off + 2);
-					off += 4;
-					if (off + size > len)
-						break;
-					if (tag == /* EXTID_NTFS */ 0xA) {
-						if (size < 32) // reserved  4 bytes + tag 2 bytes + size 2 bytes
-							break;   // m[a|c]time 24 bytes
-						int pos = off + 4;
-						if (extra.getShort(pos) != 0x0001 || extra.getShort(pos + 2) != 24)
-							break;
-						long wtime;
-						wtime = extra.getInt(pos + 4) | ((long) extra.getInt(pos + 8) << 32);
-						if (wtime != Long.MIN_VALUE) {
-							ZipModificationTimeProperty.set(info, ZipCreationUtils.winTimeToFileTime(wtime).toMillis());
-						}
-						wtime = extra.getInt(pos + 12) | ((long) extra.getInt(pos + 16) << 32);
-						if (wtime != Long.MIN_VALUE) {
-							ZipAccessTimeProperty.set(info, ZipCreationUtils.winTimeToFileTime(wtime).toMillis());
-						}
-						wtime = extra.getInt(pos + 20) | ((long) extra.getInt(pos + 8) << 24);
-						if (wtime != Long.MIN_VALUE) {
-							ZipCreationTimeProperty.set(info, ZipCreationUtils.winTimeToFileTime(wtime).toMillis());
-						}
-					} else if (tag == /* EXTID_EXTT */ 0x5455) {
-						int flag = extra.get(off);
-						int localOff = 1;
-						// The CEN-header extra field contains the modification
-						// time only, or no timestamp at all. 'sz' is used to
-						// flag its presence or absence. But if mtime is present
-						// in LOC it must be present in CEN as well.
-						if ((flag & 0x1) != 0 && (localOff + 4) <= size) {
-							// get32S(extra, off + localOff)
-							ZipModificationTimeProperty.set(info, ZipCreationUtils.unixTimeToFileTime(extra.getInt(off + localOff)).toMillis());
-							localOff += 4;
-						}
-						if ((flag & 0x2) != 0 && (localOff + 4) <= size) {
-							ZipAccessTimeProperty.set(info, ZipCreationUtils.unixTimeToFileTime(extra.getInt(off + localOff)).toMillis());
-							localOff += 4;
-						}
-						if ((flag & 0x4) != 0 && (localOff + 4) <= size) {
-							ZipCreationTimeProperty.set(info, ZipCreationUtils.unixTimeToFileTime(extra.getInt(off + localOff)).toMillis());
-							localOff += 4;
-						}
-					}
-					off += size;
-				}
-			}
+		List<LocalFileHeader> headers = archive.getLocalFiles();
+		EntryContent[] entries = new EntryContent[headers.size()];
+		if (config.getParallelZipImport().getValue() && headers.size() > 1) {
+			// Decode the entries on the import pool.
+			readEntriesParallel(entries, index -> readZipEntry(headers.get(index), context));
+		} else {
+			for (int i = 0; i < entries.length; i++)
+				entries[i] = readZipEntry(headers.get(i), context);
+		}
 
-			// Skipping ZIP bombs
-			if (info.isFile() && info.asFile().isZipFile()) {
-				ZipFileInfo zipFile = info.asFile().asZipFile();
-				if (Arrays.equals(zipFile.getRawContent(), zipInfo.getRawContent())) {
-					logger.warn("Skip self-extracting ZIP bomb: {}", entryName);
-					return;
-				} else if (Arrays.stream(Thread.currentThread().getStackTrace())
-						.filter(trace -> trace.getMethodName().equals("handleZip"))
-						.count() > MAX_ZIP_DEPTH) {
-					logger.warn("Skip extracting embedded ZIP after {} levels: {}", MAX_ZIP_DEPTH, entryName);
-					return;
-				}
-			}
+		// Merge the read entries into the bundles in archive order.
+		// Duplicate handling relies on this order being the same as the order of entries in the archive.
+		for (EntryContent entry : entries) {
+			if (entry == null)
+				continue;
 
 			// Add the info to the appropriate bundle
 			addInfo(classes, files, androidClassBundles, versionedJvmClassBundles, embeddedResources,
-					headerSource, entryName, info);
-		});
+					entry.source(), entry.name(), entry.info(), context);
+		}
+		if (context.shouldReportExhaustedBudget())
+			logger.warn("Import budget exhausted, skipped remaining entries of '{}'", zipInfo.getName());
 		return builder
 				.withJvmClassBundle(classes)
 				.withAndroidClassBundles(androidClassBundles)
@@ -246,36 +223,241 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 				.build();
 	}
 
+	/**
+	 * Reads entries on the import pool. Each task writes only to its own slot.
+	 * <br>
+	 * Failures are captured per slot and rethrown on the calling thread in entry order once all tasks complete.
+	 * This matches reading the entries sequentially, where the first failing entry aborts the import,
+	 * rather than the failure only being logged by the pool and the entry silently missing.
+	 *
+	 * @param entries
+	 * 		Slots to read entries into.
+	 * @param reader
+	 * 		Function to read the entry of a given slot index.
+	 */
+	private static void readEntriesParallel(@Nonnull EntryContent[] entries,
+											@Nonnull IntFunction<EntryContent> reader) {
+		Throwable[] failures = new Throwable[entries.length];
+		ExecutorService service = ThreadUtil.phasingService(importThreadPool);
+		for (int i = 0; i < entries.length; i++) {
+			int index = i;
+			service.execute(() -> {
+				try {
+					entries[index] = reader.apply(index);
+				} catch (Throwable t) {
+					failures[index] = t;
+				}
+			});
+		}
+		ThreadUtil.blockUntilComplete(service);
+		for (Throwable failure : failures) {
+			if (failure instanceof RuntimeException ex)
+				throw ex;
+			if (failure instanceof Error error)
+				throw error;
+			if (failure != null)
+				throw new IllegalStateException(failure);
+		}
+	}
+
+	/**
+	 * Reads a single ZIP entry into an info, recording entry attributes such as compression and timestamps
+	 * as properties of the info. This does not touch any bundle state, so it is safe to call concurrently
+	 * for different entries of the same archive.
+	 *
+	 * @param header
+	 * 		Local file header of the entry.
+	 * @param context
+	 * 		Import context of the archive holding the entry.
+	 *
+	 * @return Read entry, or {@code null} if the entry should be skipped.
+	 */
+	@Nullable
+	private EntryContent readZipEntry(@Nonnull LocalFileHeader header, @Nonnull ImportContext context) {
+		LocalFileHeaderSource headerSource = new LocalFileHeaderSource(header);
+		String entryName = header.getFileNameAsString();
+
+		// Skip directories. There is no such thing as a 'directory' entry in ZIP files.
+		// The only thing we can say is that if it ends with a '/' and has no data associated with it,
+		// then it is probably a directory.
+		if (entryName.endsWith("/") && Unchecked.getOr(headerSource::isEmpty, false))
+			return null;
+
+		// Skip the following cases:
+		//  - zero-length directories
+		//  - path traversal attempts
+		if (entryName.contains("//") || entryName.contains("../"))
+			return null;
+
+		// Read the value of the entry to figure out how to handle adding it to the resource builder.
+		Info info;
+		try {
+			// Check the declared size against the budget before decompressing the entry.
+			// Entries can lie about their size, so anything inflated beyond it must also fit in the budget.
+			if (!context.tryConsumeEntry(headerSource.getDeclaredSize()))
+				return null;
+			headerSource.getData(headerSource.getDeclaredSize(), context::tryConsumeBytes);
+
+			// Move file contents off the heap if requested.
+			// Classes stay on the heap since their model is built from the bytecode anyway.
+			SpillFile spill = context.getSpill();
+			if (spill != null) {
+				info = infoImporter.readInfo(entryName, headerSource, () -> {
+					if (context.isArchiveMapped() && !headerSource.isCompressed())
+						return ByteSources.forZip(header.getFileData());
+					return spill.store(headerSource.getData());
+				});
+			} else {
+				info = infoImporter.readInfo(entryName, headerSource);
+			}
+		} catch (LocalFileHeaderSource.SizeExceededException ex) {
+			logger.warn("ZIP entry '{}' inflates beyond the import budget - skipping", entryName);
+			return null;
+		} catch (IOException ex) {
+			logger.error("IO error reading ZIP entry '{}' - skipping", entryName, ex);
+			return null;
+		}
+
+		// Record common entry attributes
+		CentralDirectoryFileHeader centralHeader = header.getLinkedDirectoryFileHeader();
+		ZipCompressionProperty.set(info, header.getCompressionMethod());
+		if (centralHeader.getFileCommentLength() > 0)
+			ZipCommentProperty.set(info, centralHeader.getFileCommentAsString());
+		int extraLen = header.getExtraFieldLength();
+		if (extraLen > 0 && extraLen < 0xFFFF) {
+			// Reimplementation of 'java.util.zip.ZipEntry#setExtra0(...)'
+			ByteData extra = header.getExtraField();
+			int off = 0;
+			int len = (int) extra.length();
+			while (off + 4 < len) {
+				int tag = extra.getShort(off);
+				int size = extra.getShort(off + 2);
+				off += 4;
+				if (off + size > len)
+					break;
+				if (tag == /* EXTID_NTFS */ 0xA) {
+					if (size < 32) // reserved  4 bytes + tag 2 bytes + size 2 bytes
+						break;   // m[a|c]time 24 bytes
+					int pos = off + 4;
+					if (extra.getShort(pos) != 0x0001 || extra.getShort(pos + 2) != 24)
+						break;
+					long wtime;
+					wtime = extra.getInt(pos + 4) | ((long) extra.getInt(pos + 8) << 32);
+					if (wtime != Long.MIN_VALUE) {
+						ZipModificationTimeProperty.set(info, ZipCreationUtils.winTimeToFileTime(wtime).toMillis());
+					}
+					wtime = extra.getInt(pos + 12) | ((long) extra.getInt(pos + 16) << 32);
+					if (wtime != Long.MIN_VALUE) {
+						ZipAccessTimeProperty.set(info, ZipCreationUtils.winTimeToFileTime(wtime).toMillis());
+					}
+					wtime = extra.getInt(pos + 20) | ((long) extra.getInt(pos + 8) << 24);
+					if (wtime != Long.MIN_VALUE) {
+						ZipCreationTimeProperty.set(info, ZipCreationUtils.winTimeToFileTime(wtime).toMillis());
+					}
+				} else if (tag == /* EXTID_EXTT */ 0x5455) {
+					int flag = extra.get(off);
+					int localOff = 1;
+					// The CEN-header extra field contains the modification
+					// time only, or no timestamp at all. 'sz' is used to
+					// flag its presence or absence. But if mtime is present
+					// in LOC it must be present in CEN as well.
+					if ((flag & 0x1) != 0 && (localOff + 4) <= size) {
+						// get32S(extra, off + localOff)
+						ZipModificationTimeProperty.set(info, ZipCreationUtils.unixTimeToFileTime(extra.getInt(off + localOff)).toMillis());
+						localOff += 4;
+					}
+					if ((flag & 0x2) != 0 && (localOff + 4) <= size) {
+						ZipAccessTimeProperty.set(info, ZipCreationUtils.unixTimeToFileTime(extra.getInt(off + localOff)).toMillis());
+						localOff += 4;
+					}
+					if ((flag & 0x4) != 0 && (localOff + 4) <= size) {
+						ZipCreationTimeProperty.set(info, ZipCreationUtils.unixTimeToFileTime(extra.getInt(off + localOff)).toMillis());
+						localOff += 4;
+					}
+				}
+				off += size;
+			}
+		}
+		return new EntryContent(entryName, headerSource, info);
+	}
+
+	/**
+	 * Handles ZIP containers when {@link ResourceImporterConfig#getMappedStorage()} is enabled.
+	 * The container is memory-mapped rather than read onto the heap, and so are the contents of its entries.
+	 *
+	 * @param builder
+	 * 		Builder to work with.
+	 * @param path
+	 * 		Path to the ZIP container.
+	 * @param pathName
+	 * 		Name of the ZIP container.
+	 * @param source
+	 * 		Access to the ZIP container content.
+	 *
+	 * @return Read resource.
+	 */
+	private WorkspaceResource handleMappedZip(WorkspaceResourceBuilder builder, Path path,
+											  String pathName, ByteSource source) throws IOException {
+		String name = pathName.substring(pathName.lastIndexOf('/') + 1);
+		ZipFileInfo zipInfo = new ZipFileInfoBuilder()
+				.withContentSource(source)
+				.withName(name)
+				.asTypeOfName(name)
+				.build();
+		InputFilePathProperty.set(zipInfo, path);
+		builder = builder.withFileInfo(zipInfo);
+
+		// Mapped views of the spill file remain valid after it is closed.
+		ZipArchive archive = readArchive(source);
+		try (SpillFile spill = new SpillFile()) {
+			return handleZip(builder, zipInfo, archive, ImportContext.root(config, source, spill, true));
+		}
+	}
+
 	private WorkspaceDirectoryResource handleDirectory(WorkspaceResourceBuilder builder, Path directoryPath) throws IOException {
 		logger.info("Reading input from directory '{}'", directoryPath);
-		BasicJvmClassBundle classes = new BasicJvmClassBundle();
-		BasicFileBundle files = new BasicFileBundle();
+		BasicJvmClassBundle classes = newClassBundle();
+		BasicFileBundle files = newFileBundle();
 		Map<String, AndroidClassBundle> androidClassBundles = new HashMap<>();
 		NavigableMap<Integer, JvmClassBundle> versionedJvmClassBundles = new TreeMap<>();
 		Map<String, WorkspaceFileResource> embeddedResources = new HashMap<>();
+		ImportContext context = ImportContext.root(config, null, null, false);
 
-		// Walk the directory
+		// Walk the directory to collect the files to read.
+		// They are sorted so that the handling of duplicate classes does not depend on the file system.
+		List<Path> filePaths = new ArrayList<>();
 		Files.walkFileTree(directoryPath, new SimpleFileVisitor<>() {
 			@Override
-			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-				try {
-					// Read info from file
-					ByteSource source = ByteSources.forPath(file);
-					String fileName = directoryPath.relativize(file).toString();
-					if (File.separator.equals("\\"))
-						fileName = fileName.replace('\\', '/');
-					Info info = infoImporter.readInfo(fileName, source);
-
-					// Add the info to the appropriate bundle
-					addInfo(classes, files, androidClassBundles, versionedJvmClassBundles, embeddedResources,
-							source, fileName, info);
-				} catch (IOException ex) {
-					logger.error("IO error reading ZIP entry '{}' - skipping", file, ex);
-				}
-
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (!context.tryConsumeEntry(attrs.size()))
+					return FileVisitResult.TERMINATE;
+				filePaths.add(file);
 				return FileVisitResult.CONTINUE;
 			}
 		});
+		filePaths.sort(null);
+
+		// Read the files
+		EntryContent[] entries = new EntryContent[filePaths.size()];
+		if (config.getParallelDirectoryImport().getValue() && filePaths.size() > 1) {
+			// Read the files on the import pool.
+			readEntriesParallel(entries, index -> readDirectoryFile(directoryPath, filePaths.get(index)));
+		} else {
+			for (int i = 0; i < entries.length; i++)
+				entries[i] = readDirectoryFile(directoryPath, filePaths.get(i));
+		}
+
+		// Merge the read files into the bundles in sorted order.
+		for (EntryContent entry : entries) {
+			if (entry == null)
+				continue;
+
+			// Add the info to the appropriate bundle
+			addInfo(classes, files, androidClassBundles, versionedJvmClassBundles, embeddedResources,
+					entry.source(), entry.name(), entry.info(), context);
+		}
+		if (context.shouldReportExhaustedBudget())
+			logger.warn("Import budget exhausted, skipped remaining files of '{}'", directoryPath);
 		return builder
 				.withJvmClassBundle(classes)
 				.withAndroidClassBundles(androidClassBundles)
@@ -286,6 +468,33 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 				.build();
 	}
 
+	/**
+	 * Reads a single file of a directory into an info. This does not touch any bundle state,
+	 * so it is safe to call concurrently for different files.
+	 *
+	 * @param directoryPath
+	 * 		Root directory being imported.
+	 * @param file
+	 * 		File within the directory.
+	 *
+	 * @return Read file, or {@code null} if the file could not be read.
+	 */
+	@Nullable
+	private EntryContent readDirectoryFile(@Nonnull Path directoryPath, @Nonnull Path file) {
+		try {
+			// Read info from file
+			ByteSource source = ByteSources.forPath(file);
+			String fileName = directoryPath.relativize(file).toString();
+			if (File.separator.equals("\\"))
+				fileName = fileName.replace('\\', '/');
+			Info info = infoImporter.readInfo(fileName, source);
+			return new EntryContent(fileName, source, info);
+		} catch (IOException ex) {
+			logger.error("IO error reading file '{}' - skipping", file, ex);
+			return null;
+		}
+	}
+
 	private void addInfo(BasicJvmClassBundle classes,
 						 BasicFileBundle files,
 						 Map<String, AndroidClassBundle> androidClassBundles,
@@ -293,7 +502,8 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 						 Map<String, WorkspaceFileResource> embeddedResources,
 						 ByteSource infoSource,
 						 String pathName,
-						 Info info) {
+						 Info info,
+						 ImportContext context) {
 		if (info.isClass()) {
 			// Must be a JVM class since Android classes do not exist in single-file form.
 			JvmClassInfo classInfo = info.asClass().asJvmClass();
@@ -353,7 +563,7 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 					// Put it into the correct versioned class bundle.
 					int version = Integer.parseInt(versionName);
 					BasicJvmClassBundle bundle = (BasicJvmClassBundle) versionedJvmClassBundles
-							.computeIfAbsent(version, v -> new BasicJvmClassBundle());
+							.computeIfAbsent(version, v -> newClassBundle());
 
 					// Handle duplicate classes
 					JvmClassInfo existingClass = bundle.get(className);
@@ -412,11 +622,22 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 
 			// Check for container file cases (Any ZIP type, JAR/WAR/etc)
 			if (fileInfo.isZipFile()) {
+				if (!context.canDescend()) {
+					logger.warn("Skip extracting embedded ZIP after {} levels: {}", context.getMaxDepth(), pathName);
+					return;
+				}
 				try {
+					// Skipping ZIP bombs
+					ImportContext embeddedContext = context.child(infoSource);
+					if (embeddedContext.isSelfEmbedding()) {
+						logger.warn("Skip self-extracting ZIP bomb: {}", pathName);
+						return;
+					}
+
 					WorkspaceResourceBuilder embeddedResourceBuilder = new WorkspaceResourceBuilder()
 							.withFileInfo(fileInfo);
 					WorkspaceFileResource embeddedResource = handleZip(embeddedResourceBuilder,
-							fileInfo.asZipFile(), infoSource);
+							fileInfo.asZipFile(), readArchive(infoSource), embeddedContext);
 					embeddedResources.put(pathName, embeddedResource);
 				} catch (IOException ex) {
 					logger.error("Failed to read embedded ZIP '{}'", pathName, ex);
@@ -452,6 +673,69 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 		}
 	}
 
+	/**
+	 * Files are memory-mapped, and ZIP entries are parsed in-place from their data in the parent archive.
+	 * Other sources are read fully into memory. Archives of files should be closed once nothing refers
+	 * to their entry data anymore, to release the mapping.
+	 *
+	 * @param source
+	 * 		Source of ZIP container content.
+	 *
+	 * @return Parsed ZIP container, using the strategy from the config.
+	 *
+	 * @throws IOException
+	 * 		When the content cannot be read.
+	 */
+	@Nonnull
+	private ZipArchive readArchive(@Nonnull ByteSource source) throws IOException {
+		ResourceImporterConfig.ZipStrategy strategy = config.getZipStrategy().getValue();
+		if (source instanceof PathByteSource pathSource)
+			return strategy.pathMapping().apply(pathSource.getPath());
+		if (source instanceof LocalFileHeaderSource headerSource)
+			return strategy.dataMapping().apply(headerSource.getData());
+		return strategy.mapping().apply(source.readAll());
+	}
+
+	/**
+	 * @return Text representing the values of the import configs, which affect the imported resource model.
+	 */
+	@Nonnull
+	private String getConfigFingerprint() {
+		StringBuilder sb = new StringBuilder();
+		List<ConfigContainer> containers = new ArrayList<>();
+		containers.add(config);
+		if (infoImporter.getServiceConfig() instanceof ConfigContainer infoConfig)
+			containers.add(infoConfig);
+		for (ConfigContainer container : containers)
+			container.getValues().forEach((key, value) ->
+					sb.append(container.getId()).append('.').append(key).append('=').append(value.getValue()).append('\n'));
+		return sb.toString();
+	}
+
+	/**
+	 * @return {@code true} when the info importer populates class models lazily.
+	 */
+	private boolean isLazyClassModel() {
+		return infoImporter.getServiceConfig() instanceof InfoImporterConfig infoConfig
+				&& infoConfig.getLazyClassModel().getValue();
+	}
+
+	/**
+	 * @return New class bundle, with history depth following the config.
+	 */
+	@Nonnull
+	private BasicJvmClassBundle newClassBundle() {
+		return new BasicJvmClassBundle(new BasicBundleHistory<>(config.getMaxHistoryDepth().getValue()));
+	}
+
+	/**
+	 * @return New file bundle, with history depth following the config.
+	 */
+	@Nonnull
+	private BasicFileBundle newFileBundle() {
+		return new BasicFileBundle(new BasicBundleHistory<>(config.getMaxHistoryDepth().getValue()));
+	}
+
 	/**
 	 * Should <i>ONLY</i> be called if there is an existing duplicate/conflict in the given JVM class bundle.
 	 *
@@ -564,8 +848,8 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 	}
 
 	private WorkspaceResource handleModules(WorkspaceResourceBuilder builder, ModulesFileInfo moduleInfo) throws IOException {
-		BasicJvmClassBundle classes = new BasicJvmClassBundle();
-		BasicFileBundle files = new BasicFileBundle();
+		BasicJvmClassBundle classes = newClassBundle();
+		BasicFileBundle files = newFileBundle();
 
 		// The file-info name should be an absolute path for any non-uri driven import.
 		// We have to use a path because unless we implement our own module reader, the internal API
@@ -616,8 +900,36 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 		if (Files.isDirectory(path)) {
 			return handleDirectory(new WorkspaceResourceBuilder(), path);
 		} else {
+			// Check for a prior snapshot of the same input.
+			String snapshotKey = null;
+			if (snapshotCache != null && config.getSnapshotCache().getValue()) {
+				snapshotKey = snapshotCache.computeKey(path, getConfigFingerprint());
+				WorkspaceResource snapshot = snapshotCache.read(snapshotKey, path, this::newClassBundle,
+						this::newFileBundle, isLazyClassModel());
+				if (snapshot != null) {
+					logger.info("Restored input '{}' from snapshot", absolutePath);
+					return snapshot;
+				}
+			}
+
+			WorkspaceResource resource;
 			ByteSource byteSource = ByteSources.forPath(path);
-			return handleSingle(new WorkspaceResourceBuilder(), absolutePath, byteSource);
+			if (config.getMappedStorage().getValue() && ByteHeaderUtil.match(byteSource.peek(4), ByteHeaderUtil.ZIP))
+				resource = handleMappedZip(new WorkspaceResourceBuilder(), path, absolutePath, byteSource);
+			else
+				resource = handleSingle(new WorkspaceResourceBuilder(), absolutePath, byteSource);
+
+			// Record the snapshot for next time. Only archives are worth recording.
+			if (snapshotKey != null && resource instanceof WorkspaceFileResource fileResource
+					&& fileResource.getFileInfo().isZipFile()) {
+				try {
+					if (snapshotCache.write(snapshotKey, fileResource))
+						snapshotCache.prune(config.getSnapshotCacheMegabytes().getValue() * 1024L * 1024L, snapshotKey);
+				} catch (IOException ex) {
+					logger.warn("Failed to record snapshot of input '{}'", absolutePath, ex);
+				}
+			}
+			return resource;
 		}
 	}
 
@@ -647,4 +959,17 @@ public class BasicResourceImporter implements ResourceImporter, Service {
 	public ResourceImporterConfig getServiceConfig() {
 		return config;
 	}
+
+	/**
+	 * Wrapper of a read ZIP entry or file, pending insertion into a bundle.
+	 *
+	 * @param name
+	 * 		Entry name.
+	 * @param source
+	 * 		Entry content source.
+	 * @param info
+	 * 		Info read from the entry.
+	 */
+	private record EntryContent(@Nonnull String name, @Nonnull ByteSource source, @Nonnull Info info) {
+	}
 }
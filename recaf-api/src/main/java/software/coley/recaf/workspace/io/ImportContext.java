@@ -0,0 +1,241 @@
+package software.coley.recaf.workspace.io;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import software.coley.llzip.util.ByteData;
+import software.coley.recaf.util.io.ByteSource;
+import software.coley.recaf.util.io.LocalFileHeaderSource;
+import software.coley.recaf.util.io.SpillFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of a single resource import, passed down into each nested archive.
+ * <ul>
+ *     <li>Tracks the nesting depth of archives, and the content hashes of the enclosing archives
+ *     to detect self-embedding ZIP bombs.</li>
+ *     <li>Tracks the entry and byte budgets shared by the whole import, limiting how much
+ *     an untrusted input can make us read.</li>
+ *     <li>Holds the storage options of {@link ResourceImporterConfig#getMappedStorage()}.</li>
+ * </ul>
+ *
+ * @author Matt Coley
+ */
+final class ImportContext {
+	private final ImportContext parent;
+	private final ByteSource content;
+	private final Budget budget;
+	private final SpillFile spill;
+	private final boolean archiveMapped;
+	private final int depth;
+	private final int maxDepth;
+	private byte[] contentHash;
+
+	private ImportContext(@Nullable ImportContext parent, @Nullable ByteSource content, @Nonnull Budget budget,
+						  @Nullable SpillFile spill, boolean archiveMapped, int depth, int maxDepth) {
+		this.parent = parent;
+		this.content = content;
+		this.budget = budget;
+		this.spill = spill;
+		this.archiveMapped = archiveMapped;
+		this.depth = depth;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @param config
+	 * 		Config to pull limits from.
+	 * @param content
+	 * 		Content of the input, or {@code null} if the input is not a single file.
+	 * @param spill
+	 * 		Spill file to store compressed entry contents in, or {@code null} to keep contents on the heap.
+	 * @param archiveMapped
+	 * 		{@code true} when the input archive is memory-mapped.
+	 *
+	 * @return New context for the top level of an import.
+	 */
+	@Nonnull
+	static ImportContext root(@Nonnull ResourceImporterConfig config, @Nullable ByteSource content,
+							  @Nullable SpillFile spill, boolean archiveMapped) {
+		int maxMegabytes = config.getMaxImportMegabytes().getValue();
+		Budget budget = new Budget(config.getMaxImportEntries().getValue(),
+				maxMegabytes < 0 ? -1 : maxMegabytes * 1024L * 1024L);
+		return new ImportContext(null, content, budget, spill, archiveMapped, 0, config.getMaxZipDepth().getValue());
+	}
+
+	/**
+	 * @param content
+	 * 		Content of an embedded archive.
+	 *
+	 * @return New context for reading the embedded archive.
+	 */
+	@Nonnull
+	ImportContext child(@Nonnull ByteSource content) {
+		// Uncompressed entries of a mapped archive are slices of the same mapping.
+		boolean childMapped = archiveMapped && content instanceof LocalFileHeaderSource headerSource
+				&& !headerSource.isCompressed();
+		return new ImportContext(this, content, budget, spill, childMapped, depth + 1, maxDepth);
+	}
+
+	/**
+	 * @return {@code true} when archives embedded at this level can be read.
+	 */
+	boolean canDescend() {
+		return depth < maxDepth;
+	}
+
+	/**
+	 * @return Maximum depth of embedded archives.
+	 */
+	int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @return {@code true} when the content of this context is the same as the content of an enclosing context.
+	 *
+	 * @throws IOException
+	 * 		When content cannot be read to be hashed.
+	 */
+	boolean isSelfEmbedding() throws IOException {
+		byte[] hash = getContentHash();
+		if (hash == null)
+			return false;
+		for (ImportContext ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+			byte[] ancestorHash = ancestor.getContentHash();
+			if (ancestorHash != null && MessageDigest.isEqual(hash, ancestorHash))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Consumes budget for an entry. Once either the entry or byte budget is exhausted, no further entries
+	 * should be read for the remainder of the import.
+	 *
+	 * @param size
+	 * 		Size of the entry content.
+	 *
+	 * @return {@code true} when the entry fits in the remaining budget.
+	 * {@code false} when the entry should be skipped.
+	 */
+	boolean tryConsumeEntry(long size) {
+		return budget.tryConsume(size);
+	}
+
+	/**
+	 * Consumes byte budget for content of an entry that was already accepted by {@link #tryConsumeEntry(long)},
+	 * such as content beyond the size an entry declared.
+	 *
+	 * @param size
+	 * 		Number of additional bytes.
+	 *
+	 * @return {@code true} when the bytes fit in the remaining budget.
+	 * {@code false} when the entry should be skipped.
+	 */
+	boolean tryConsumeBytes(long size) {
+		return budget.tryConsumeBytes(size);
+	}
+
+	/**
+	 * @return {@code true} the first time this is called after the budget was exhausted.
+	 * Used to only warn once per import.
+	 */
+	boolean shouldReportExhaustedBudget() {
+		return budget.exhausted.get() && budget.reported.compareAndSet(false, true);
+	}
+
+	/**
+	 * @return Spill file to store compressed entry contents in, or {@code null} to keep contents on the heap.
+	 */
+	@Nullable
+	SpillFile getSpill() {
+		return spill;
+	}
+
+	/**
+	 * @return {@code true} when the archive of this context is memory-mapped, so that uncompressed entries
+	 * can be read from it directly.
+	 */
+	boolean isArchiveMapped() {
+		return archiveMapped;
+	}
+
+	@Nullable
+	private synchronized byte[] getContentHash() throws IOException {
+		if (contentHash == null && content != null)
+			contentHash = hash(content);
+		return contentHash;
+	}
+
+	@Nonnull
+	private static byte[] hash(@Nonnull ByteSource content) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 not supported", ex);
+		}
+		byte[] buffer = new byte[16384];
+		if (content instanceof LocalFileHeaderSource headerSource) {
+			// Read entry data in place. Streams of entry data close the data when they are closed.
+			ByteData data = headerSource.getData();
+			long length = data.length();
+			for (long offset = 0; offset < length; offset += buffer.length) {
+				int count = (int) Math.min(buffer.length, length - offset);
+				data.get(offset, buffer, 0, count);
+				digest.update(buffer, 0, count);
+			}
+		} else {
+			try (InputStream in = content.openStream()) {
+				int read;
+				while ((read = in.read(buffer)) != -1)
+					digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Entry and byte budgets shared by all contexts of an import.
+	 * Negative limits are unbounded.
+	 */
+	private static final class Budget {
+		private final AtomicInteger remainingEntries;
+		private final AtomicLong remainingBytes;
+		private final AtomicBoolean exhausted = new AtomicBoolean();
+		private final AtomicBoolean reported = new AtomicBoolean();
+
+		private Budget(int maxEntries, long maxBytes) {
+			remainingEntries = maxEntries < 0 ? null : new AtomicInteger(maxEntries);
+			remainingBytes = maxBytes < 0 ? null : new AtomicLong(maxBytes);
+		}
+
+		private boolean tryConsume(long size) {
+			if (exhausted.get())
+				return false;
+			if ((remainingEntries != null && remainingEntries.decrementAndGet() < 0) ||
+					(remainingBytes != null && remainingBytes.addAndGet(-size) < 0)) {
+				exhausted.set(true);
+				return false;
+			}
+			return true;
+		}
+
+		private boolean tryConsumeBytes(long size) {
+			if (exhausted.get())
+				return false;
+			if (remainingBytes != null && remainingBytes.addAndGet(-size) < 0) {
+				exhausted.set(true);
+				return false;
+			}
+			return true;
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package software.coley.recaf.workspace.io;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import software.coley.recaf.info.Info;
+import software.coley.recaf.info.builder.FileInfoBuilder;
 import software.coley.recaf.services.Service;
+import software.coley.recaf.util.UncheckedSupplier;
 import software.coley.recaf.util.io.ByteSource;
 
 import java.io.IOException;
@@ -28,4 +31,29 @@ public interface InfoImporter extends Service {
 	 */
 	@Nonnull
 	Info readInfo(String name, ByteSource source) throws IOException;
+
+	/**
+	 * @param name
+	 * 		Name to pass for {@link Info#getName()} if it cannot be inferred from the content source.
+	 * @param source
+	 * 		Source of content to read data from.
+	 * @param fileSource
+	 * 		Supplier of the source to back file content with, rather than copying it onto the heap.
+	 * 		Only called when the content is a file. Classes are always read onto the heap.
+	 * 		May be {@code null} to read files onto the heap as well.
+	 *
+	 * @return Info instance.
+	 *
+	 * @throws IOException
+	 * 		When the content cannot be read.
+	 */
+	@Nonnull
+	default Info readInfo(String name, ByteSource source, @Nullable UncheckedSupplier<ByteSource> fileSource) throws IOException {
+		Info info = readInfo(name, source);
+		if (fileSource == null || !info.isFile())
+			return info;
+		return FileInfoBuilder.forFile(info.asFile())
+				.withContentSource(fileSource.get())
+				.build();
+	}
 }
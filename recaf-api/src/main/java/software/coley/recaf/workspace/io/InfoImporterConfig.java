@@ -2,8 +2,11 @@ package software.coley.recaf.workspace.io;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import software.coley.observables.ObservableBoolean;
 import software.coley.recaf.config.BasicConfigContainer;
+import software.coley.recaf.config.BasicConfigValue;
 import software.coley.recaf.config.ConfigGroups;
+import software.coley.recaf.info.LazyJvmClassInfo;
 import software.coley.recaf.services.ServiceConfig;
 
 /**
@@ -13,8 +16,34 @@ import software.coley.recaf.services.ServiceConfig;
  */
 @ApplicationScoped
 public class InfoImporterConfig extends BasicConfigContainer implements ServiceConfig {
+	private final ObservableBoolean lazyClassModel = new ObservableBoolean(false);
+	private final ObservableBoolean deduplicateContent = new ObservableBoolean(false);
+
 	@Inject
 	public InfoImporterConfig() {
 		super(ConfigGroups.SERVICE_IO, InfoImporter.SERVICE_ID + CONFIG_SUFFIX);
+
+		addValue(new BasicConfigValue<>("lazy-class-model", Boolean.class, lazyClassModel));
+		addValue(new BasicConfigValue<>("deduplicate-content", Boolean.class, deduplicateContent));
+	}
+
+	/**
+	 * When enabled, imported classes only read their header up-front. Members, annotations and other
+	 * parts of the model are populated when first requested.
+	 *
+	 * @return {@code true} to import classes as {@link LazyJvmClassInfo}.
+	 */
+	public ObservableBoolean getLazyClassModel() {
+		return lazyClassModel;
+	}
+
+	/**
+	 * When enabled, imported contents are interned by their hash. Identical classes and files, such as those
+	 * in overlapping libraries or repeated embedded archives, then share a single backing array.
+	 *
+	 * @return {@code true} to share identical contents between imported infos.
+	 */
+	public ObservableBoolean getDeduplicateContent() {
+		return deduplicateContent;
 	}
-}
\ No newline at end of file
+}
@@ -4,12 +4,18 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import software.coley.llzip.ZipIO;
 import software.coley.llzip.format.model.ZipArchive;
+import software.coley.llzip.util.ByteData;
+import software.coley.observables.ObservableBoolean;
+import software.coley.observables.ObservableInteger;
 import software.coley.observables.ObservableObject;
 import software.coley.recaf.config.BasicConfigContainer;
 import software.coley.recaf.config.BasicConfigValue;
 import software.coley.recaf.config.ConfigGroups;
 import software.coley.recaf.services.ServiceConfig;
 import software.coley.recaf.util.UncheckedFunction;
+import software.coley.recaf.workspace.model.bundle.BasicBundleHistory;
+
+import java.nio.file.Path;
 
 /**
  * Config for {@link ResourceImporter}.
@@ -19,12 +25,30 @@ import software.coley.recaf.util.UncheckedFunction;
 @ApplicationScoped
 public class ResourceImporterConfig extends BasicConfigContainer implements ServiceConfig {
 	private final ObservableObject<ZipStrategy> zipStrategy = new ObservableObject<>(ZipStrategy.JVM);
+	private final ObservableBoolean parallelZipImport = new ObservableBoolean(false);
+	private final ObservableBoolean parallelDirectoryImport = new ObservableBoolean(false);
+	private final ObservableInteger maxHistoryDepth = new ObservableInteger(BasicBundleHistory.UNBOUNDED);
+	private final ObservableBoolean mappedStorage = new ObservableBoolean(false);
+	private final ObservableInteger maxZipDepth = new ObservableInteger(3);
+	private final ObservableInteger maxImportEntries = new ObservableInteger(-1);
+	private final ObservableInteger maxImportMegabytes = new ObservableInteger(-1);
+	private final ObservableBoolean snapshotCache = new ObservableBoolean(false);
+	private final ObservableInteger snapshotCacheMegabytes = new ObservableInteger(1024);
 
 	@Inject
 	public ResourceImporterConfig() {
 		super(ConfigGroups.SERVICE_IO, ResourceImporter.SERVICE_ID + CONFIG_SUFFIX);
 
 		addValue(new BasicConfigValue<>("zip-strategy", ZipStrategy.class, zipStrategy));
+		addValue(new BasicConfigValue<>("parallel-zip-import", Boolean.class, parallelZipImport));
+		addValue(new BasicConfigValue<>("parallel-directory-import", Boolean.class, parallelDirectoryImport));
+		addValue(new BasicConfigValue<>("max-history-depth", Integer.class, maxHistoryDepth));
+		addValue(new BasicConfigValue<>("mapped-storage", Boolean.class, mappedStorage));
+		addValue(new BasicConfigValue<>("max-zip-depth", Integer.class, maxZipDepth));
+		addValue(new BasicConfigValue<>("max-import-entries", Integer.class, maxImportEntries));
+		addValue(new BasicConfigValue<>("max-import-megabytes", Integer.class, maxImportMegabytes));
+		addValue(new BasicConfigValue<>("snapshot-cache", Boolean.class, snapshotCache));
+		addValue(new BasicConfigValue<>("snapshot-cache-megabytes", Integer.class, snapshotCacheMegabytes));
 	}
 
 	/**
@@ -34,6 +58,95 @@ public class ResourceImporterConfig extends BasicConfigContainer implements Serv
 		return zipStrategy;
 	}
 
+	/**
+	 * When enabled, ZIP entries are decoded into infos on a worker pool. The decoded entries are then
+	 * merged into their bundles in the order they appear in the archive, so the outcome is the same
+	 * as a sequential import.
+	 *
+	 * @return {@code true} to decode ZIP entries in parallel.
+	 */
+	public ObservableBoolean getParallelZipImport() {
+		return parallelZipImport;
+	}
+
+	/**
+	 * When enabled, files of imported directories are read into infos on a worker pool. The read files are then
+	 * merged into their bundles in sorted path order, so the outcome is the same as a sequential import.
+	 *
+	 * @return {@code true} to read directory files in parallel.
+	 */
+	public ObservableBoolean getParallelDirectoryImport() {
+		return parallelDirectoryImport;
+	}
+
+	/**
+	 * Applies to bundles of imported resources. Includes the original and current states of items.
+	 *
+	 * @return Maximum number of states to keep in the history of each item,
+	 * or {@link BasicBundleHistory#UNBOUNDED} for no limit.
+	 */
+	public ObservableInteger getMaxHistoryDepth() {
+		return maxHistoryDepth;
+	}
+
+	/**
+	 * When enabled, archives imported from files are memory-mapped rather than read onto the heap.
+	 * The contents of non-class entries are not copied onto the heap either. Uncompressed entries are read from
+	 * the mapped archive, and compressed entries are inflated into a memory-mapped spill file.
+	 *
+	 * @return {@code true} to keep imported file contents in memory-mapped storage.
+	 */
+	public ObservableBoolean getMappedStorage() {
+		return mappedStorage;
+	}
+
+	/**
+	 * Embedded archives beyond this depth are skipped.
+	 *
+	 * @return Maximum depth of embedded archives to read.
+	 */
+	public ObservableInteger getMaxZipDepth() {
+		return maxZipDepth;
+	}
+
+	/**
+	 * Limits the total number of entries read in a single import, including entries of embedded archives.
+	 * Entries past the limit are skipped.
+	 *
+	 * @return Maximum number of entries to read in a single import, or {@code -1} for no limit.
+	 */
+	public ObservableInteger getMaxImportEntries() {
+		return maxImportEntries;
+	}
+
+	/**
+	 * Limits the total decompressed size of entries read in a single import, including entries of embedded archives.
+	 * Entries past the limit are skipped.
+	 *
+	 * @return Maximum size in megabytes of entries to read in a single import, or {@code -1} for no limit.
+	 */
+	public ObservableInteger getMaxImportMegabytes() {
+		return maxImportMegabytes;
+	}
+
+	/**
+	 * When enabled, resources imported from ZIP files are recorded in a {@link ResourceSnapshotCache}.
+	 * Importing the same file again with the same config restores the recorded resource rather than
+	 * parsing the file again.
+	 *
+	 * @return {@code true} to cache imported resources on disk.
+	 */
+	public ObservableBoolean getSnapshotCache() {
+		return snapshotCache;
+	}
+
+	/**
+	 * @return Maximum total size in megabytes of cached snapshots. Least recently used snapshots are removed first.
+	 */
+	public ObservableInteger getSnapshotCacheMegabytes() {
+		return snapshotCacheMegabytes;
+	}
+
 	/**
 	 * Mirrors strategies available in {@link ZipIO}.
 	 */
@@ -45,5 +158,15 @@ public class ResourceImporterConfig extends BasicConfigContainer implements Serv
 			if (this == JVM) return ZipIO::readJvm;
 			else return ZipIO::readStandard;
 		}
+
+		public UncheckedFunction<Path, ZipArchive> pathMapping() {
+			if (this == JVM) return ZipIO::readJvm;
+			else return ZipIO::readStandard;
+		}
+
+		public UncheckedFunction<ByteData, ZipArchive> dataMapping() {
+			if (this == JVM) return ZipIO::readJvm;
+			else return ZipIO::readStandard;
+		}
 	}
 }
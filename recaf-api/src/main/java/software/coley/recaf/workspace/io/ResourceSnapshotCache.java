@@ -0,0 +1,459 @@
+package software.coley.recaf.workspace.io;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.info.*;
+import software.coley.recaf.info.builder.*;
+import software.coley.recaf.info.properties.Property;
+import software.coley.recaf.info.properties.builtin.*;
+import software.coley.recaf.util.io.ByteSource;
+import software.coley.recaf.util.io.ByteSources;
+import software.coley.recaf.workspace.model.bundle.BasicFileBundle;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceFileResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of imported resources. Each snapshot holds the contents and properties of every class and file
+ * in a resource, so that re-opening the same input skips ZIP parsing, class patching and file type detection.
+ * <p>
+ * Snapshots are memory-mapped when read. File contents are read from the mapping on demand rather than copied
+ * onto the heap. The content of the input itself is not recorded, since its hash is part of the snapshot key.
+ * Restored resources read it from the input path instead. Resources with Android classes are not cached, since DEX files are decoded into class models
+ * that cannot be restored from their contents alone.
+ *
+ * @author Matt Coley
+ */
+public class ResourceSnapshotCache {
+	private static final Logger logger = Logging.get(ResourceSnapshotCache.class);
+	private static final int MAGIC = 0x5243534E; // RCSN
+	private static final int VERSION = 2;
+	private static final String EXTENSION = ".snapshot";
+	private static final byte TAG_INT = 0;
+	private static final byte TAG_LONG = 1;
+	private static final byte TAG_STRING = 2;
+	private static final byte TAG_PATH = 3;
+	private static final Map<String, BiConsumer<Info, Object>> PROPERTY_RESTORERS = Map.of(
+			ZipCompressionProperty.KEY, (info, value) -> ZipCompressionProperty.set(info, (Integer) value),
+			ZipCommentProperty.KEY, (info, value) -> ZipCommentProperty.set(info, (String) value),
+			ZipModificationTimeProperty.KEY, (info, value) -> ZipModificationTimeProperty.set(info, (Long) value),
+			ZipAccessTimeProperty.KEY, (info, value) -> ZipAccessTimeProperty.set(info, (Long) value),
+			ZipCreationTimeProperty.KEY, (info, value) -> ZipCreationTimeProperty.set(info, (Long) value),
+			PathPrefixProperty.KEY, (info, value) -> PathPrefixProperty.set(info, (String) value),
+			PathSuffixProperty.KEY, (info, value) -> PathSuffixProperty.set(info, (String) value),
+			PathOriginalNameProperty.KEY, (info, value) -> PathOriginalNameProperty.set(info, (String) value),
+			InputFilePathProperty.KEY, (info, value) -> InputFilePathProperty.set(info, (Path) value),
+			VersionedClassProperty.KEY, (info, value) -> {
+				if (info.isClass() && info.asClass().isJvmClass())
+					VersionedClassProperty.set(info.asClass().asJvmClass(), (Integer) value);
+			}
+	);
+	private final Path directory;
+
+	/**
+	 * @param directory
+	 * 		Directory to store snapshots in.
+	 */
+	public ResourceSnapshotCache(@Nonnull Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @param input
+	 * 		Path of the imported file.
+	 * @param configFingerprint
+	 * 		Text representing the import configuration. Snapshots made with other configurations are not reused.
+	 *
+	 * @return Key of the snapshot for the input.
+	 *
+	 * @throws IOException
+	 * 		When the input cannot be read.
+	 */
+	@Nonnull
+	public String computeKey(@Nonnull Path input, @Nonnull String configFingerprint) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 not supported", ex);
+		}
+		digest.update((VERSION + "\n" + input.toAbsolutePath() + "\n" + configFingerprint + "\n")
+				.getBytes(StandardCharsets.UTF_8));
+		byte[] buffer = new byte[16384];
+		try (InputStream in = Files.newInputStream(input)) {
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				digest.update(buffer, 0, read);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * @param key
+	 * 		Key of the snapshot, from {@link #computeKey(Path, String)}.
+	 * @param input
+	 * 		Path of the imported file, which the key was computed from.
+	 * @param classBundleFactory
+	 * 		Factory for the class bundles of the restored resource.
+	 * @param fileBundleFactory
+	 * 		Factory for the file bundles of the restored resource.
+	 * @param lazyClassModel
+	 * 		{@code true} to restore classes with a lazily populated model.
+	 *
+	 * @return Restored resource, or {@code null} if there is no usable snapshot for the key.
+	 */
+	@Nullable
+	public WorkspaceFileResource read(@Nonnull String key,
+									  @Nonnull Path input,
+									  @Nonnull Supplier<BasicJvmClassBundle> classBundleFactory,
+									  @Nonnull Supplier<BasicFileBundle> fileBundleFactory,
+									  boolean lazyClassModel) {
+		Path snapshot = directory.resolve(key + EXTENSION);
+		if (!Files.isRegularFile(snapshot))
+			return null;
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed.
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				throw new IOException("Unknown snapshot format");
+			SnapshotReader reader = new SnapshotReader(buffer, classBundleFactory, fileBundleFactory, lazyClassModel);
+			WorkspaceFileResource resource = reader.readResource(ByteSources.forPath(input));
+
+			// Mark as recently used, so that pruning drops other snapshots first.
+			Files.setLastModifiedTime(snapshot, FileTime.fromMillis(System.currentTimeMillis()));
+			return resource;
+		} catch (Throwable t) {
+			logger.warn("Discarding unreadable snapshot '{}'", key, t);
+			try {
+				Files.deleteIfExists(snapshot);
+			} catch (IOException ignored) {
+				// Will be overwritten by the next snapshot for this key.
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * @param key
+	 * 		Key of the snapshot, from {@link #computeKey(Path, String)}.
+	 * @param resource
+	 * 		Resource to record.
+	 *
+	 * @return {@code true} when the snapshot was written.
+	 * {@code false} when the resource has content that cannot be recorded.
+	 *
+	 * @throws IOException
+	 * 		When the snapshot cannot be written.
+	 */
+	public boolean write(@Nonnull String key, @Nonnull WorkspaceFileResource resource) throws IOException {
+		if (resource.androidClassBundleStreamRecursive().findAny().isPresent())
+			return false;
+
+		// Write to a temporary file first, so that existing mappings of a prior snapshot are not disturbed.
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, key, ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				writeResource(out, resource, false);
+			}
+			Path snapshot = directory.resolve(key + EXTENSION);
+			try {
+				Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes the least recently used snapshots until the total size of the cache is within the given limit.
+	 * Snapshots which cannot be deleted, such as ones still mapped on Windows, are skipped.
+	 *
+	 * @param maxBytes
+	 * 		Maximum total size of snapshots to keep.
+	 * @param currentKey
+	 * 		Key of the snapshot just read or written, which is always kept.
+	 *
+	 * @throws IOException
+	 * 		When the cache directory cannot be listed.
+	 */
+	public void prune(long maxBytes, @Nonnull String currentKey) throws IOException {
+		if (!Files.isDirectory(directory))
+			return;
+		List<Path> snapshots;
+		try (Stream<Path> stream = Files.list(directory)) {
+			snapshots = stream.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+					.sorted(Comparator.comparing((Path path) -> path.toFile().lastModified()).reversed())
+					.toList();
+		}
+		Path current = directory.resolve(currentKey + EXTENSION);
+		long total = 0;
+		for (Path snapshot : snapshots) {
+			if (snapshot.equals(current))
+				continue;
+			try {
+				total += Files.size(snapshot);
+				if (total > maxBytes)
+					Files.deleteIfExists(snapshot);
+			} catch (IOException ex) {
+				logger.debug("Could not prune snapshot '{}'", snapshot.getFileName(), ex);
+			}
+		}
+	}
+
+	private static void writeResource(@Nonnull DataOutputStream out, @Nonnull WorkspaceFileResource resource,
+									  boolean embedded) throws IOException {
+		// Only embedded archives need their content recorded. The root is the input file.
+		writeFile(out, resource.getFileInfo(), embedded);
+		writeClasses(out, resource.getJvmClassBundle());
+		NavigableMap<Integer, JvmClassBundle> versionedBundles = resource.getVersionedJvmClassBundles();
+		out.writeInt(versionedBundles.size());
+		for (Map.Entry<Integer, JvmClassBundle> entry : versionedBundles.entrySet()) {
+			out.writeInt(entry.getKey());
+			writeClasses(out, entry.getValue());
+		}
+		out.writeInt(resource.getFileBundle().size());
+		for (FileInfo file : resource.getFileBundle())
+			writeFile(out, file, true);
+		Map<String, WorkspaceFileResource> embeddedResources = resource.getEmbeddedResources();
+		out.writeInt(embeddedResources.size());
+		for (Map.Entry<String, WorkspaceFileResource> entry : embeddedResources.entrySet()) {
+			writeString(out, entry.getKey());
+			writeResource(out, entry.getValue(), true);
+		}
+	}
+
+	private static void writeClasses(@Nonnull DataOutputStream out, @Nonnull JvmClassBundle bundle) throws IOException {
+		out.writeInt(bundle.size());
+		for (JvmClassInfo classInfo : bundle) {
+			writeProperties(out, classInfo);
+			writeBytes(out, classInfo.getBytecode());
+		}
+	}
+
+	private static void writeFile(@Nonnull DataOutputStream out, @Nonnull FileInfo file,
+								  boolean content) throws IOException {
+		out.writeByte(FileKind.of(file).ordinal());
+		writeString(out, file.getName());
+		writeProperties(out, file);
+		if (content)
+			writeBytes(out, file.getRawContent());
+	}
+
+	private static void writeProperties(@Nonnull DataOutputStream out, @Nonnull Info info) throws IOException {
+		// Only properties we know how to restore are recorded.
+		List<Property<?>> properties = info.getProperties().values().stream()
+				.filter(property -> property.persistent() && PROPERTY_RESTORERS.containsKey(property.key()))
+				.filter(property -> property.value() instanceof Integer || property.value() instanceof Long ||
+						property.value() instanceof String || property.value() instanceof Path)
+				.toList();
+		out.writeInt(properties.size());
+		for (Property<?> property : properties) {
+			writeString(out, property.key());
+			Object value = property.value();
+			if (value instanceof Integer intValue) {
+				out.writeByte(TAG_INT);
+				out.writeInt(intValue);
+			} else if (value instanceof Long longValue) {
+				out.writeByte(TAG_LONG);
+				out.writeLong(longValue);
+			} else if (value instanceof String stringValue) {
+				out.writeByte(TAG_STRING);
+				writeString(out, stringValue);
+			} else {
+				out.writeByte(TAG_PATH);
+				writeString(out, value.toString());
+			}
+		}
+	}
+
+	private static void writeString(@Nonnull DataOutputStream out, @Nonnull String value) throws IOException {
+		writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void writeBytes(@Nonnull DataOutputStream out, @Nonnull byte[] value) throws IOException {
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	/**
+	 * Reads a resource from a mapped snapshot.
+	 */
+	private static class SnapshotReader {
+		private final ByteBuffer buffer;
+		private final Supplier<BasicJvmClassBundle> classBundleFactory;
+		private final Supplier<BasicFileBundle> fileBundleFactory;
+		private final boolean lazyClassModel;
+
+		private SnapshotReader(@Nonnull ByteBuffer buffer,
+							   @Nonnull Supplier<BasicJvmClassBundle> classBundleFactory,
+							   @Nonnull Supplier<BasicFileBundle> fileBundleFactory,
+							   boolean lazyClassModel) {
+			this.buffer = buffer;
+			this.classBundleFactory = classBundleFactory;
+			this.fileBundleFactory = fileBundleFactory;
+			this.lazyClassModel = lazyClassModel;
+		}
+
+		/**
+		 * @param content
+		 * 		Content of the resource's file, or {@code null} when it is recorded in the snapshot.
+		 *
+		 * @return Restored resource.
+		 */
+		@Nonnull
+		private WorkspaceFileResource readResource(@Nullable ByteSource content) {
+			FileInfo fileInfo = readFile(content);
+			BasicJvmClassBundle classes = readClasses();
+			NavigableMap<Integer, JvmClassBundle> versionedJvmClassBundles = new TreeMap<>();
+			int versionCount = buffer.getInt();
+			for (int i = 0; i < versionCount; i++) {
+				int version = buffer.getInt();
+				versionedJvmClassBundles.put(version, readClasses());
+			}
+			BasicFileBundle files = fileBundleFactory.get();
+			int fileCount = buffer.getInt();
+			for (int i = 0; i < fileCount; i++)
+				files.initialPut(readFile(null));
+			Map<String, WorkspaceFileResource> embeddedResources = new HashMap<>();
+			int embeddedCount = buffer.getInt();
+			for (int i = 0; i < embeddedCount; i++) {
+				String path = readString();
+				embeddedResources.put(path, readResource(null));
+			}
+			return new WorkspaceResourceBuilder()
+					.withJvmClassBundle(classes)
+					.withAndroidClassBundles(new HashMap<>())
+					.withVersionedJvmClassBundles(versionedJvmClassBundles)
+					.withFileBundle(files)
+					.withEmbeddedResources(embeddedResources)
+					.withFileInfo(fileInfo)
+					.build();
+		}
+
+		@Nonnull
+		private BasicJvmClassBundle readClasses() {
+			BasicJvmClassBundle bundle = classBundleFactory.get();
+			int count = buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				Map<String, Object> properties = readProperties();
+				byte[] bytecode = new byte[buffer.getInt()];
+				buffer.get(bytecode);
+
+				// The bytecode was already patched when the snapshot was made, so it can be read as-is.
+				ClassReader reader = new ClassReader(bytecode);
+				JvmClassInfo classInfo = lazyClassModel ?
+						new JvmClassInfoBuilder().adaptHeaderFrom(reader).buildLazy() :
+						new JvmClassInfoBuilder(reader).build();
+				restoreProperties(classInfo, properties);
+				bundle.initialPut(classInfo);
+			}
+			return bundle;
+		}
+
+		@Nonnull
+		private FileInfo readFile(@Nullable ByteSource content) {
+			FileKind kind = FileKind.values()[buffer.get()];
+			String name = readString();
+			Map<String, Object> properties = readProperties();
+			if (content == null) {
+				int length = buffer.getInt();
+				content = ByteSources.forBuffer(buffer.slice(buffer.position(), length));
+				buffer.position(buffer.position() + length);
+			}
+			FileInfo file = kind.build(name, content);
+			restoreProperties(file, properties);
+			return file;
+		}
+
+		@Nonnull
+		private Map<String, Object> readProperties() {
+			int count = buffer.getInt();
+			Map<String, Object> properties = new LinkedHashMap<>(count);
+			for (int i = 0; i < count; i++) {
+				String key = readString();
+				Object value = switch (buffer.get()) {
+					case TAG_INT -> buffer.getInt();
+					case TAG_LONG -> buffer.getLong();
+					case TAG_STRING -> readString();
+					case TAG_PATH -> Paths.get(readString());
+					default -> throw new IllegalStateException("Unknown property tag");
+				};
+				properties.put(key, value);
+			}
+			return properties;
+		}
+
+		@Nonnull
+		private String readString() {
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private static void restoreProperties(@Nonnull Info info, @Nonnull Map<String, Object> properties) {
+			properties.forEach((key, value) -> PROPERTY_RESTORERS.get(key).accept(info, value));
+		}
+	}
+
+	/**
+	 * Recorded type of file info, so that restoring does not need to detect the type from the content again.
+	 */
+	private enum FileKind {
+		FILE, TEXT, ZIP, JAR, APK, WAR, JMOD, DEX, MODULES, ARSC, BINARY_XML;
+
+		@Nonnull
+		private static FileKind of(@Nonnull FileInfo file) {
+			if (file instanceof JarFileInfo) return JAR;
+			if (file instanceof ApkFileInfo) return APK;
+			if (file instanceof WarFileInfo) return WAR;
+			if (file instanceof JModFileInfo) return JMOD;
+			if (file.isZipFile()) return ZIP;
+			if (file instanceof DexFileInfo) return DEX;
+			if (file instanceof ModulesFileInfo) return MODULES;
+			if (file instanceof ArscFileInfo) return ARSC;
+			if (file instanceof BinaryXmlFileInfo) return BINARY_XML;
+			if (file instanceof TextFileInfo) return TEXT;
+			return FILE;
+		}
+
+		@Nonnull
+		private FileInfo build(@Nonnull String name, @Nonnull ByteSource content) {
+			return switch (this) {
+				case FILE -> new BasicFileInfo(new FileInfoBuilder<>().withName(name).withContentSource(content));
+				case TEXT -> new TextFileInfoBuilder().withName(name).withContentSource(content).build();
+				case ZIP -> new ZipFileInfoBuilder().withName(name).withContentSource(content).build();
+				case JAR -> new ZipFileInfoBuilder().withName(name).withContentSource(content).asJar().build();
+				case APK -> new ZipFileInfoBuilder().withName(name).withContentSource(content).asApk().build();
+				case WAR -> new ZipFileInfoBuilder().withName(name).withContentSource(content).asWar().build();
+				case JMOD -> new ZipFileInfoBuilder().withName(name).withContentSource(content).asJMod().build();
+				case DEX -> new DexFileInfoBuilder().withName(name).withContentSource(content).build();
+				case MODULES -> new ModulesFileInfoBuilder().withName(name).withContentSource(content).build();
+				case ARSC -> new ArscFileInfoBuilder().withName(name).withContentSource(content).build();
+				case BINARY_XML -> new BinaryXmlFileInfoBuilder().withName(name).withContentSource(content).build();
+			};
+		}
+	}
+}
@@ -1,9 +1,14 @@
 package software.coley.recaf.workspace.model;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import software.coley.recaf.behavior.Closing;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.path.ClassPathNode;
+import software.coley.recaf.path.PathNodes;
 import software.coley.recaf.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.WorkspaceModificationListener;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
 import software.coley.recaf.workspace.model.resource.AndroidApiResource;
 import software.coley.recaf.workspace.model.resource.RuntimeWorkspaceResource;
 import software.coley.recaf.workspace.model.resource.WorkspaceResource;
@@ -23,6 +28,7 @@ public class BasicWorkspace implements Workspace {
 	private final WorkspaceResource primary;
 	private final List<WorkspaceResource> supporting = new ArrayList<>();
 	private final List<WorkspaceResource> internal;
+	private final ClassNameIndex classIndex = new ClassNameIndex(this);
 
 	/**
 	 * @param primary
@@ -72,6 +78,7 @@ public class BasicWorkspace implements Workspace {
 	@Override
 	public void addSupportingResource(@Nonnull WorkspaceResource resource) {
 		supporting.add(resource);
+		classIndex.reset();
 		for (WorkspaceModificationListener listener : modificationListeners) {
 			listener.onAddLibrary(this, resource);
 		}
@@ -81,6 +88,7 @@ public class BasicWorkspace implements Workspace {
 	public boolean removeSupportingResource(@Nonnull WorkspaceResource resource) {
 		boolean remove = supporting.remove(resource);
 		if (remove) {
+			classIndex.reset();
 			for (WorkspaceModificationListener listener : modificationListeners) {
 				listener.onRemoveLibrary(this, resource);
 			}
@@ -88,6 +96,41 @@ public class BasicWorkspace implements Workspace {
 		return remove;
 	}
 
+	@Nullable
+	@Override
+	public ClassPathNode findJvmClass(@Nonnull String name) {
+		if (!classIndex.isAvailable())
+			return Workspace.super.findJvmClass(name);
+		ClassPathNode path = classIndex.getJvmClass(name);
+		if (path != null)
+			return path;
+
+		// Internal resources load their classes on demand, so they are not indexed and must be checked directly.
+		for (WorkspaceResource resource : internal) {
+			JvmClassBundle bundle = resource.getJvmClassBundle();
+			JvmClassInfo classInfo = bundle.get(name);
+			if (classInfo != null)
+				return PathNodes.classPath(this, resource, bundle, classInfo);
+		}
+		return null;
+	}
+
+	@Nullable
+	@Override
+	public ClassPathNode findLatestVersionedJvmClass(@Nonnull String name) {
+		if (!classIndex.isAvailable())
+			return Workspace.super.findLatestVersionedJvmClass(name);
+		return classIndex.getLatestVersionedJvmClass(name);
+	}
+
+	@Nullable
+	@Override
+	public ClassPathNode findAndroidClass(@Nonnull String name) {
+		if (!classIndex.isAvailable())
+			return Workspace.super.findAndroidClass(name);
+		return classIndex.getAndroidClass(name);
+	}
+
 	@Nonnull
 	@Override
 	public List<WorkspaceModificationListener> getWorkspaceModificationListeners() {
@@ -110,6 +153,7 @@ public class BasicWorkspace implements Workspace {
 	@Override
 	public void close() {
 		modificationListeners.clear();
+		classIndex.reset();
 		supporting.forEach(Closing::close);
 		primary.close();
 	}
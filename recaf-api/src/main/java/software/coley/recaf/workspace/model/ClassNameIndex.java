@@ -0,0 +1,226 @@
+package software.coley.recaf.workspace.model;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import software.coley.recaf.info.AndroidClassInfo;
+import software.coley.recaf.info.ClassInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.path.ClassPathNode;
+import software.coley.recaf.path.PathNodes;
+import software.coley.recaf.workspace.model.bundle.AndroidClassBundle;
+import software.coley.recaf.workspace.model.bundle.BasicBundle;
+import software.coley.recaf.workspace.model.bundle.Bundle;
+import software.coley.recaf.workspace.model.bundle.BundleListener;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.BasicWorkspaceResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceRemoteVmResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of class names to paths in a workspace, so class lookups are a single map lookup rather than
+ * checking each bundle of each resource in turn.
+ * <p>
+ * For each name, the path is the same as what the lookups in {@link Workspace} would find, following resource
+ * priority order. Listeners on the indexed bundles keep the index up to date as classes are added, updated and
+ * removed. Internal resources are not indexed, as their classes are loaded on demand.
+ *
+ * @author Matt Coley
+ */
+class ClassNameIndex {
+	private final Map<String, ClassPathNode> jvmClasses = new ConcurrentHashMap<>();
+	private final Map<String, ClassPathNode> versionedJvmClasses = new ConcurrentHashMap<>();
+	private final Map<String, ClassPathNode> androidClasses = new ConcurrentHashMap<>();
+	private final List<Runnable> listenerRemovals = new ArrayList<>();
+	private final Workspace workspace;
+	private volatile boolean built;
+	private boolean available;
+
+	/**
+	 * @param workspace
+	 * 		Workspace to index.
+	 */
+	ClassNameIndex(@Nonnull Workspace workspace) {
+		this.workspace = workspace;
+	}
+
+	/**
+	 * Populates the index on first use.
+	 *
+	 * @return {@code true} when the index can be used for lookups.
+	 * {@code false} when the workspace has resources whose contents can change without notifying listeners,
+	 * such as remote VM resources which populate their classes as they are discovered.
+	 */
+	boolean isAvailable() {
+		if (!built)
+			build();
+		return available;
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 *
+	 * @return Path to the first JVM class matching the given name, in non-internal resources.
+	 */
+	@Nullable
+	ClassPathNode getJvmClass(@Nonnull String name) {
+		return jvmClasses.get(name);
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 *
+	 * @return Path to the first class matching the given name, in the latest versioned JVM class bundle of resources.
+	 */
+	@Nullable
+	ClassPathNode getLatestVersionedJvmClass(@Nonnull String name) {
+		return versionedJvmClasses.get(name);
+	}
+
+	/**
+	 * @param name
+	 * 		Class name.
+	 *
+	 * @return Path to the first Android class matching the given name.
+	 */
+	@Nullable
+	ClassPathNode getAndroidClass(@Nonnull String name) {
+		return androidClasses.get(name);
+	}
+
+	/**
+	 * Clears the index, to be populated again on next use.
+	 * Called when resources are added to, or removed from, the workspace.
+	 */
+	synchronized void reset() {
+		listenerRemovals.forEach(Runnable::run);
+		listenerRemovals.clear();
+		jvmClasses.clear();
+		versionedJvmClasses.clear();
+		androidClasses.clear();
+		built = false;
+	}
+
+	private synchronized void build() {
+		if (built)
+			return;
+		List<WorkspaceResource> resources = workspace.getAllResources(false);
+		available = resources.stream().allMatch(r -> r instanceof BasicWorkspaceResource
+				&& !(r instanceof WorkspaceRemoteVmResource));
+		if (available) {
+			// Go in reverse priority order, so entries of higher priority resources replace those of lower priority.
+			// Listeners are registered before taking each snapshot, so that changes made while the snapshot is taken
+			// are not missed. They wait on this build to finish, then look up the changed class again.
+			for (int i = resources.size() - 1; i >= 0; i--) {
+				WorkspaceResource resource = resources.get(i);
+				JvmClassBundle jvmBundle = resource.getJvmClassBundle();
+				listen(jvmBundle);
+				for (JvmClassInfo classInfo : jvmBundle.values())
+					jvmClasses.put(classInfo.getName(), PathNodes.classPath(workspace, resource, jvmBundle, classInfo));
+
+				resource.getVersionedJvmClassBundles().values().forEach(this::listen);
+
+				Map.Entry<Integer, JvmClassBundle> latest = resource.getVersionedJvmClassBundles().lastEntry();
+				if (latest != null) {
+					JvmClassBundle versionedBundle = latest.getValue();
+					for (JvmClassInfo classInfo : versionedBundle.values())
+						versionedJvmClasses.put(classInfo.getName(),
+								PathNodes.classPath(workspace, resource, versionedBundle, classInfo));
+				}
+
+				List<AndroidClassBundle> androidBundles = new ArrayList<>(resource.getAndroidClassBundles().values());
+				for (int j = androidBundles.size() - 1; j >= 0; j--) {
+					AndroidClassBundle androidBundle = androidBundles.get(j);
+					listen(androidBundle);
+					for (AndroidClassInfo classInfo : androidBundle.values())
+						androidClasses.put(classInfo.getName(),
+								PathNodes.classPath(workspace, resource, androidBundle, classInfo));
+				}
+			}
+		}
+		built = true;
+	}
+
+	private <I extends ClassInfo> void listen(@Nonnull Bundle<I> bundle) {
+		BundleListener<I> listener = new BundleListener<>() {
+			@Override
+			public void onNewItem(String key, I value) {
+				refresh(key);
+			}
+
+			@Override
+			public void onUpdateItem(String key, I oldValue, I newValue) {
+				refresh(key);
+			}
+
+			@Override
+			public void onRemoveItem(String key, I value) {
+				refresh(key);
+			}
+		};
+		// Update ahead of other listeners, as they may look up the changed class while handling the change.
+		if (bundle instanceof BasicBundle<I> basicBundle)
+			basicBundle.addPriorityBundleListener(listener);
+		else
+			bundle.addBundleListener(listener);
+		listenerRemovals.add(() -> bundle.removeBundleListener(listener));
+	}
+
+	/**
+	 * Looks up the given name across resources again, since a change in one bundle can reveal or hide
+	 * a class of the same name in a lower priority resource.
+	 *
+	 * @param name
+	 * 		Name of class that was changed.
+	 */
+	private synchronized void refresh(@Nonnull String name) {
+		if (!built || !available)
+			return;
+		ClassPathNode jvmPath = null;
+		ClassPathNode versionedPath = null;
+		ClassPathNode androidPath = null;
+		for (WorkspaceResource resource : workspace.getAllResources(false)) {
+			if (jvmPath == null) {
+				JvmClassBundle bundle = resource.getJvmClassBundle();
+				JvmClassInfo classInfo = bundle.get(name);
+				if (classInfo != null)
+					jvmPath = PathNodes.classPath(workspace, resource, bundle, classInfo);
+			}
+			if (versionedPath == null) {
+				Map.Entry<Integer, JvmClassBundle> latest = resource.getVersionedJvmClassBundles().lastEntry();
+				if (latest != null) {
+					JvmClassBundle bundle = latest.getValue();
+					JvmClassInfo classInfo = bundle.get(name);
+					if (classInfo != null)
+						versionedPath = PathNodes.classPath(workspace, resource, bundle, classInfo);
+				}
+			}
+			if (androidPath == null) {
+				for (AndroidClassBundle bundle : resource.getAndroidClassBundles().values()) {
+					AndroidClassInfo classInfo = bundle.get(name);
+					if (classInfo != null) {
+						androidPath = PathNodes.classPath(workspace, resource, bundle, classInfo);
+						break;
+					}
+				}
+			}
+		}
+		update(jvmClasses, name, jvmPath);
+		update(versionedJvmClasses, name, versionedPath);
+		update(androidClasses, name, androidPath);
+	}
+
+	private static void update(@Nonnull Map<String, ClassPathNode> map, @Nonnull String name,
+							   @Nullable ClassPathNode path) {
+		if (path == null)
+			map.remove(name);
+		else
+			map.put(name, path);
+	}
+}
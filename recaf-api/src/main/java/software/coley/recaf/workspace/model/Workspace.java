@@ -201,21 +201,13 @@ public interface Workspace extends Closing {
 		// Map '.' to '/' in case users pass in the common dot format instead.
 		name = name.replace('.', '/');
 
-		// Modify input such that the package name we compare against ends with '/'.
-		// This prevents confusing matches like "com/example/a" from matching against contents in "com/example/abc".
-		String cmp;
-		if (name.endsWith("/")) {
-			cmp = name;
+		// Trim any trailing '/' so "com/example/" and "com/example" are treated the same.
+		if (name.endsWith("/"))
 			name = name.substring(0, name.length() - 1);
-		} else {
-			cmp = name + "/";
-		}
 		for (WorkspaceResource resource : getAllResources(false)) {
 			for (ClassBundle<? extends ClassInfo> bundle : resource.classBundleStream().toList()) {
-				for (String key : bundle.keySet()) {
-					if (key.startsWith(cmp))
-						return PathNodes.directoryPath(this, resource, bundle, name);
-				}
+				if (bundle.hasPackage(name))
+					return PathNodes.directoryPath(this, resource, bundle, name);
 			}
 		}
 		return null;
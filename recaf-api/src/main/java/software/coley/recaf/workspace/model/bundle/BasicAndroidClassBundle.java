@@ -1,5 +1,6 @@
 package software.coley.recaf.workspace.model.bundle;
 
+import jakarta.annotation.Nonnull;
 import software.coley.recaf.info.AndroidClassInfo;
 
 /**
@@ -8,4 +9,18 @@ import software.coley.recaf.info.AndroidClassInfo;
  * @author Matt Coley
  */
 public class BasicAndroidClassBundle extends BasicBundle<AndroidClassInfo> implements AndroidClassBundle {
+	/**
+	 * New bundle with unbounded history.
+	 */
+	public BasicAndroidClassBundle() {
+		super();
+	}
+
+	/**
+	 * @param history
+	 * 		History store to record prior states of items in.
+	 */
+	public BasicAndroidClassBundle(@Nonnull BundleHistory<AndroidClassInfo> history) {
+		super(history);
+	}
 }
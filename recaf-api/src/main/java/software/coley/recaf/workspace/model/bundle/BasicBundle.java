@@ -19,9 +19,25 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class BasicBundle<I extends Info> implements Bundle<I> {
 	private static final Logger logger = Logging.get(BasicBundle.class);
-	private final Map<String, Stack<I>> history = new ConcurrentHashMap<>();
 	private final List<BundleListener<I>> listeners = new CopyOnWriteArrayList<>();
 	private final Map<String, I> backing = new ConcurrentHashMap<>();
+	private final PackageIndex packages = new PackageIndex();
+	private final BundleHistory<I> history;
+
+	/**
+	 * New bundle with unbounded history.
+	 */
+	public BasicBundle() {
+		this(new BasicBundleHistory<>());
+	}
+
+	/**
+	 * @param history
+	 * 		History store to record prior states of items in.
+	 */
+	public BasicBundle(@Nonnull BundleHistory<I> history) {
+		this.history = history;
+	}
 
 	/**
 	 * Create initial history item.
@@ -30,9 +46,7 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 	 * 		Origin item.
 	 */
 	private void initHistory(@Nonnull I info) {
-		Stack<I> itemHistory = new Stack<>();
-		itemHistory.push(info);
-		history.put(info.getName(), itemHistory);
+		history.initHistory(info);
 	}
 
 	/**
@@ -43,6 +57,7 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 	 */
 	public void initialPut(@Nonnull I info) {
 		backing.put(info.getName(), info);
+		packages.add(info.getName());
 		initHistory(info);
 	}
 
@@ -60,64 +75,42 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 	}
 
 	/**
-	 * History contains a stack of prior states of items.
-	 * If an item has not been modified there is no entry in this map.
+	 * History contains prior states of items.
+	 * If an item has not been modified there is only the original state recorded.
 	 *
-	 * @return Map of historical states of items within this bundle.
+	 * @return Store of historical states of items within this bundle.
 	 */
 	@Nonnull
-	protected Map<String, Stack<I>> getHistory() {
+	protected BundleHistory<I> getHistory() {
 		return history;
 	}
 
 	@Override
 	public Stack<I> getHistory(@Nonnull String key) {
-		return history.get(key);
+		return history.getHistory(key);
 	}
 
 	@Nonnull
 	@Override
 	public Set<String> getDirtyKeys() {
-		Set<String> dirty = new TreeSet<>();
-		history.forEach((key, itemHistory) -> {
-			if (itemHistory.size() > 1) {
-				dirty.add(key);
-			}
-		});
-		return dirty;
+		return history.getDirtyKeys();
 	}
 
 	@Override
 	public boolean hasHistory(@Nonnull String key) {
-		return history.get(key) != null;
+		return history.hasHistory(key);
 	}
 
 	@Override
 	public void incrementHistory(@Nonnull I info) {
-		String key = info.getName();
-		Stack<I> itemHistory = getHistory(key);
-		if (itemHistory == null) {
-			throw new IllegalStateException("Failed history increment, no prior history to build on for: " + key);
-		}
-		// logger.debug("Increment history: {} - {} states", EscapeUtil.escapeCommon(key), itemHistory.size());
-		itemHistory.push(info);
+		history.incrementHistory(info);
 	}
 
 	@Override
 	public void decrementHistory(@Nonnull String key) {
-		Stack<I> itemHistory = getHistory(key);
-		if (itemHistory == null) {
-			throw new IllegalStateException("Failed history decrement, no prior history to read from for: " + key);
-		}
-		int size = itemHistory.size();
 		// Update map with prior entry
 		I currentItem = get(key);
-		I priorItem;
-		if (size > 1) {
-			priorItem = itemHistory.pop();
-		} else {
-			priorItem = itemHistory.peek();
-		}
+		I priorItem = history.decrementHistory(key);
 		backing.put(key, priorItem);
 		// Notify listener
 		for (BundleListener<I> listener : listeners) {
@@ -129,11 +122,39 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 		}
 	}
 
+	@Override
+	public boolean hasPackage(@Nonnull String packageName) {
+		return packages.hasPackage(packageName);
+	}
+
+	@Nonnull
+	@Override
+	public Set<String> getKeysInPackage(@Nonnull String packageName) {
+		return packages.getKeysInPackage(packageName);
+	}
+
+	@Nonnull
+	@Override
+	public Set<String> getKeysUnderPackage(@Nonnull String packageName) {
+		return packages.getKeysUnderPackage(packageName);
+	}
+
 	@Override
 	public void addBundleListener(@Nonnull BundleListener<I> listener) {
 		listeners.add(listener);
 	}
 
+	/**
+	 * Adds a listener that is notified ahead of all other listeners.
+	 * Used by indices over bundle contents, so that other listeners see the index already updated.
+	 *
+	 * @param listener
+	 * 		Listener to add.
+	 */
+	public void addPriorityBundleListener(@Nonnull BundleListener<I> listener) {
+		listeners.add(0, listener);
+	}
+
 	@Override
 	public void removeBundleListener(@Nonnull BundleListener<I> listener) {
 		listeners.remove(listener);
@@ -172,6 +193,8 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 	@Override
 	public I put(@Nonnull String key, @Nonnull I newValue) {
 		I oldValue = backing.put(key, newValue);
+		if (oldValue == null)
+			packages.add(key);
 		// Notify listener
 		for (BundleListener<I> listener : listeners) {
 			try {
@@ -197,6 +220,7 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 	public I remove(@Nonnull Object key) {
 		I info = backing.remove(key);
 		if (info != null) {
+			packages.remove((String) key);
 			// Notify listener
 			for (BundleListener<I> listener : listeners) {
 				try {
@@ -206,7 +230,7 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 				}
 			}
 			// Update history
-			history.remove(key);
+			history.removeHistory((String) key);
 		}
 		return info;
 	}
@@ -219,6 +243,7 @@ public class BasicBundle<I extends Info> implements Bundle<I> {
 	@Override
 	public void clear() {
 		backing.clear();
+		packages.clear();
 		history.clear();
 	}
 
@@ -0,0 +1,240 @@
+package software.coley.recaf.workspace.model.bundle;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import software.coley.recaf.info.Info;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Basic bundle history implementation, keeping a stack of states per item.
+ * <ul>
+ *     <li>Recorded states with the same content and properties as a prior state of the same item share the prior
+ *     instance, so that round trips such as applying and then reverting a mapping do not retain duplicate copies.
+ *     Content is compared by its length and SHA-256 digest, computed once per state, so that the history does
+ *     not hold onto the content of states which are otherwise only read on demand.</li>
+ *     <li>An optional depth cap limits the number of states kept per item. The original state is always kept,
+ *     and the oldest states after it are dropped first.</li>
+ * </ul>
+ *
+ * @param <I>
+ * 		Item type.
+ *
+ * @author Matt Coley
+ */
+public class BasicBundleHistory<I extends Info> implements BundleHistory<I> {
+	/**
+	 * Depth value for no limit on the number of states kept per item.
+	 */
+	public static final int UNBOUNDED = -1;
+	private final Map<String, Stack<I>> history = new ConcurrentHashMap<>();
+	private final Map<String, List<ContentDigest>> digests = new ConcurrentHashMap<>();
+	private final int maxDepth;
+
+	/**
+	 * New history with no depth cap.
+	 */
+	public BasicBundleHistory() {
+		this(UNBOUNDED);
+	}
+
+	/**
+	 * @param maxDepth
+	 * 		Maximum number of states to keep per item, including the original and current states.
+	 * 		Values of zero or below are treated as {@link #UNBOUNDED}.
+	 * 		Positive values are raised to at least {@code 2} so the original and current states are both kept.
+	 */
+	public BasicBundleHistory(int maxDepth) {
+		this.maxDepth = maxDepth <= 0 ? UNBOUNDED : Math.max(2, maxDepth);
+	}
+
+	/**
+	 * @return Maximum number of states to keep per item, or {@link #UNBOUNDED}.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	@Override
+	public void initHistory(@Nonnull I info) {
+		Stack<I> itemHistory = new Stack<>();
+		itemHistory.push(info);
+		history.put(info.getName(), itemHistory);
+		digests.remove(info.getName());
+	}
+
+	@Override
+	public void incrementHistory(@Nonnull I info) {
+		String key = info.getName();
+		Stack<I> itemHistory = history.get(key);
+		if (itemHistory == null) {
+			throw new IllegalStateException("Failed history increment, no prior history to build on for: " + key);
+		}
+		synchronized (itemHistory) {
+			List<ContentDigest> itemDigests = getDigests(key, itemHistory);
+			ContentDigest digest = ContentDigest.of(info);
+			itemHistory.push(deduplicate(itemHistory, itemDigests, info, digest));
+			itemDigests.add(digest);
+
+			// Drop the oldest states after the original if we are over the cap.
+			if (maxDepth != UNBOUNDED) {
+				while (itemHistory.size() > maxDepth) {
+					itemHistory.remove(1);
+					itemDigests.remove(1);
+				}
+			}
+		}
+	}
+
+	@Nonnull
+	@Override
+	public I decrementHistory(@Nonnull String key) {
+		Stack<I> itemHistory = history.get(key);
+		if (itemHistory == null) {
+			throw new IllegalStateException("Failed history decrement, no prior history to read from for: " + key);
+		}
+		synchronized (itemHistory) {
+			if (itemHistory.size() > 1) {
+				List<ContentDigest> itemDigests = digests.get(key);
+				if (itemDigests != null && itemDigests.size() == itemHistory.size())
+					itemDigests.remove(itemDigests.size() - 1);
+				return itemHistory.pop();
+			}
+			return itemHistory.peek();
+		}
+	}
+
+	@Nullable
+	@Override
+	public Stack<I> getHistory(@Nonnull String key) {
+		return history.get(key);
+	}
+
+	@Override
+	public boolean hasHistory(@Nonnull String key) {
+		return history.get(key) != null;
+	}
+
+	@Nonnull
+	@Override
+	public Set<String> getDirtyKeys() {
+		Set<String> dirty = new TreeSet<>();
+		history.forEach((key, itemHistory) -> {
+			if (itemHistory.size() > 1) {
+				dirty.add(key);
+			}
+		});
+		return dirty;
+	}
+
+	@Override
+	public void removeHistory(@Nonnull String key) {
+		history.remove(key);
+		digests.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		history.clear();
+		digests.clear();
+	}
+
+	/**
+	 * @param key
+	 * 		Item key.
+	 * @param itemHistory
+	 * 		Existing states of the item.
+	 *
+	 * @return Content digests of the existing states, in the same order.
+	 */
+	@Nonnull
+	private List<ContentDigest> getDigests(@Nonnull String key, @Nonnull Stack<I> itemHistory) {
+		List<ContentDigest> itemDigests = digests.computeIfAbsent(key, k -> new ArrayList<>());
+
+		// The stack is exposed by getHistory(String), so recompute if it was modified outside this class.
+		if (itemDigests.size() != itemHistory.size()) {
+			itemDigests.clear();
+			for (I state : itemHistory)
+				itemDigests.add(ContentDigest.of(state));
+		}
+		return itemDigests;
+	}
+
+	/**
+	 * @param itemHistory
+	 * 		Existing states of an item.
+	 * @param itemDigests
+	 * 		Content digests of the existing states.
+	 * @param info
+	 * 		New state of the item.
+	 * @param digest
+	 * 		Content digest of the new state.
+	 *
+	 * @return Prior state with the same content and properties as the new state if one exists, otherwise the new state.
+	 */
+	@Nonnull
+	private I deduplicate(@Nonnull Stack<I> itemHistory, @Nonnull List<ContentDigest> itemDigests,
+						  @Nonnull I info, @Nullable ContentDigest digest) {
+		if (digest == null)
+			return info;
+		for (int i = 0; i < itemHistory.size(); i++) {
+			I state = itemHistory.get(i);
+			if (state != info && digest.matches(itemDigests.get(i))
+					&& state.getProperties().equals(info.getProperties()))
+				return state;
+		}
+		return info;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+
+		BasicBundleHistory<?> other = (BasicBundleHistory<?>) o;
+
+		return history.equals(other.history);
+	}
+
+	@Override
+	public int hashCode() {
+		return history.hashCode();
+	}
+
+	/**
+	 * @param length
+	 * 		Length of the content.
+	 * @param sha256
+	 * 		SHA-256 digest of the content, the bytecode of classes or the raw content of files.
+	 */
+	private record ContentDigest(int length, @Nonnull byte[] sha256) {
+		/**
+		 * @param info
+		 * 		Some state.
+		 *
+		 * @return Digest of the state content, or {@code null} if the state type has no raw content to compare.
+		 */
+		@Nullable
+		private static ContentDigest of(@Nonnull Info info) {
+			byte[] content;
+			if (info.isClass() && info.asClass().isJvmClass())
+				content = info.asClass().asJvmClass().getBytecode();
+			else if (info.isFile())
+				content = info.asFile().getRawContent();
+			else
+				return null;
+			try {
+				return new ContentDigest(content.length, MessageDigest.getInstance("SHA-256").digest(content));
+			} catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException("SHA-256 not supported", ex);
+			}
+		}
+
+		private boolean matches(@Nullable ContentDigest other) {
+			return other != null && length == other.length && Arrays.equals(sha256, other.sha256);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package software.coley.recaf.workspace.model.bundle;
 
+import jakarta.annotation.Nonnull;
 import software.coley.recaf.info.FileInfo;
 
 /**
@@ -8,4 +9,18 @@ import software.coley.recaf.info.FileInfo;
  * @author Matt Coley
  */
 public class BasicFileBundle extends BasicBundle<FileInfo> implements FileBundle {
+	/**
+	 * New bundle with unbounded history.
+	 */
+	public BasicFileBundle() {
+		super();
+	}
+
+	/**
+	 * @param history
+	 * 		History store to record prior states of items in.
+	 */
+	public BasicFileBundle(@Nonnull BundleHistory<FileInfo> history) {
+		super(history);
+	}
 }
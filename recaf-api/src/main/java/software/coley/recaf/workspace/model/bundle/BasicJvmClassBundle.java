@@ -1,5 +1,6 @@
 package software.coley.recaf.workspace.model.bundle;
 
+import jakarta.annotation.Nonnull;
 import software.coley.recaf.info.JvmClassInfo;
 
 /**
@@ -8,4 +9,18 @@ import software.coley.recaf.info.JvmClassInfo;
  * @author Matt Coley
  */
 public class BasicJvmClassBundle extends BasicBundle<JvmClassInfo> implements JvmClassBundle {
+	/**
+	 * New bundle with unbounded history.
+	 */
+	public BasicJvmClassBundle() {
+		super();
+	}
+
+	/**
+	 * @param history
+	 * 		History store to record prior states of items in.
+	 */
+	public BasicJvmClassBundle(@Nonnull BundleHistory<JvmClassInfo> history) {
+		super(history);
+	}
 }
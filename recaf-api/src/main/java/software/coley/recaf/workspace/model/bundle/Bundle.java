@@ -8,6 +8,7 @@ import software.coley.recaf.info.Info;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -53,6 +54,48 @@ public interface Bundle<I extends Info> extends Map<String, I>, Iterable<I>, Clo
 		return values().stream();
 	}
 
+	/**
+	 * @param packageName
+	 * 		Package name, such as {@code com/example}. Empty for the default package.
+	 * 		For file bundles this is a directory name.
+	 *
+	 * @return {@code true} when there are items in the package, or any of its sub-packages.
+	 */
+	default boolean hasPackage(@Nonnull String packageName) {
+		String prefix = packageName.isEmpty() ? "" : packageName + '/';
+		return keySet().stream().anyMatch(key -> key.startsWith(prefix));
+	}
+
+	/**
+	 * @param packageName
+	 * 		Package name, such as {@code com/example}. Empty for the default package.
+	 * 		For file bundles this is a directory name.
+	 *
+	 * @return Keys of items directly in the package, not including items in sub-packages.
+	 */
+	@Nonnull
+	default Set<String> getKeysInPackage(@Nonnull String packageName) {
+		String prefix = packageName.isEmpty() ? "" : packageName + '/';
+		return keySet().stream()
+				.filter(key -> key.startsWith(prefix) && key.indexOf('/', prefix.length()) < 0)
+				.collect(Collectors.toSet());
+	}
+
+	/**
+	 * @param packageName
+	 * 		Package name, such as {@code com/example}. Empty for the default package.
+	 * 		For file bundles this is a directory name.
+	 *
+	 * @return Keys of items in the package, and in all of its sub-packages.
+	 */
+	@Nonnull
+	default Set<String> getKeysUnderPackage(@Nonnull String packageName) {
+		String prefix = packageName.isEmpty() ? "" : packageName + '/';
+		return keySet().stream()
+				.filter(key -> key.startsWith(prefix))
+				.collect(Collectors.toSet());
+	}
+
 	/**
 	 * @param key
 	 * 		Item key.
@@ -0,0 +1,85 @@
+package software.coley.recaf.workspace.model.bundle;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import software.coley.recaf.info.Info;
+
+import java.util.Set;
+import java.util.Stack;
+
+/**
+ * Storage of the prior states of items in a {@link BasicBundle}.
+ * Allows bundles to control how much of an item's history is retained.
+ *
+ * @param <I>
+ * 		Item type.
+ *
+ * @author Matt Coley
+ * @see BasicBundleHistory
+ */
+public interface BundleHistory<I extends Info> {
+	/**
+	 * Create initial history item, replacing any existing history for the item's key.
+	 *
+	 * @param info
+	 * 		Origin item.
+	 */
+	void initHistory(@Nonnull I info);
+
+	/**
+	 * @param info
+	 * 		Item state to record.
+	 *
+	 * @throws IllegalStateException
+	 * 		When there is no prior history for the item.
+	 */
+	void incrementHistory(@Nonnull I info);
+
+	/**
+	 * Removes the latest state of the item, unless it is the only state remaining.
+	 *
+	 * @param key
+	 * 		Item key.
+	 *
+	 * @return The removed state, or the original state if there was only one.
+	 *
+	 * @throws IllegalStateException
+	 * 		When there is no history for the item.
+	 */
+	@Nonnull
+	I decrementHistory(@Nonnull String key);
+
+	/**
+	 * @param key
+	 * 		Item key.
+	 *
+	 * @return History of item, or {@code null} if there is no history for the item.
+	 */
+	@Nullable
+	Stack<I> getHistory(@Nonnull String key);
+
+	/**
+	 * @param key
+	 * 		Item key.
+	 *
+	 * @return {@code true} if the item has a history.
+	 */
+	boolean hasHistory(@Nonnull String key);
+
+	/**
+	 * @return Keys of items that have more than one state.
+	 */
+	@Nonnull
+	Set<String> getDirtyKeys();
+
+	/**
+	 * @param key
+	 * 		Item key.
+	 */
+	void removeHistory(@Nonnull String key);
+
+	/**
+	 * Removes all history.
+	 */
+	void clear();
+}
@@ -0,0 +1,154 @@
+package software.coley.recaf.workspace.model.bundle;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trie of the packages of keys in a {@link BasicBundle}, where each package segment of a key is a node.
+ * Allows package lookups and listings to take time relative to the size of their result,
+ * rather than the size of the bundle.
+ *
+ * @author Matt Coley
+ */
+class PackageIndex {
+	private final Node root = new Node();
+
+	/**
+	 * @param key
+	 * 		Key to add, such as {@code com/example/Foo}.
+	 */
+	synchronized void add(@Nonnull String key) {
+		// Only count the key once, even if re-added.
+		if (contains(key))
+			return;
+		root.count++;
+		Node node = root;
+		int start = 0;
+		int slash;
+		while ((slash = key.indexOf('/', start)) >= 0) {
+			node = node.children.computeIfAbsent(key.substring(start, slash), k -> new Node());
+			node.count++;
+			start = slash + 1;
+		}
+		node.keys.add(key);
+	}
+
+	/**
+	 * @param key
+	 * 		Key to remove, such as {@code com/example/Foo}.
+	 */
+	synchronized void remove(@Nonnull String key) {
+		if (!contains(key))
+			return;
+		root.count--;
+		Node node = root;
+		int start = 0;
+		int slash;
+		while ((slash = key.indexOf('/', start)) >= 0) {
+			String segment = key.substring(start, slash);
+			Node child = node.children.get(segment);
+			if (--child.count == 0) {
+				// Nothing else is under this package, so drop it and everything below it.
+				node.children.remove(segment);
+				return;
+			}
+			node = child;
+			start = slash + 1;
+		}
+		node.keys.remove(key);
+	}
+
+	/**
+	 * Removes all keys.
+	 */
+	synchronized void clear() {
+		root.children.clear();
+		root.keys.clear();
+		root.count = 0;
+	}
+
+	/**
+	 * @param packageName
+	 * 		Package name, such as {@code com/example}. Empty for the default package.
+	 *
+	 * @return {@code true} when there are keys in the package, or any of its sub-packages.
+	 */
+	synchronized boolean hasPackage(@Nonnull String packageName) {
+		Node node = find(packageName);
+		return node != null && node.count > 0;
+	}
+
+	/**
+	 * @param packageName
+	 * 		Package name, such as {@code com/example}. Empty for the default package.
+	 *
+	 * @return Keys directly in the package, not including keys in sub-packages.
+	 */
+	@Nonnull
+	synchronized Set<String> getKeysInPackage(@Nonnull String packageName) {
+		Node node = find(packageName);
+		if (node == null)
+			return Collections.emptySet();
+		return new HashSet<>(node.keys);
+	}
+
+	/**
+	 * @param packageName
+	 * 		Package name, such as {@code com/example}. Empty for the default package.
+	 *
+	 * @return Keys in the package, and in all of its sub-packages.
+	 */
+	@Nonnull
+	synchronized Set<String> getKeysUnderPackage(@Nonnull String packageName) {
+		Node node = find(packageName);
+		if (node == null)
+			return Collections.emptySet();
+		Set<String> keys = new HashSet<>(node.count);
+		collect(node, keys);
+		return keys;
+	}
+
+	private boolean contains(@Nonnull String key) {
+		int slash = key.lastIndexOf('/');
+		Node node = slash < 0 ? root : find(key.substring(0, slash));
+		return node != null && node.keys.contains(key);
+	}
+
+	@Nullable
+	private Node find(@Nonnull String packageName) {
+		Node node = root;
+		if (packageName.isEmpty())
+			return node;
+		int start = 0;
+		while (node != null) {
+			int slash = packageName.indexOf('/', start);
+			if (slash < 0)
+				return node.children.get(packageName.substring(start));
+			node = node.children.get(packageName.substring(start, slash));
+			start = slash + 1;
+		}
+		return null;
+	}
+
+	private static void collect(@Nonnull Node node, @Nonnull Set<String> keys) {
+		keys.addAll(node.keys);
+		for (Node child : node.children.values())
+			collect(child, keys);
+	}
+
+	/**
+	 * Single package segment.
+	 */
+	private static class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private final Set<String> keys = new HashSet<>();
+		// Number of keys in this package and all sub-packages
+		private int count;
+	}
+}
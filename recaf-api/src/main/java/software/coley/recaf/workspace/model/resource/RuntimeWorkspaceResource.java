@@ -13,9 +13,9 @@ import software.coley.recaf.workspace.model.bundle.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of a workspace resource sourced from runtime classes.
@@ -27,7 +27,7 @@ import java.util.NavigableMap;
 public class RuntimeWorkspaceResource implements WorkspaceResource {
 	private static final Object STUB = new Object();
 	private static final Logger logger = Logging.get(RuntimeWorkspaceResource.class);
-	private static final Map<String, Object> cache = new HashMap<>();
+	private static final Map<String, Object> cache = new ConcurrentHashMap<>();
 	private static RuntimeWorkspaceResource instance;
 	private final JvmClassBundle classes;
 	private final FileBundle files;
@@ -3,6 +3,8 @@ package software.coley.recaf.info;
 import me.coley.cafedude.classfile.VersionConstants;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
 import software.coley.recaf.test.TestClassUtils;
 import software.coley.recaf.test.dummy.AccessibleFields;
 import software.coley.recaf.util.ByteHeaderUtil;
@@ -99,4 +101,45 @@ class JvmClassInfoTest {
 		assertNotEquals(accessibleFields, builderModifiedCopy,
 				"Direct copy via builder should have same class equality");
 	}
-}
\ No newline at end of file
+
+	@Test
+	void lazyModelMatchesEagerModel() {
+		ClassReader reader = new ClassReader(accessibleFields.getBytecode());
+		JvmClassInfo lazy = new JvmClassInfoBuilder()
+				.adaptHeaderFrom(reader)
+				.buildLazy();
+		LazyJvmClassInfo lazyInfo = assertInstanceOf(LazyJvmClassInfo.class, lazy);
+
+		// Header values should be available without populating the rest of the model
+		assertEquals(accessibleFields.getName(), lazy.getName());
+		assertEquals(accessibleFields.getSuperName(), lazy.getSuperName());
+		assertEquals(accessibleFields.getInterfaces(), lazy.getInterfaces());
+		assertEquals(accessibleFields.getAccess(), lazy.getAccess());
+		assertEquals(accessibleFields.getVersion(), lazy.getVersion());
+		assertFalse(lazyInfo.isModelPopulated(), "Header access should not populate the model");
+
+		// Member access populates the model, which should link members back to the lazy class
+		assertFalse(lazy.getFields().isEmpty());
+		assertTrue(lazyInfo.isModelPopulated(), "Member access should populate the model");
+		assertSame(lazy, lazy.getFields().get(0).getDeclaringClass());
+
+		// Should be equal to the eagerly populated model
+		assertEquals(accessibleFields, lazy);
+		assertEquals(lazy, accessibleFields);
+		assertEquals(accessibleFields.hashCode(), lazy.hashCode());
+	}
+
+	@Test
+	void lazyEqualityDoesNotPopulateModel() {
+		ClassReader reader = new ClassReader(accessibleFields.getBytecode());
+		LazyJvmClassInfo first = (LazyJvmClassInfo) new JvmClassInfoBuilder().adaptHeaderFrom(reader).buildLazy();
+		LazyJvmClassInfo second = (LazyJvmClassInfo) new JvmClassInfoBuilder().adaptHeaderFrom(reader).buildLazy();
+
+		// Equality is derived from the bytecode, which determines the rest of the model
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertEquals(accessibleFields, first);
+		assertFalse(first.isModelPopulated(), "Equality check should not populate the model");
+		assertFalse(second.isModelPopulated(), "Equality check should not populate the model");
+	}
+}
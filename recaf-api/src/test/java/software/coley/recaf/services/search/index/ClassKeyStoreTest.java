@@ -0,0 +1,75 @@
+package software.coley.recaf.services.search.index;
+
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ClassKeyStore}
+ */
+class ClassKeyStoreTest {
+	@Test
+	void testStoredEntriesAreMerged() throws IOException {
+		Path directory = Files.createTempDirectory("recaf-keys");
+		try {
+			testStoredEntriesAreMerged(directory);
+		} finally {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	private static void testStoredEntriesAreMerged(@Nonnull Path directory) {
+		ClassKeyStore<String> store = new ClassKeyStore<>(directory, 1, new StringCodec());
+		String first = ClassKeyStore.hash(bytes("first"));
+		String second = ClassKeyStore.hash(bytes("second"));
+		String missing = ClassKeyStore.hash(bytes("missing"));
+		store.store(Map.of(first, Set.of("a", "b")), List.of());
+		store.store(Map.of(second, Set.of("b", "c")), List.of());
+
+		// Storing the second entry should not drop the first
+		Map<String, Set<String>> loaded = store.load(List.of(first, second, missing));
+		assertEquals(Map.of(first, Set.of("a", "b"), second, Set.of("b", "c")), loaded);
+
+		// Equal strings across entries are shared
+		String firstB = loaded.get(first).stream().filter("b"::equals).findFirst().orElseThrow();
+		String secondB = loaded.get(second).stream().filter("b"::equals).findFirst().orElseThrow();
+		assertSame(firstB, secondB);
+
+		// Stores of another version are ignored
+		assertTrue(new ClassKeyStore<>(directory, 2, new StringCodec()).load(List.of(first, second)).isEmpty());
+	}
+
+	@Nonnull
+	private static byte[] bytes(@Nonnull String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static class StringCodec implements ClassKeyStore.KeyCodec<String> {
+		@Override
+		public void write(@Nonnull DataOutput out, @Nonnull String key) throws IOException {
+			out.writeUTF(key);
+		}
+
+		@Nonnull
+		@Override
+		public String read(@Nonnull DataInput in, @Nonnull UnaryOperator<String> strings) throws IOException {
+			return strings.apply(in.readUTF());
+		}
+	}
+}
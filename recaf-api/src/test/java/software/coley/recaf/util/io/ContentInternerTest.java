@@ -0,0 +1,59 @@
+package software.coley.recaf.util.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ContentInterner}
+ */
+class ContentInternerTest {
+	@Test
+	void testEqualContentIsShared() {
+		ContentInterner interner = new ContentInterner();
+		byte[] first = content(1, 1024);
+		byte[] second = content(1, 1024);
+		assertNotSame(first, second);
+
+		// The first array is interned, the second equal array is served by it
+		assertSame(first, interner.intern(first));
+		assertSame(first, interner.intern(second));
+		assertEquals(1, interner.size());
+		assertEquals(1, interner.getInternedCount());
+		assertEquals(second.length, interner.getInternedBytes());
+	}
+
+	@Test
+	void testDistinctContentKeepsIdentity() {
+		ContentInterner interner = new ContentInterner();
+		byte[] first = content(1, 1024);
+		byte[] second = content(2, 1024);
+		assertSame(first, interner.intern(first));
+		assertSame(second, interner.intern(second));
+		assertEquals(2, interner.size());
+
+		// Interning the same instance again is not counted as shared
+		assertSame(first, interner.intern(first));
+		assertEquals(0, interner.getInternedCount());
+		assertEquals(0, interner.getInternedBytes());
+	}
+
+	@Test
+	void testSmallContentIsNotInterned() {
+		ContentInterner interner = new ContentInterner();
+		byte[] first = content(1, 16);
+		byte[] second = content(1, 16);
+		assertSame(first, interner.intern(first));
+		assertSame(second, interner.intern(second));
+		assertEquals(0, interner.size());
+		assertEquals(0, interner.getInternedCount());
+	}
+
+	private static byte[] content(int value, int length) {
+		byte[] content = new byte[length];
+		Arrays.fill(content, (byte) value);
+		return content;
+	}
+}
@@ -2,6 +2,11 @@ package software.coley.recaf.workspace.io;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.ClassNode;
 
 import static org.mockito.Mockito.*;
 
@@ -12,6 +17,7 @@ import software.coley.recaf.util.io.ByteSource;
 import software.coley.recaf.util.io.ByteSources;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -19,6 +25,7 @@ import java.util.Collection;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
 
 /**
  * Tests for {@link InfoImporter}
@@ -73,6 +80,44 @@ class InfoImporterTest {
 		assertTrue(read.asClass().isJvmClass(), "Created wrong class type");
 	}
 
+	@Test
+	void testUsesClassPatcherForClassesAsmCannotWrite() throws IOException {
+		// Create a class with compressed stack map frames.
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(V1_7, ACC_PUBLIC, "Frames", null, "java/lang/Object", null);
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "abs", "(I)I", null, null);
+		mv.visitCode();
+		Label positive = new Label();
+		mv.visitVarInsn(ILOAD, 0);
+		mv.visitJumpInsn(IFGE, positive);
+		mv.visitVarInsn(ILOAD, 0);
+		mv.visitInsn(INEG);
+		mv.visitInsn(IRETURN);
+		mv.visitLabel(positive);
+		mv.visitVarInsn(ILOAD, 0);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		byte[] valid = cw.toByteArray();
+
+		// Downgrade the version to Java 5. ASM can still read the class, but will not write compressed frames for it.
+		byte[] invalid = valid.clone();
+		invalid[7] = (byte) V1_5;
+		ClassReader reader = new ClassReader(invalid);
+		reader.accept(new ClassNode(), 0);
+		assertThrows(IllegalArgumentException.class, () -> reader.accept(new ClassWriter(0), 0));
+
+		// The importer should treat it as non-compliant and patch it.
+		ClassPatcher patcher = mock(ClassPatcher.class);
+		when(patcher.patch(anyString(), any())).thenReturn(valid);
+		InfoImporter patchingImporter = new BasicInfoImporter(new InfoImporterConfig(), patcher);
+		Info read = patchingImporter.readInfo("Frames", ByteSources.wrap(invalid));
+		verify(patcher).patch(anyString(), any());
+		assertTrue(read.isClass(), "Should have used patcher to fix class ASM cannot write");
+		assertArrayEquals(valid, read.asClass().asJvmClass().getBytecode());
+	}
+
 	@Test
 	void testImportEmptyArrayAsGenericFile() throws IOException {
 		// Importing something that cannot be identified, should use 'FileInfo' as catch-all.
@@ -108,4 +153,50 @@ class InfoImporterTest {
 		read = importer.readInfo("data.apk", zipSource);
 		assertTrue(read instanceof ApkFileInfo);
 	}
+
+	@Test
+	void testFileSourceIsNotReadInFull() throws IOException {
+		// Text larger than the prefix used to detect the content type, with a multibyte character cut off by it.
+		byte[] text = ("a".repeat(16383) + "\u00E9" + "b".repeat(100_000)).getBytes(StandardCharsets.UTF_8);
+		Info read = importer.readInfo("large.txt", peekOnly(ByteSources.wrap(text)), () -> peekOnly(ByteSources.wrap(text)));
+		assertEquals(BasicTextFileInfo.class, read.getClass());
+		assertTrue(((BasicFileInfo) read).isContentSourced());
+
+		// ZIP containers are still recognized
+		byte[] zipFileBytes = ZipCreationUtils.createSingleEntryZip("Hello.txt", "Hello world".getBytes(StandardCharsets.UTF_8));
+		read = importer.readInfo("data.jar", peekOnly(ByteSources.wrap(zipFileBytes)), () -> peekOnly(ByteSources.wrap(zipFileBytes)));
+		assertInstanceOf(JarFileInfo.class, read);
+		assertTrue(((BasicFileInfo) read).isContentSourced());
+
+		// Classes are always read onto the heap, and never ask for a file source
+		JvmClassInfo classInfo = TestClassUtils.fromRuntimeClass(ArrayList.class);
+		read = importer.readInfo(classInfo.getName(), ByteSources.wrap(classInfo.getBytecode()),
+				() -> fail("Classes should not be moved off the heap"));
+		assertTrue(read.isClass());
+	}
+
+	/**
+	 * @param source
+	 * 		Some source.
+	 *
+	 * @return Wrapper of the source which fails when all of its content is read.
+	 */
+	private static ByteSource peekOnly(ByteSource source) {
+		return new ByteSource() {
+			@Override
+			public byte[] readAll() {
+				return fail("Content should not be read in full");
+			}
+
+			@Override
+			public byte[] peek(int count) throws IOException {
+				return source.peek(count);
+			}
+
+			@Override
+			public InputStream openStream() {
+				return fail("Content should not be read in full");
+			}
+		};
+	}
 }
\ No newline at end of file
@@ -2,11 +2,17 @@ package software.coley.recaf.workspace.io;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import software.coley.llzip.format.compression.ZipCompressions;
+import software.coley.recaf.info.BasicFileInfo;
 import software.coley.recaf.info.FileInfo;
 import software.coley.recaf.info.JarFileInfo;
 import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.TextFileInfo;
+import software.coley.recaf.info.properties.builtin.PathPrefixProperty;
+import software.coley.recaf.info.properties.builtin.VersionedClassProperty;
 import software.coley.recaf.info.properties.builtin.ZipAccessTimeProperty;
 import software.coley.recaf.info.properties.builtin.ZipCommentProperty;
+import software.coley.recaf.info.properties.builtin.ZipCompressionProperty;
 import software.coley.recaf.info.properties.builtin.ZipCreationTimeProperty;
 import software.coley.recaf.info.properties.builtin.ZipModificationTimeProperty;
 import software.coley.recaf.test.TestClassUtils;
@@ -20,13 +26,19 @@ import software.coley.recaf.workspace.model.resource.WorkspaceResource;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Tests for {@link ResourceImporter}
@@ -449,4 +461,332 @@ class ResourceImporterTest {
 		assertEquals(timeModify, ZipModificationTimeProperty.get(fileInfo), "Missing modification time");
 		assertEquals(timeAccess, ZipAccessTimeProperty.get(fileInfo), "Missing access time");
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testParallelZipImportMatchesSequential() throws IOException {
+		String helloWorldPath = HelloWorld.class.getName().replace(".", "/");
+		byte[] helloWorldBytes = TestClassUtils.fromRuntimeClass(HelloWorld.class).getBytecode();
+		byte[] emptyBytes = new byte[0];
+
+		// Create JAR with duplicate entries of all kinds, so that the winners depend on entry order.
+		ZipCreationUtils.ZipBuilder zipBuilder = ZipCreationUtils.builder()
+				.add(helloWorldPath + ".class", emptyBytes)
+				.add("software/coley/B.class", helloWorldBytes)
+				.add(helloWorldPath + ".class", helloWorldBytes)
+				.add("B.class", helloWorldBytes)
+				.add(JarFileInfo.MULTI_RELEASE_PREFIX + "9/" + helloWorldPath + ".class", emptyBytes)
+				.add(JarFileInfo.MULTI_RELEASE_PREFIX + "9/B.class", helloWorldBytes)
+				.add(JarFileInfo.MULTI_RELEASE_PREFIX + "9/" + helloWorldPath + ".class", helloWorldBytes)
+				.add("data.zip", ZipCreationUtils.createSingleEntryZip("foo", new byte[]{1, 2, 3}));
+		for (int i = 0; i < 100; i++)
+			zipBuilder.add("file" + i + ".txt", ("Text " + i).getBytes(StandardCharsets.UTF_8));
+		byte[] zipBytes = zipBuilder.bytes();
+
+		ResourceImporterConfig parallelConfig = new ResourceImporterConfig();
+		parallelConfig.getParallelZipImport().setValue(true);
+		ResourceImporter parallelImporter = new BasicResourceImporter(
+				new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher()),
+				parallelConfig
+		);
+
+		// Both modes should yield the same resource
+		WorkspaceResource sequential = importer.importResource(ByteSources.wrap(zipBytes));
+		WorkspaceResource parallel = parallelImporter.importResource(ByteSources.wrap(zipBytes));
+		assertEquals(sequential, parallel);
+		assertArrayEquals(helloWorldBytes, parallel.getJvmClassBundle().get(helloWorldPath).getBytecode());
+		assertArrayEquals(helloWorldBytes, parallel.getVersionedJvmClassBundles().get(9).get(helloWorldPath).getBytecode());
+	}
+
+	@Test
+	void testParallelZipImportPropagatesEntryFailures() throws IOException {
+		ZipCreationUtils.ZipBuilder zipBuilder = ZipCreationUtils.builder();
+		for (int i = 0; i < 20; i++)
+			zipBuilder.add("file" + i + ".txt", ("Text " + i).getBytes(StandardCharsets.UTF_8));
+		byte[] zipBytes = zipBuilder.bytes();
+
+		// Fail on the reading of one entry in the middle of the archive
+		InfoImporter infoImporter = new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher());
+		InfoImporter failingImporter = spy(infoImporter);
+		doThrow(new IllegalStateException("file7.txt")).when(failingImporter).readInfo(eq("file7.txt"), any());
+
+		// Both modes should fail the same way, rather than the parallel import silently skipping the entry
+		ResourceImporterConfig parallelConfig = new ResourceImporterConfig();
+		parallelConfig.getParallelZipImport().setValue(true);
+		ResourceImporter sequentialImporter = new BasicResourceImporter(failingImporter, new ResourceImporterConfig());
+		ResourceImporter parallelImporter = new BasicResourceImporter(failingImporter, parallelConfig);
+		IllegalStateException sequential = assertThrows(IllegalStateException.class,
+				() -> sequentialImporter.importResource(ByteSources.wrap(zipBytes)));
+		IllegalStateException parallel = assertThrows(IllegalStateException.class,
+				() -> parallelImporter.importResource(ByteSources.wrap(zipBytes)));
+		assertEquals(sequential.getMessage(), parallel.getMessage());
+	}
+
+	@Test
+	void testMappedStorageMatchesHeapStorage() throws IOException {
+		String helloWorldPath = HelloWorld.class.getName().replace(".", "/");
+		byte[] helloWorldBytes = TestClassUtils.fromRuntimeClass(HelloWorld.class).getBytecode();
+		byte[] binaryBytes = new byte[4096];
+		for (int i = 0; i < binaryBytes.length; i++)
+			binaryBytes[i] = (byte) (i * 31);
+
+		// Create JAR with both stored and compressed entries.
+		byte[] zipBytes = ZipCreationUtils.builder()
+				.add(helloWorldPath + ".class", helloWorldBytes)
+				.add("stored.txt", "Stored text".getBytes(StandardCharsets.UTF_8), false, null, -1, -1, -1)
+				.add("compressed.txt", "Compressed text".getBytes(StandardCharsets.UTF_8))
+				.add("stored.bin", binaryBytes, false, null, -1, -1, -1)
+				.add("compressed.bin", binaryBytes)
+				.bytes();
+
+		// Write to disk temporarily for test duration
+		File tempFile = File.createTempFile("recaf", "test.jar");
+		Files.write(tempFile.toPath(), zipBytes);
+		tempFile.deleteOnExit();
+
+		ResourceImporterConfig mappedConfig = new ResourceImporterConfig();
+		mappedConfig.getMappedStorage().setValue(true);
+		ResourceImporter mappedImporter = new BasicResourceImporter(
+				new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher()),
+				mappedConfig
+		);
+
+		// File contents should be sourced from mapped storage, but otherwise be the same as a regular import.
+		WorkspaceResource heap = importer.importResource(tempFile.toPath());
+		WorkspaceResource mapped = mappedImporter.importResource(tempFile.toPath());
+		assertEquals(heap.getJvmClassBundle().get(helloWorldPath), mapped.getJvmClassBundle().get(helloWorldPath));
+		assertEquals(heap.getFileBundle().size(), mapped.getFileBundle().size());
+		for (FileInfo heapFile : heap.getFileBundle()) {
+			FileInfo mappedFile = mapped.getFileBundle().get(heapFile.getName());
+			assertNotNull(mappedFile, "Missing file: " + heapFile.getName());
+			assertTrue(((BasicFileInfo) mappedFile).isContentSourced(), "Not mapped: " + heapFile.getName());
+			assertEquals(heapFile.getClass(), mappedFile.getClass());
+			assertArrayEquals(heapFile.getRawContent(), mappedFile.getRawContent());
+		}
+		WorkspaceFileResource mappedFileResource = (WorkspaceFileResource) mapped;
+		assertInstanceOf(JarFileInfo.class, mappedFileResource.getFileInfo());
+		assertArrayEquals(zipBytes, mappedFileResource.getFileInfo().getRawContent());
+	}
+
+	@Test
+	void testNestedArchiveSlicesMatchCopies() throws IOException {
+		String helloWorldPath = HelloWorld.class.getName().replace(".", "/");
+		byte[] helloWorldBytes = TestClassUtils.fromRuntimeClass(HelloWorld.class).getBytecode();
+		byte[] innerBytes = ZipCreationUtils.builder()
+				.add(helloWorldPath + ".class", helloWorldBytes)
+				.add("inner.txt", "Inner".getBytes(StandardCharsets.UTF_8))
+				.bytes();
+
+		// Nested archives both stored, which are read as slices of the outer archive,
+		// and compressed, which are read from their decompressed data.
+		byte[] zipBytes = ZipCreationUtils.builder()
+				.add("stored.jar", innerBytes, false, null, -1, -1, -1)
+				.add("compressed.jar", innerBytes)
+				.bytes();
+
+		// Write to disk temporarily for test duration
+		File tempFile = File.createTempFile("recaf", "test.zip");
+		Files.write(tempFile.toPath(), zipBytes);
+		tempFile.deleteOnExit();
+
+		WorkspaceResource fromByteSource = importer.importResource(ByteSources.wrap(zipBytes));
+		WorkspaceResource fromPath = importer.importResource(tempFile.toPath());
+		assertEquals(fromByteSource, fromPath);
+		for (String name : new String[]{"stored.jar", "compressed.jar"}) {
+			WorkspaceFileResource embedded = fromPath.getEmbeddedResources().get(name);
+			assertNotNull(embedded, "Missing embedded resource: " + name);
+			assertArrayEquals(helloWorldBytes, embedded.getJvmClassBundle().get(helloWorldPath).getBytecode());
+			assertNotNull(embedded.getFileBundle().get("inner.txt"));
+		}
+	}
+
+	@Test
+	void testImportLimits() throws IOException {
+		// Create ZIP with 10 files, and a ZIP nested two levels deep.
+		byte[] innermost = ZipCreationUtils.createSingleEntryZip("innermost.txt", new byte[]{1, 2, 3});
+		byte[] inner = ZipCreationUtils.createSingleEntryZip("innermost.zip", innermost);
+		ZipCreationUtils.ZipBuilder zipBuilder = ZipCreationUtils.builder()
+				.add("inner.zip", inner);
+		for (int i = 0; i < 10; i++)
+			zipBuilder.add("file" + i + ".txt", ("Text " + i).getBytes(StandardCharsets.UTF_8));
+		byte[] zipBytes = zipBuilder.bytes();
+
+		// Only the first level of embedded archives should be read.
+		ResourceImporterConfig depthConfig = new ResourceImporterConfig();
+		depthConfig.getMaxZipDepth().setValue(1);
+		ResourceImporter depthImporter = new BasicResourceImporter(
+				new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher()),
+				depthConfig
+		);
+		WorkspaceResource resource = depthImporter.importResource(ByteSources.wrap(zipBytes));
+		WorkspaceFileResource embedded = resource.getEmbeddedResources().get("inner.zip");
+		assertNotNull(embedded);
+		assertTrue(embedded.getEmbeddedResources().isEmpty(), "Embedded archive beyond max depth was read");
+		assertEquals(10, resource.getFileBundle().size());
+
+		// Only the first 5 entries should be read: The embedded archive, and 4 files.
+		// The entries of the embedded archive are past the budget.
+		ResourceImporterConfig budgetConfig = new ResourceImporterConfig();
+		budgetConfig.getMaxImportEntries().setValue(5);
+		ResourceImporter budgetImporter = new BasicResourceImporter(
+				new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher()),
+				budgetConfig
+		);
+		resource = budgetImporter.importResource(ByteSources.wrap(zipBytes));
+		assertEquals(4, resource.getFileBundle().size());
+		embedded = resource.getEmbeddedResources().get("inner.zip");
+		assertNotNull(embedded);
+		assertTrue(embedded.getEmbeddedResources().isEmpty());
+	}
+
+	@Test
+	void testImportBudgetBoundsCompressionBombs() throws IOException {
+		// 8 MB of zeros compresses down to a few kilobytes.
+		byte[] bombContent = new byte[8 * 1024 * 1024];
+		byte[] zipBytes = ZipCreationUtils.builder()
+				.add("small.txt", "Small".getBytes(StandardCharsets.UTF_8))
+				.add("bomb.txt", bombContent)
+				.bytes();
+		assertTrue(zipBytes.length < 64 * 1024, "Bomb should be highly compressed");
+		ResourceImporterConfig budgetConfig = new ResourceImporterConfig();
+		budgetConfig.getMaxImportMegabytes().setValue(1);
+		ResourceImporter budgetImporter = new BasicResourceImporter(
+				new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher()),
+				budgetConfig
+		);
+
+		// The declared size exceeds the budget, so the entry is skipped.
+		WorkspaceResource resource = budgetImporter.importResource(ByteSources.wrap(zipBytes));
+		assertNotNull(resource.getFileBundle().get("small.txt"));
+		assertNull(resource.getFileBundle().get("bomb.txt"), "Entry larger than the budget was read");
+
+		// The declared size fits in the budget, but the data inflates beyond it, so the entry is still skipped.
+		declareUncompressedSize(zipBytes, "bomb.txt", 16);
+		resource = budgetImporter.importResource(ByteSources.wrap(zipBytes));
+		assertNotNull(resource.getFileBundle().get("small.txt"));
+		assertNull(resource.getFileBundle().get("bomb.txt"), "Entry inflating beyond the budget was read");
+
+		// Without a budget the lying entry is read in full.
+		resource = importer.importResource(ByteSources.wrap(zipBytes));
+		FileInfo bomb = resource.getFileBundle().get("bomb.txt");
+		assertNotNull(bomb);
+		assertArrayEquals(bombContent, bomb.getRawContent());
+	}
+
+	@Test
+	void testParallelDirectoryImportMatchesSequential() throws IOException {
+		String helloWorldPath = HelloWorld.class.getName().replace(".", "/");
+		byte[] helloWorldBytes = TestClassUtils.fromRuntimeClass(HelloWorld.class).getBytecode();
+
+		// Create directory with the same class at different paths, so that the winner depends on file order.
+		Path directory = Files.createTempDirectory("recaf-test");
+		Path classPath = directory.resolve(helloWorldPath + ".class");
+		Path otherClassPath = directory.resolve("other/" + helloWorldPath + ".class");
+		Files.createDirectories(classPath.getParent());
+		Files.createDirectories(otherClassPath.getParent());
+		Files.write(classPath, helloWorldBytes);
+		Files.write(otherClassPath, helloWorldBytes);
+		for (int i = 0; i < 100; i++)
+			Files.writeString(directory.resolve("file" + i + ".txt"), "Text " + i);
+		Files.write(directory.resolve("data.zip"), ZipCreationUtils.createSingleEntryZip("foo", new byte[]{1, 2, 3}));
+
+		ResourceImporterConfig parallelConfig = new ResourceImporterConfig();
+		parallelConfig.getParallelDirectoryImport().setValue(true);
+		ResourceImporter parallelImporter = new BasicResourceImporter(
+				new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher()),
+				parallelConfig
+		);
+
+		// Both modes should yield the same resource
+		try {
+			WorkspaceResource sequential = importer.importResource(directory);
+			WorkspaceResource parallel = parallelImporter.importResource(directory);
+			assertEquals(sequential, parallel);
+			assertEquals(101, parallel.getFileBundle().size());
+			assertNotNull(parallel.getEmbeddedResources().get("data.zip"));
+		} finally {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	@Test
+	void testSnapshotCacheRestoresSameResource() throws IOException {
+		String helloWorldPath = HelloWorld.class.getName().replace(".", "/");
+		byte[] helloWorldBytes = TestClassUtils.fromRuntimeClass(HelloWorld.class).getBytecode();
+		byte[] zipBytes = ZipCreationUtils.builder()
+				.add("BOOT-INF/classes/" + helloWorldPath + ".class", helloWorldBytes)
+				.add(JarFileInfo.MULTI_RELEASE_PREFIX + "9/" + helloWorldPath + ".class", helloWorldBytes)
+				.add("hello.txt", "Hello".getBytes(StandardCharsets.UTF_8), false, "comment", -1, -1, -1)
+				.add("data.zip", ZipCreationUtils.createSingleEntryZip("foo", new byte[]{1, 2, 3}))
+				.bytes();
+
+		// Write to disk temporarily for test duration
+		File tempFile = File.createTempFile("recaf", "test.jar");
+		Files.write(tempFile.toPath(), zipBytes);
+		tempFile.deleteOnExit();
+		Path cacheDirectory = Files.createTempDirectory("recaf-snapshots");
+
+		ResourceImporterConfig cacheConfig = new ResourceImporterConfig();
+		cacheConfig.getSnapshotCache().setValue(true);
+		ResourceImporter cacheImporter = new BasicResourceImporter(
+				new BasicInfoImporter(new InfoImporterConfig(), new BasicClassPatcher()),
+				cacheConfig,
+				new ResourceSnapshotCache(cacheDirectory)
+		);
+
+		try {
+			// The first import records the snapshot, the second restores it.
+			WorkspaceResource imported = cacheImporter.importResource(tempFile.toPath());
+			try (Stream<Path> snapshots = Files.list(cacheDirectory)) {
+				assertEquals(1, snapshots.count(), "Snapshot not recorded");
+			}
+			WorkspaceResource restored = cacheImporter.importResource(tempFile.toPath());
+			assertNotSame(imported, restored);
+			assertEquals(imported, restored);
+
+			// Properties should be restored too
+			JvmClassInfo restoredClass = restored.getJvmClassBundle().get(helloWorldPath);
+			assertEquals("BOOT-INF/classes/", PathPrefixProperty.get(restoredClass));
+			assertEquals(9, VersionedClassProperty.get(restored.getVersionedJvmClassBundles().get(9).get(helloWorldPath)));
+			FileInfo restoredText = restored.getFileBundle().get("hello.txt");
+			assertInstanceOf(TextFileInfo.class, restoredText);
+			assertEquals("comment", ZipCommentProperty.get(restoredText));
+			assertEquals(ZipCompressions.STORED, ZipCompressionProperty.get(restoredText));
+			assertNotNull(restored.getEmbeddedResources().get("data.zip"));
+
+			// The input itself is read from its path rather than recorded in the snapshot
+			assertArrayEquals(zipBytes, ((WorkspaceFileResource) restored).getFileInfo().getRawContent());
+		} finally {
+			try (Stream<Path> paths = Files.walk(cacheDirectory)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	/**
+	 * Overwrites the uncompressed size declared by the local and central directory headers of an entry.
+	 */
+	private static void declareUncompressedSize(byte[] zipBytes, String name, int size) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.wrap(zipBytes).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < zipBytes.length - 4; i++) {
+			int signature = buffer.getInt(i);
+			int nameOffset;
+			int sizeOffset;
+			if (signature == 0x04034b50) {
+				nameOffset = 30;
+				sizeOffset = 22;
+			} else if (signature == 0x02014b50) {
+				nameOffset = 46;
+				sizeOffset = 24;
+			} else {
+				continue;
+			}
+			int start = i + nameOffset;
+			if (start + nameBytes.length <= zipBytes.length &&
+					Arrays.equals(zipBytes, start, start + nameBytes.length, nameBytes, 0, nameBytes.length))
+				buffer.putInt(i + sizeOffset, size);
+		}
+	}
+}
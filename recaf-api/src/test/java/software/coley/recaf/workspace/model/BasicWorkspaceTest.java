@@ -0,0 +1,68 @@
+package software.coley.recaf.workspace.model;
+
+import org.junit.jupiter.api.Test;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.path.ClassPathNode;
+import software.coley.recaf.test.TestClassUtils;
+import software.coley.recaf.test.dummy.AccessibleFields;
+import software.coley.recaf.test.dummy.HelloWorld;
+import software.coley.recaf.test.dummy.StringConsumer;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for class lookups in {@link BasicWorkspace}.
+ */
+class BasicWorkspaceTest {
+	@Test
+	void testFindClassFollowsResourcePriority() throws IOException {
+		JvmClassInfo primaryHello = TestClassUtils.fromRuntimeClass(HelloWorld.class);
+		JvmClassInfo supportingHello = TestClassUtils.fromRuntimeClass(HelloWorld.class);
+		JvmClassInfo supportingFields = TestClassUtils.fromRuntimeClass(AccessibleFields.class);
+		BasicJvmClassBundle primaryBundle = TestClassUtils.fromClasses(primaryHello);
+		BasicJvmClassBundle supportingBundle = TestClassUtils.fromClasses(supportingHello, supportingFields);
+		WorkspaceResource primary = new WorkspaceResourceBuilder().withJvmClassBundle(primaryBundle).build();
+		WorkspaceResource supporting = new WorkspaceResourceBuilder().withJvmClassBundle(supportingBundle).build();
+		Workspace workspace = new BasicWorkspace(primary, List.of(supporting));
+
+		// Primary resource takes priority over supporting resources
+		String helloName = primaryHello.getName();
+		assertSame(primaryHello, value(workspace.findClass(helloName)));
+		assertSame(supportingFields, value(workspace.findClass(supportingFields.getName())));
+
+		// Internal resources are still checked
+		assertNotNull(workspace.findClass("java/lang/String"));
+		assertNull(workspace.findClass("does/not/Exist"));
+
+		// Removing the primary copy reveals the supporting copy
+		primaryBundle.remove(helloName);
+		assertSame(supportingHello, value(workspace.findClass(helloName)));
+
+		// Adding a copy back to the primary resource hides it again
+		JvmClassInfo updatedHello = TestClassUtils.fromRuntimeClass(HelloWorld.class);
+		primaryBundle.put(updatedHello);
+		assertSame(updatedHello, value(workspace.findClass(helloName)));
+
+		// New classes in any resource are found
+		JvmClassInfo consumer = TestClassUtils.fromRuntimeClass(StringConsumer.class);
+		supportingBundle.put(consumer);
+		assertSame(consumer, value(workspace.findClass(consumer.getName())));
+
+		// Removing a resource removes its classes from lookups
+		assertTrue(workspace.removeSupportingResource(supporting));
+		assertNull(workspace.findClass(supportingFields.getName()));
+		assertNull(workspace.findClass(consumer.getName()));
+		assertSame(updatedHello, value(workspace.findClass(helloName)));
+	}
+
+	private static Object value(ClassPathNode path) {
+		assertNotNull(path);
+		return path.getValue();
+	}
+}
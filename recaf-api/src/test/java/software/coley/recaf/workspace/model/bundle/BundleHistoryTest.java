@@ -0,0 +1,87 @@
+package software.coley.recaf.workspace.model.bundle;
+
+import org.junit.jupiter.api.Test;
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.builder.FileInfoBuilder;
+import software.coley.recaf.info.properties.builtin.ZipCommentProperty;
+
+import java.util.Set;
+import java.util.Stack;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BundleHistory} usage in {@link BasicBundle}.
+ */
+class BundleHistoryTest {
+	private static final String NAME = "data.bin";
+
+	@Test
+	void testDecrementClearsDirtyState() {
+		BasicFileBundle bundle = new BasicFileBundle();
+		bundle.initialPut(file(0));
+		assertTrue(bundle.getDirtyKeys().isEmpty(), "Initial put should not mark items as dirty");
+
+		bundle.put(file(1));
+		bundle.put(file(2));
+		assertEquals(Set.of(NAME), bundle.getDirtyKeys());
+		assertEquals(3, bundle.getHistory(NAME).size());
+
+		bundle.decrementHistory(NAME);
+		bundle.decrementHistory(NAME);
+		assertTrue(bundle.getDirtyKeys().isEmpty(), "Decrementing to the original state should clear dirty state");
+		assertEquals(1, bundle.getHistory(NAME).size());
+	}
+
+	@Test
+	void testDepthCapKeepsOriginal() {
+		BasicFileBundle bundle = new BasicFileBundle(new BasicBundleHistory<>(3));
+		bundle.initialPut(file(0));
+		for (int i = 1; i <= 10; i++)
+			bundle.put(file(i));
+
+		// Only the original and the two latest states should remain
+		Stack<FileInfo> history = bundle.getHistory(NAME);
+		assertEquals(3, history.size());
+		assertEquals(file(0), history.get(0));
+		assertEquals(file(9), history.get(1));
+		assertEquals(file(10), history.get(2));
+	}
+
+	@Test
+	void testEqualStatesAreShared() {
+		BasicFileBundle bundle = new BasicFileBundle();
+		FileInfo original = file(0);
+		bundle.initialPut(original);
+		bundle.put(file(1));
+		bundle.put(file(0));
+
+		// The third state is equal to the original, so the original instance should be recorded instead
+		Stack<FileInfo> history = bundle.getHistory(NAME);
+		assertEquals(3, history.size());
+		assertSame(original, history.get(2));
+	}
+
+	@Test
+	void testStatesWithDifferentPropertiesAreNotShared() {
+		BasicFileBundle bundle = new BasicFileBundle();
+		bundle.initialPut(file(0));
+		bundle.put(file(1));
+		FileInfo commented = file(0);
+		ZipCommentProperty.set(commented, "comment");
+		bundle.put(commented);
+
+		// Same content as the original, but the properties differ so the new instance must be kept
+		Stack<FileInfo> history = bundle.getHistory(NAME);
+		assertEquals(3, history.size());
+		assertSame(commented, history.get(2));
+		assertEquals("comment", ZipCommentProperty.get(bundle.get(NAME)));
+	}
+
+	private static FileInfo file(int content) {
+		return new FileInfoBuilder<>()
+				.withName(NAME)
+				.withRawContent(new byte[]{(byte) content})
+				.build();
+	}
+}
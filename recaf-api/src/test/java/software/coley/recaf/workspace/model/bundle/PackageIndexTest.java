@@ -0,0 +1,65 @@
+package software.coley.recaf.workspace.model.bundle;
+
+import org.junit.jupiter.api.Test;
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.builder.FileInfoBuilder;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PackageIndex} usage in {@link BasicBundle}.
+ */
+class PackageIndexTest {
+	@Test
+	void testPackageQueries() {
+		BasicFileBundle bundle = new BasicFileBundle();
+		bundle.initialPut(file("Root.txt"));
+		bundle.initialPut(file("com/example/A.txt"));
+		bundle.put(file("com/example/B.txt"));
+		bundle.put(file("com/example/sub/C.txt"));
+		bundle.put(file("com/exampleabc/D.txt"));
+
+		assertTrue(bundle.hasPackage("com"));
+		assertTrue(bundle.hasPackage("com/example"));
+		assertTrue(bundle.hasPackage("com/example/sub"));
+		assertFalse(bundle.hasPackage("com/exam"), "Partial package names should not match");
+		assertFalse(bundle.hasPackage("org"));
+
+		assertEquals(Set.of("Root.txt"), bundle.getKeysInPackage(""));
+		assertEquals(Set.of("com/example/A.txt", "com/example/B.txt"), bundle.getKeysInPackage("com/example"));
+		assertEquals(Set.of("com/example/A.txt", "com/example/B.txt", "com/example/sub/C.txt"),
+				bundle.getKeysUnderPackage("com/example"));
+		assertEquals(5, bundle.getKeysUnderPackage("").size());
+		assertTrue(bundle.getKeysInPackage("org").isEmpty());
+	}
+
+	@Test
+	void testRemovalPrunesPackages() {
+		BasicFileBundle bundle = new BasicFileBundle();
+		bundle.put(file("com/example/A.txt"));
+		bundle.put(file("com/example/sub/B.txt"));
+
+		// Updating an existing item should not change the index
+		bundle.put(file("com/example/sub/B.txt"));
+		bundle.remove("com/example/sub/B.txt");
+		assertFalse(bundle.hasPackage("com/example/sub"), "Package should be removed with its last item");
+		assertTrue(bundle.hasPackage("com/example"));
+
+		bundle.remove("com/example/A.txt");
+		assertFalse(bundle.hasPackage("com"));
+
+		bundle.put(file("com/example/A.txt"));
+		bundle.clear();
+		assertFalse(bundle.hasPackage("com"));
+		assertTrue(bundle.getKeysUnderPackage("").isEmpty());
+	}
+
+	private static FileInfo file(String name) {
+		return new FileInfoBuilder<>()
+				.withName(name)
+				.withRawContent(new byte[0])
+				.build();
+	}
+}
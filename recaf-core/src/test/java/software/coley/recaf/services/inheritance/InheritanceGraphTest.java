@@ -2,9 +2,17 @@ package software.coley.recaf.services.inheritance;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FrameNode;
 import software.coley.recaf.TestBase;
 import software.coley.recaf.info.ClassInfo;
 import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.test.TestClassUtils;
 import software.coley.recaf.test.dummy.Inheritance;
@@ -12,14 +20,17 @@ import software.coley.recaf.test.dummy.StringConsumer;
 import software.coley.recaf.util.Types;
 import software.coley.recaf.workspace.model.Workspace;
 import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
 
 /**
  * Tests for {@link InheritanceGraph}
@@ -107,6 +118,115 @@ class InheritanceGraphTest extends TestBase {
 				"Common type of two unrelated classes should be Object");
 	}
 
+	@Test
+	void getCommonAfterHierarchyChange() {
+		String edibleName = Inheritance.Edible.class.getName().replace('.', '/');
+		String appleName = Inheritance.Apple.class.getName().replace('.', '/');
+		String grapeName = Inheritance.Grape.class.getName().replace('.', '/');
+		String pieName = appleName + "Pie";
+		JvmClassBundle bundle = workspace.getPrimaryResource().getJvmClassBundle();
+		bundle.put(createClass(pieName, appleName));
+		try {
+			assertEquals(edibleName, graph.getCommon(pieName, grapeName));
+			assertEquals(edibleName, graph.getCommon(pieName, grapeName), "Cached common type should be the same");
+
+			// Updating the class without changing its parents should keep the cached state
+			CompactInheritanceGraph compact = graph.getCompactGraph();
+			bundle.put(createClass(pieName, appleName));
+			assertSame(compact, graph.getCompactGraph(), "Snapshot should survive updates not changing the hierarchy");
+			assertEquals(edibleName, graph.getCommon(pieName, grapeName));
+
+			// Changing the parent should not yield the previously cached result
+			bundle.put(createClass(pieName, Types.OBJECT_TYPE.getInternalName()));
+			assertEquals(Types.OBJECT_TYPE.getInternalName(), graph.getCommon(pieName, grapeName),
+					"Common type should reflect updated parent");
+		} finally {
+			bundle.remove(pieName);
+		}
+	}
+
+	@Test
+	void computeFramesWithInheritanceClassWriter() {
+		String edibleName = Inheritance.Edible.class.getName().replace('.', '/');
+		String appleName = Inheritance.Apple.class.getName().replace('.', '/');
+		String grapeName = Inheritance.Grape.class.getName().replace('.', '/');
+
+		// Method that picks either an apple or a grape, so the frame after the branch merges the two types.
+		ClassWriter writer = new InheritanceClassWriter(graph, ClassWriter.COMPUTE_FRAMES);
+		writer.visit(V1_8, ACC_PUBLIC, "Picker", null, "java/lang/Object", null);
+		MethodVisitor mv = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "pick",
+				"(ZL" + appleName + ";L" + grapeName + ";)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Label grape = new Label();
+		Label end = new Label();
+		mv.visitVarInsn(ILOAD, 0);
+		mv.visitJumpInsn(IFEQ, grape);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitJumpInsn(GOTO, end);
+		mv.visitLabel(grape);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitLabel(end);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+
+		// ASM's default lookup does not consider interfaces, and would yield 'Object' for the merged type.
+		// The graph knows both implement 'Edible'.
+		ClassNode node = new ClassNode();
+		new ClassReader(writer.toByteArray()).accept(node, 0);
+		List<FrameNode> frames = new ArrayList<>();
+		for (AbstractInsnNode insn : node.methods.get(0).instructions)
+			if (insn instanceof FrameNode frame)
+				frames.add(frame);
+		assertFalse(frames.isEmpty(), "Frames should have been computed");
+		assertTrue(frames.stream().anyMatch(frame -> frame.stack != null && frame.stack.contains(edibleName)),
+				"Merged stack type should come from the inheritance graph");
+	}
+
+	@Test
+	void compactGraphMatchesVertexQueries() {
+		String edibleName = Inheritance.Edible.class.getName().replace('.', '/');
+		String appleName = Inheritance.Apple.class.getName().replace('.', '/');
+		String grapeName = Inheritance.Grape.class.getName().replace('.', '/');
+		String wormName = appleName + "WithWorm";
+		CompactInheritanceGraph compact = graph.getCompactGraph();
+
+		// Hierarchy checks
+		assertTrue(compact.isParentOf(appleName, wormName));
+		assertTrue(compact.isParentOf(edibleName, wormName));
+		assertFalse(compact.isParentOf(wormName, appleName));
+		assertFalse(compact.isParentOf(grapeName, appleName));
+
+		// Common types
+		assertEquals(graph.getCommon(appleName, grapeName), compact.getCommon(appleName, grapeName));
+		assertEquals(graph.getCommon(wormName, grapeName), compact.getCommon(wormName, grapeName));
+		assertEquals(appleName, compact.getCommon(wormName, appleName));
+		assertEquals("java/lang/Object", compact.getCommon(appleName, UUID.randomUUID().toString()));
+
+		// Family should be the same as the vertex family
+		assertEquals(graph.getVertexFamily(appleName, false), compact.getFamily(appleName, false));
+		assertEquals(graph.getVertexFamily(appleName, true), compact.getFamily(appleName, true));
+
+		// Ancestors and descendants line up with vertex lookups
+		int appleId = compact.getId(appleName);
+		Set<String> parents = compact.getAncestors(appleId).stream()
+				.mapToObj(compact::getName)
+				.collect(Collectors.toSet());
+		assertEquals(graph.getVertex(appleName).getAllParents().stream()
+				.map(InheritanceVertex::getName)
+				.collect(Collectors.toSet()), parents);
+		Set<String> children = compact.getDescendants(appleId).stream()
+				.mapToObj(compact::getName)
+				.collect(Collectors.toSet());
+		assertEquals(Set.of(wormName), children);
+
+		// ID arrays are sorted, and hold the same IDs as the sets
+		int[] parentIds = compact.getAncestorIds(appleId);
+		assertArrayEquals(compact.getAncestors(appleId).stream().toArray(), parentIds);
+		assertArrayEquals(new int[]{compact.getId(wormName)}, compact.getDescendantIds(appleId));
+	}
+
 	@Test
 	void getFamilyOfThrowable() {
 		String notFoodExceptionName = Inheritance.NotFoodException.class.getName().replace('.', '/');
@@ -125,4 +245,36 @@ class InheritanceGraphTest extends TestBase {
 				.toList();
 		assertTrue(throwableClasses.contains(notFoodException), "Subtypes of 'Throwable' did not yield 'NotFoodException'");
 	}
-}
\ No newline at end of file
+
+	@Test
+	void incrementalUpdates() {
+		String appleName = Inheritance.Apple.class.getName().replace('.', '/');
+		String sliceName = appleName + "Slice";
+		InheritanceVertex apple = graph.getVertex(appleName);
+		assertNotNull(apple);
+		int childCount = apple.getChildren().size();
+
+		// Adding a class should make it visible as a child of its parent
+		JvmClassInfo slice = createClass(sliceName, appleName);
+		JvmClassBundle bundle = workspace.getPrimaryResource().getJvmClassBundle();
+		bundle.put(slice);
+		try {
+			assertEquals(childCount + 1, apple.getChildren().size(), "Apple should have new child");
+			assertTrue(apple.getChildren().stream()
+					.map(InheritanceVertex::getName)
+					.anyMatch(sliceName::equals));
+		} finally {
+			bundle.remove(sliceName);
+		}
+
+		// Removing the class should remove it from its parent
+		assertEquals(childCount, apple.getChildren().size(), "Apple should no longer have removed child");
+	}
+
+	private static JvmClassInfo createClass(String name, String superName) {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(V1_8, ACC_PUBLIC, name, null, superName, null);
+		cw.visitEnd();
+		return new JvmClassInfoBuilder(new ClassReader(cw.toByteArray())).build();
+	}
+}
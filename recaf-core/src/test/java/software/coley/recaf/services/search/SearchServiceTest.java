@@ -1,32 +1,74 @@
 package software.coley.recaf.services.search;
 
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.CompilationFailedException;
+import com.android.tools.r8.CompilationMode;
+import com.android.tools.r8.D8;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexIndexedConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.dex.code.DexConstStringJumbo;
+import com.android.tools.r8.origin.Origin;
+import jakarta.annotation.Nonnull;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
 import software.coley.recaf.TestBase;
+import software.coley.recaf.info.BasicAndroidClassInfo;
 import software.coley.recaf.info.BasicTextFileInfo;
+import software.coley.recaf.info.JvmClassInfo;
 import software.coley.recaf.info.annotation.AnnotationInfo;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
 import software.coley.recaf.info.builder.TextFileInfoBuilder;
 import software.coley.recaf.info.member.ClassMember;
 import software.coley.recaf.path.*;
+import software.coley.recaf.services.search.builtin.InstructionPatternQuery;
+import software.coley.recaf.services.search.builtin.MultiStringQuery;
 import software.coley.recaf.services.search.builtin.NumberQuery;
 import software.coley.recaf.services.search.builtin.ReferenceQuery;
 import software.coley.recaf.services.search.builtin.StringQuery;
+import software.coley.recaf.services.search.index.ReferenceIndex;
+import software.coley.recaf.services.search.index.ReferenceIndexConfig;
+import software.coley.recaf.services.search.index.ValueIndex;
+import software.coley.recaf.services.search.index.ValueIndexConfig;
 import software.coley.recaf.services.search.result.*;
 import software.coley.recaf.test.TestClassUtils;
 import software.coley.recaf.test.dummy.*;
+import software.coley.recaf.util.DexIOUtil;
 import software.coley.recaf.util.NumberMatchMode;
 import software.coley.recaf.util.TextMatchMode;
+import software.coley.recaf.workspace.model.BasicWorkspace;
 import software.coley.recaf.workspace.model.EmptyWorkspace;
 import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.*;
 
 /**
  * Tests for {@link SearchService}
@@ -35,6 +77,7 @@ public class SearchServiceTest extends TestBase {
 	static SearchService searchService;
 	static Workspace classesWorkspace;
 	static Workspace filesWorkspace;
+	static Workspace androidWorkspace;
 
 	@BeforeAll
 	static void setup() throws IOException {
@@ -57,6 +100,9 @@ public class SearchServiceTest extends TestBase {
 				.withRawContent("1\n-1\n0xF\n0\n7".getBytes(StandardCharsets.UTF_8))
 				.build();
 		filesWorkspace = TestClassUtils.fromBundle(TestClassUtils.fromFiles(fileHello, fileNumbers));
+
+		// Make workspace with a dex file
+		androidWorkspace = dexWorkspace();
 	}
 
 	@Test
@@ -67,6 +113,71 @@ public class SearchServiceTest extends TestBase {
 		assertTrue(results.isEmpty(), "No results should be found in an empty workspace");
 	}
 
+	@Test
+	void testCancelled() {
+		CancellableSearchFeedback feedback = new CancellableSearchFeedback();
+		feedback.cancel();
+		Results results = searchService.search(classesWorkspace, new NumberQuery(NumberMatchMode.EQUALS, 4), feedback);
+		assertTrue(results.isEmpty(), "No results should be found in a cancelled search");
+
+		// The shared search pool should still be usable by later searches
+		results = searchService.search(classesWorkspace, new NumberQuery(NumberMatchMode.EQUALS, 4));
+		assertEquals(5, results.size());
+	}
+
+	@Test
+	void testStreamedAndLimited() {
+		Set<Result<?>> streamed = ConcurrentHashMap.newKeySet();
+		Results results = searchService.search(classesWorkspace, new NumberQuery(NumberMatchMode.NOT, 4), new SearchFeedback() {
+			@Override
+			public int getMaxResults() {
+				return 3;
+			}
+
+			@Override
+			public void onResult(@Nonnull Result<?> result) {
+				streamed.add(result);
+			}
+		});
+		assertEquals(3, results.size(), "Results should be capped at the limit");
+		assertEquals(streamed, results, "Streamed results should match returned results");
+	}
+
+	@Test
+	void testDuplicatesNotCountedOrStreamed() {
+		// Query reporting the same value at the same path twice for each class
+		JvmClassQuery query = delegate -> (resultSink, classPath, classInfo) -> {
+			resultSink.accept(classPath, "duplicate");
+			resultSink.accept(classPath, "duplicate");
+		};
+		List<Result<?>> streamed = Collections.synchronizedList(new ArrayList<>());
+		SearchFeedback feedback = new SearchFeedback() {
+			@Override
+			public void onResult(@Nonnull Result<?> result) {
+				streamed.add(result);
+			}
+		};
+		Results results = searchService.search(classesWorkspace, query, feedback);
+		assertEquals(3, results.size());
+		assertEquals(3, streamed.size(), "Duplicate results should not be streamed");
+
+		// Duplicates should not use up the limit
+		streamed.clear();
+		results = searchService.search(classesWorkspace, query, new SearchFeedback() {
+			@Override
+			public int getMaxResults() {
+				return 3;
+			}
+
+			@Override
+			public void onResult(@Nonnull Result<?> result) {
+				streamed.add(result);
+			}
+		});
+		assertEquals(3, results.size());
+		assertEquals(3, streamed.size());
+	}
+
 	@Nested
 	class Jvm {
 		@Test
@@ -111,6 +222,49 @@ public class SearchServiceTest extends TestBase {
 			assertEquals(1, results.size());
 		}
 
+		@Test
+		void testBatchedClassStrings() {
+			List<StringQuery> queries = List.of(
+					new StringQuery(TextMatchMode.EQUALS, "Hello world"),
+					new StringQuery(TextMatchMode.CONTAINS, "o w"),
+					new StringQuery(TextMatchMode.STARTS_WITH, "Hel"),
+					new StringQuery(TextMatchMode.ENDS_WITH, "rld"),
+					new StringQuery(TextMatchMode.CONTAINS, ":"),
+					new StringQuery(TextMatchMode.REGEX, "\\w+\\s\\w+"),
+					new StringQuery(TextMatchMode.EQUALS, "not present")
+			);
+
+			// Batched search should find the same results as each query on its own
+			Set<Result<?>> expected = new TreeSet<>();
+			for (StringQuery query : queries)
+				expected.addAll(searchService.search(classesWorkspace, query));
+			Results results = searchService.search(classesWorkspace, List.<Query>copyOf(queries));
+			assertEquals(expected, results);
+
+			// Multi-query should report which queries matched
+			MultiStringQuery multiQuery = new MultiStringQuery(queries);
+			assertEquals(List.of(queries.get(0), queries.get(1), queries.get(2), queries.get(3), queries.get(5)),
+					multiQuery.getMatchingQueries("Hello world"));
+			assertEquals(List.of(queries.get(5), queries.get(6)), multiQuery.getMatchingQueries("not present"));
+		}
+
+		@Test
+		void testManyClasses() {
+			// Enough classes to be split across multiple search tasks
+			int count = 2000;
+			JvmClassInfo[] classes = new JvmClassInfo[count];
+			for (int i = 0; i < count; i++) {
+				ClassWriter writer = new ClassWriter(0);
+				writer.visit(V1_8, ACC_PUBLIC, "Generated" + i, null, "java/lang/Object", null);
+				writer.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, "VALUE", "Ljava/lang/String;", null, "chunked").visitEnd();
+				writer.visitEnd();
+				classes[i] = new JvmClassInfoBuilder(new ClassReader(writer.toByteArray())).build();
+			}
+			Workspace workspace = TestClassUtils.fromBundle(TestClassUtils.fromClasses(classes));
+			Results results = searchService.search(workspace, new StringQuery(TextMatchMode.EQUALS, "chunked"));
+			assertEquals(count, results.size());
+		}
+
 		@Test
 		void testFieldPath() {
 			// Used only in constant-value attribute for field 'CONSTANT_FIELD'
@@ -250,6 +404,326 @@ public class SearchServiceTest extends TestBase {
 					.collect(Collectors.toSet());
 			assertEquals(1, varMatches.size());
 		}
+
+		@Test
+		void testInstructionPatternPrintln() {
+			// Both 'HelloWorld' and 'StringConsumer' print with System.out, with different instructions in between
+			Results results = searchService.search(classesWorkspace, new InstructionPatternQuery(List.of(
+					"GETSTATIC java/lang/System.out *",
+					"...",
+					"INVOKEVIRTUAL java/io/PrintStream.println {desc}"
+			)));
+			assertEquals(2, results.size());
+			for (Result<?> result : results) {
+				assertInstanceOf(InstructionPatternResult.class, result);
+				assertInstanceOf(InstructionPathNode.class, result.getPath());
+				InstructionPatternResult.InstructionMatch match = ((InstructionPatternResult) result).getMatch();
+				assertEquals("(Ljava/lang/String;)V", match.getCaptures().get("desc"));
+			}
+
+			// Only 'HelloWorld' prints a constant
+			results = searchService.search(classesWorkspace, new InstructionPatternQuery(List.of(
+					"GETSTATIC",
+					"LDC {text}",
+					"INVOKEVIRTUAL"
+			)));
+			assertEquals(1, results.size());
+			InstructionPatternResult result = (InstructionPatternResult) results.iterator().next();
+			assertEquals("\"Hello world\"", result.getMatch().getCaptures().get("text"));
+			assertEquals(3, result.getMatch().getInstructions().size());
+
+			// Backreferences must match the first capture
+			results = searchService.search(classesWorkspace, new InstructionPatternQuery(List.of(
+					"GETSTATIC {owner}.*",
+					"...",
+					"INVOKEVIRTUAL {owner}.*"
+			)));
+			assertTrue(results.isEmpty());
+
+			// Unknown opcodes are rejected
+			assertThrows(IllegalArgumentException.class, () -> new InstructionPatternQuery(List.of("NOT_AN_OPCODE")));
+
+			// Patterns need at least one instruction besides gaps
+			assertThrows(IllegalArgumentException.class, () -> new InstructionPatternQuery(List.of("...")));
+			assertThrows(IllegalArgumentException.class, () -> new InstructionPatternQuery(List.of("...", "", "...")));
+		}
+
+		@Test
+		void testInstructionPatternBacktracksSharedCaptures() {
+			// The first 'ILOAD' binds 'v' to a variable that is never stored to,
+			// so the match must be retried with the second 'ILOAD' instead.
+			Workspace workspace = methodWorkspace(mv -> {
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitVarInsn(ILOAD, 1);
+				mv.visitVarInsn(ILOAD, 2);
+				mv.visitVarInsn(ISTORE, 2);
+			});
+			Results results = searchService.search(workspace, new InstructionPatternQuery(List.of(
+					"ALOAD 0",
+					"...",
+					"ILOAD {v}",
+					"...",
+					"ISTORE {v}"
+			)));
+			assertEquals(1, results.size());
+			InstructionPatternResult.InstructionMatch match = ((InstructionPatternResult) results.iterator().next()).getMatch();
+			assertEquals("2", match.getCaptures().get("v"));
+			assertEquals(4, match.getInstructions().size());
+		}
+
+		@Test
+		void testInstructionPatternGapsScaleLinearly() {
+			// Without backtracking, patterns with many gaps that cannot match do not blow up on long methods.
+			Workspace workspace = methodWorkspace(mv -> {
+				for (int i = 0; i < 5000; i++)
+					mv.visitInsn(NOP);
+			});
+			InstructionPatternQuery query = new InstructionPatternQuery(List.of(
+					"NOP", "...", "NOP", "...", "NOP", "...", "NOP {x}", "...", "ICONST_1"
+			));
+			Results results = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> searchService.search(workspace, query));
+			assertTrue(results.isEmpty());
+
+			// Matches are still found, and do not overlap
+			results = searchService.search(workspace, new InstructionPatternQuery(List.of("NOP", "...", "NOP")));
+			assertEquals(2500, results.size());
+		}
+	}
+
+	@Nested
+	class Indexed {
+		@Test
+		void testIndexedResultsMatchScan() {
+			List<Query> queries = List.of(
+					new StringQuery(TextMatchMode.EQUALS, "Hello world"),
+					new StringQuery(TextMatchMode.CONTAINS, ":"),
+					new StringQuery(TextMatchMode.REGEX, "\\w+\\s\\w+"),
+					new NumberQuery(NumberMatchMode.EQUALS, 4),
+					new NumberQuery(NumberMatchMode.GREATER_OR_EQUAL_THAN, 4),
+					new NumberQuery(NumberMatchMode.NOT, 4)
+			);
+
+			// Searches outside the current workspace do a full scan.
+			List<Results> scanned = queries.stream()
+					.map(query -> searchService.search(classesWorkspace, query))
+					.toList();
+			try {
+				workspaceManager.setCurrent(classesWorkspace);
+				ValueIndex index = recaf.get(ValueIndex.class);
+				assertTrue(index.awaitReady(), "Index should be populated in the background");
+				assertTrue(index.getValueCount() > 0, "Index should be populated");
+				for (int i = 0; i < queries.size(); i++)
+					assertEquals(scanned.get(i), searchService.search(classesWorkspace, queries.get(i)));
+			} finally {
+				workspaceManager.setCurrent(null);
+			}
+		}
+
+		@Test
+		void testIndexedReferencesMatchScan() throws IOException {
+			Workspace workspace = TestClassUtils.fromBundle(TestClassUtils.fromClasses(
+					TestClassUtils.fromRuntimeClass(HelloWorld.class),
+					TestClassUtils.fromRuntimeClass(StringConsumer.class),
+					TestClassUtils.fromRuntimeClass(ClassWithExceptions.class)
+			));
+			List<Query> queries = List.of(
+					new ReferenceQuery(TextMatchMode.EQUALS, "java/lang/System", "out", "Ljava/io/PrintStream;"),
+					new ReferenceQuery(TextMatchMode.EQUALS, null, "out", null),
+					new ReferenceQuery(TextMatchMode.CONTAINS, "java/io", null, null),
+					new ReferenceQuery(TextMatchMode.EQUALS, "java/lang/NumberFormatException"),
+					new ReferenceQuery(TextMatchMode.STARTS_WITH, "java/lang/")
+			);
+
+			// Searches outside the current workspace do a full scan.
+			List<Results> scanned = queries.stream()
+					.map(query -> searchService.search(workspace, query))
+					.toList();
+			try {
+				workspaceManager.setCurrent(workspace);
+				ReferenceIndex index = recaf.get(ReferenceIndex.class);
+				assertTrue(index.awaitReady(), "Index should be populated in the background");
+				assertTrue(index.getReferenceCount() > 0, "Index should be populated");
+				for (int i = 0; i < queries.size(); i++)
+					assertEquals(scanned.get(i), searchService.search(workspace, queries.get(i)));
+			} finally {
+				workspaceManager.setCurrent(null);
+			}
+		}
+
+		@Test
+		void testStoredReferenceIndex() throws IOException {
+			Path storeDirectory = Files.createTempDirectory("recaf-references");
+			try {
+				ReferenceIndex built = new ReferenceIndex(new ReferenceIndexConfig(), storeDirectory, classesWorkspace);
+				assertTrue(built.awaitReady());
+				try (Stream<Path> shards = Files.list(storeDirectory)) {
+					assertTrue(shards.findAny().isPresent(), "Index not stored");
+				}
+
+				// Loading the stored index should yield the same references
+				ReferenceIndex loaded = new ReferenceIndex(new ReferenceIndexConfig(), storeDirectory, classesWorkspace);
+				assertTrue(loaded.awaitReady());
+				assertEquals(built.getReferenceCount(), loaded.getReferenceCount());
+				assertEquals(built.getClassesReferencingClass("java/io/PrintStream"),
+						loaded.getClassesReferencingClass("java/io/PrintStream"));
+			} finally {
+				try (Stream<Path> paths = Files.walk(storeDirectory)) {
+					paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+				}
+			}
+		}
+
+		@Test
+		void testStoredReferenceIndexSharedAcrossWorkspaces() throws IOException {
+			Path storeDirectory = Files.createTempDirectory("recaf-references");
+			try {
+				JvmClassInfo helloWorld = TestClassUtils.fromRuntimeClass(HelloWorld.class);
+				JvmClassInfo stringConsumer = TestClassUtils.fromRuntimeClass(StringConsumer.class);
+				JvmClassInfo exceptions = TestClassUtils.fromRuntimeClass(ClassWithExceptions.class);
+				Workspace first = TestClassUtils.fromBundle(TestClassUtils.fromClasses(helloWorld, stringConsumer));
+				Workspace second = TestClassUtils.fromBundle(TestClassUtils.fromClasses(helloWorld, exceptions));
+				assertTrue(new ReferenceIndex(new ReferenceIndexConfig(), storeDirectory, first).awaitReady());
+				assertTrue(new ReferenceIndex(new ReferenceIndexConfig(), storeDirectory, second).awaitReady());
+				Map<Path, FileTime> stored = shardTimes(storeDirectory);
+				assertFalse(stored.isEmpty(), "Index not stored");
+
+				// A workspace of classes which were each stored before is loaded without rewriting any shard of the store
+				Workspace combined = TestClassUtils.fromBundle(TestClassUtils.fromClasses(helloWorld, stringConsumer, exceptions));
+				ReferenceIndex loaded = new ReferenceIndex(new ReferenceIndexConfig(), storeDirectory, combined);
+				assertTrue(loaded.awaitReady());
+				assertEquals(stored, shardTimes(storeDirectory), "All classes should have been found in the store");
+				ReferenceIndex built = new ReferenceIndex(new ReferenceIndexConfig(), null, combined);
+				assertTrue(built.awaitReady());
+				assertEquals(built.getReferenceCount(), loaded.getReferenceCount());
+			} finally {
+				try (Stream<Path> paths = Files.walk(storeDirectory)) {
+					paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+				}
+			}
+		}
+
+		@Test
+		void testStoredValueIndex() throws IOException {
+			Path storeDirectory = Files.createTempDirectory("recaf-values");
+			try {
+				ValueIndex built = new ValueIndex(new ValueIndexConfig(), storeDirectory, classesWorkspace);
+				assertTrue(built.awaitReady());
+				Map<Path, FileTime> stored = shardTimes(storeDirectory);
+				assertFalse(stored.isEmpty(), "Index not stored");
+
+				// Loading the stored index should yield the same values without rewriting the store
+				ValueIndex loaded = new ValueIndex(new ValueIndexConfig(), storeDirectory, classesWorkspace);
+				assertTrue(loaded.awaitReady());
+				assertEquals(stored, shardTimes(storeDirectory), "All classes should have been found in the store");
+				assertEquals(built.getValueCount(), loaded.getValueCount());
+				assertEquals(built.getClassesWithValue("Hello world"), loaded.getClassesWithValue("Hello world"));
+				assertEquals(built.getClassesWithValue(4), loaded.getClassesWithValue(4));
+			} finally {
+				try (Stream<Path> paths = Files.walk(storeDirectory)) {
+					paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+				}
+			}
+		}
+
+		@Test
+		void testIndexTracksClassChanges() throws IOException {
+			Workspace workspace = TestClassUtils.fromBundle(TestClassUtils.fromClasses(
+					TestClassUtils.fromRuntimeClass(AccessibleFields.class)
+			));
+			StringQuery query = new StringQuery(TextMatchMode.EQUALS, "Hello world");
+			try {
+				workspaceManager.setCurrent(workspace);
+				assertTrue(recaf.get(ValueIndex.class).awaitReady(), "Index should be populated in the background");
+				assertEquals(0, searchService.search(workspace, query).size());
+
+				// Adding a class with the value should be reflected in the index
+				JvmClassBundle bundle = workspace.getPrimaryResource().getJvmClassBundle();
+				JvmClassInfo helloWorld = TestClassUtils.fromRuntimeClass(HelloWorld.class);
+				bundle.put(helloWorld);
+				assertEquals(1, searchService.search(workspace, query).size());
+
+				// Removing it should be too
+				bundle.remove(helloWorld.getName());
+				assertEquals(0, searchService.search(workspace, query).size());
+			} finally {
+				workspaceManager.setCurrent(null);
+			}
+		}
+	}
+
+	@Nested
+	class Android {
+		@Test
+		void testDexNumbers() {
+			Results results = searchService.search(androidWorkspace, new NumberQuery(NumberMatchMode.EQUALS, 0x12345678));
+			assertEquals(1, results.size());
+			assertMethodPath("ints", results.first());
+
+			results = searchService.search(androidWorkspace, new NumberQuery(NumberMatchMode.EQUALS, 123456789012L));
+			assertEquals(1, results.size());
+			assertMethodPath("longs", results.first());
+
+			// Dalvik constants are untyped, so floating point values are matched by both their value and raw bits
+			results = searchService.search(androidWorkspace, new NumberQuery(NumberMatchMode.EQUALS, 1.5F));
+			assertEquals(1, results.size());
+			assertMethodPath("ints", results.first());
+			results = searchService.search(androidWorkspace, new NumberQuery(NumberMatchMode.EQUALS, 1.0));
+			assertEquals(1, results.size());
+			assertMethodPath("longs", results.first());
+			results = searchService.search(androidWorkspace, new NumberQuery(NumberMatchMode.EQUALS, Float.floatToRawIntBits(1.5F)));
+			assertEquals(1, results.size());
+			assertMethodPath("ints", results.first());
+			results = searchService.search(androidWorkspace, new NumberQuery(NumberMatchMode.EQUALS, Double.doubleToRawLongBits(1.0)));
+			assertEquals(1, results.size());
+			assertMethodPath("longs", results.first());
+		}
+
+		@Test
+		void testDexStrings() {
+			Results results = searchService.search(androidWorkspace, new StringQuery(TextMatchMode.EQUALS, "Hello dex"));
+			assertEquals(1, results.size());
+			assertMethodPath("strings", results.first());
+
+			// There are enough strings in the dex file for this one to be loaded with 'const-string/jumbo'
+			BasicAndroidClassInfo classInfo = (BasicAndroidClassInfo) androidWorkspace.getPrimaryResource()
+					.getAndroidClassBundles().get("classes.dex").get("DexValues");
+			assertTrue(classInfo.getDexClass().methods().stream()
+					.filter(method -> method.getCode() != null && method.getCode().isDexCode())
+					.flatMap(method -> Stream.of(method.getCode().asDexCode().instructions))
+					.anyMatch(instruction -> instruction instanceof DexConstStringJumbo));
+			results = searchService.search(androidWorkspace, new StringQuery(TextMatchMode.EQUALS, "~jumbo"));
+			assertEquals(1, results.size());
+			assertMethodPath("strings", results.first());
+		}
+
+		@Test
+		void testDexReferences() {
+			// Type operands of 'new-instance' and 'const-class'
+			Results results = searchService.search(androidWorkspace, new ReferenceQuery(
+					TextMatchMode.EQUALS, "java/lang/StringBuilder"));
+			assertEquals(1, results.size());
+			assertMethodPath("types", results.first());
+			results = searchService.search(androidWorkspace, new ReferenceQuery(
+					TextMatchMode.EQUALS, "java/util/Random"));
+			assertEquals(1, results.size());
+			assertMethodPath("types", results.first());
+
+			// Field and method references
+			results = searchService.search(androidWorkspace, new ReferenceQuery(
+					TextMatchMode.EQUALS, "java/lang/System", "out", "Ljava/io/PrintStream;"));
+			assertEquals(1, results.size());
+			assertMethodPath("fields", results.first());
+			assertInstanceOf(MemberReferenceResult.class, results.first());
+			results = searchService.search(androidWorkspace, new ReferenceQuery(
+					TextMatchMode.EQUALS, "DexValues", "sinkS", "(Ljava/lang/String;)V"));
+			assertEquals(1, results.size());
+			assertMethodPath("strings", results.first());
+		}
+
+		private void assertMethodPath(@Nonnull String name, @Nonnull Result<?> result) {
+			ClassMemberPathNode memberPath = assertInstanceOf(ClassMemberPathNode.class, result.getPath());
+			assertEquals(name, memberPath.getValue().getName());
+		}
 	}
 
 	@Nested
@@ -295,5 +769,164 @@ public class SearchServiceTest extends TestBase {
 			results = searchService.search(filesWorkspace, new StringQuery(TextMatchMode.REGEX, "\\w+\\s\\w+"));
 			assertEquals(1, results.size());
 		}
+
+		@Test
+		void testLargeFileLines() {
+			// Large enough to be scanned in parallel ranges, with mixed line separators
+			StringBuilder sb = new StringBuilder();
+			int lineCount = 50_000;
+			for (int i = 0; i < lineCount; i++)
+				sb.append("line ").append(i).append(i % 2 == 0 ? "\n" : "\r\n");
+			BasicTextFileInfo file = new TextFileInfoBuilder()
+					.withName("large.txt")
+					.withRawContent(sb.toString().getBytes(StandardCharsets.UTF_8))
+					.build();
+			Workspace workspace = TestClassUtils.fromBundle(TestClassUtils.fromFiles(file));
+			String[] lines = file.getText().split("\\r?\\n\\r?");
+			assertEquals(lines.length, file.getLineIndex().getLineCount());
+
+			// Literal contains check, should match regex split behavior line for line
+			Results results = searchService.search(workspace, new StringQuery(TextMatchMode.CONTAINS, "99"));
+			Set<Integer> expected = new TreeSet<>();
+			for (int i = 0; i < lines.length; i++)
+				if (lines[i].contains("99"))
+					expected.add(i + 1);
+			Set<Integer> actual = results.stream()
+					.map(r -> ((LineNumberPathNode) r.getPath()).getValue())
+					.collect(Collectors.toCollection(TreeSet::new));
+			assertEquals(expected, actual);
+
+			// Exact line match should not include line separators
+			results = searchService.search(workspace, new StringQuery(TextMatchMode.EQUALS, "line 12345"));
+			assertEquals(1, results.size());
+			assertEquals(12346, ((LineNumberPathNode) results.first().getPath()).getValue());
+		}
+	}
+
+	@Nonnull
+	private static Map<Path, FileTime> shardTimes(@Nonnull Path storeDirectory) throws IOException {
+		try (Stream<Path> shards = Files.list(storeDirectory)) {
+			Map<Path, FileTime> times = new HashMap<>();
+			for (Path shard : shards.toList())
+				times.put(shard, Files.getLastModifiedTime(shard));
+			return times;
+		}
+	}
+
+	@Nonnull
+	private static Workspace methodWorkspace(@Nonnull Consumer<MethodVisitor> code) {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(V1_8, ACC_PUBLIC, "Code", null, "java/lang/Object", null);
+		MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, "code", "(II)V", null, null);
+		mv.visitCode();
+		code.accept(mv);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(4, 4);
+		mv.visitEnd();
+		writer.visitEnd();
+		JvmClassInfo classInfo = new JvmClassInfoBuilder(new ClassReader(writer.toByteArray())).build();
+		return TestClassUtils.fromBundle(TestClassUtils.fromClasses(classInfo));
+	}
+
+	/**
+	 * @return Workspace with a dex file compiled from a class with a method for each kind of searchable operand.
+	 * The dex file has enough strings that the last one in sorted order needs {@code const-string/jumbo}.
+	 *
+	 * @throws IOException
+	 * 		When the dex file cannot be compiled or read.
+	 */
+	@Nonnull
+	private static Workspace dexWorkspace() throws IOException {
+		D8Command.Builder builder = D8Command.builder()
+				.setMode(CompilationMode.DEBUG)
+				.setMinApiLevel(26)
+				.setDisableDesugaring(true);
+
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(V1_8, ACC_PUBLIC, "DexValues", null, "java/lang/Object", null);
+		dexMethod(writer, "ints", mv -> {
+			mv.visitLdcInsn(0x12345678);
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkI", "(I)V", false);
+			mv.visitLdcInsn(1.5F);
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkF", "(F)V", false);
+		});
+		dexMethod(writer, "longs", mv -> {
+			mv.visitLdcInsn(123456789012L);
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkJ", "(J)V", false);
+			mv.visitLdcInsn(1.0);
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkD", "(D)V", false);
+		});
+		dexMethod(writer, "strings", mv -> {
+			mv.visitLdcInsn("Hello dex");
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkS", "(Ljava/lang/String;)V", false);
+			mv.visitLdcInsn("~jumbo");
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkS", "(Ljava/lang/String;)V", false);
+		});
+		dexMethod(writer, "types", mv -> {
+			mv.visitTypeInsn(NEW, "java/lang/StringBuilder");
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V", false);
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkO", "(Ljava/lang/Object;)V", false);
+			mv.visitLdcInsn(Type.getObjectType("java/util/Random"));
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkO", "(Ljava/lang/Object;)V", false);
+		});
+		dexMethod(writer, "fields", mv -> {
+			mv.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+			mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkO", "(Ljava/lang/Object;)V", false);
+		});
+		for (String sink : List.of("sinkI(I)V", "sinkJ(J)V", "sinkF(F)V", "sinkD(D)V",
+				"sinkS(Ljava/lang/String;)V", "sinkO(Ljava/lang/Object;)V")) {
+			int descStart = sink.indexOf('(');
+			MethodVisitor mv = writer.visitMethod(ACC_PUBLIC | ACC_STATIC,
+					sink.substring(0, descStart), sink.substring(descStart), null, null);
+			mv.visitCode();
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+		writer.visitEnd();
+		builder.addClassProgramData(writer.toByteArray(), Origin.unknown());
+
+		// Pad the dex file past the 16-bit string index limit
+		for (int i = 0; i < 7; i++) {
+			int offset = i * 10_000;
+			ClassWriter fillerWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+			fillerWriter.visit(V1_8, ACC_PUBLIC, "Filler" + i, null, "java/lang/Object", null);
+			dexMethod(fillerWriter, "fill", mv -> {
+				for (int j = 0; j < 10_000; j++) {
+					mv.visitLdcInsn("f" + (offset + j));
+					mv.visitMethodInsn(INVOKESTATIC, "DexValues", "sinkS", "(Ljava/lang/String;)V", false);
+				}
+			});
+			fillerWriter.visitEnd();
+			builder.addClassProgramData(fillerWriter.toByteArray(), Origin.unknown());
+		}
+
+		List<byte[]> dexFiles = new ArrayList<>();
+		try {
+			D8.run(builder.setProgramConsumer(new DexIndexedConsumer.ForwardingConsumer(null) {
+				@Override
+				public void accept(int fileIndex, ByteDataView data, Set<String> descriptors, DiagnosticsHandler handler) {
+					dexFiles.add(data.copyByteData());
+				}
+			}).build());
+		} catch (CompilationFailedException ex) {
+			throw new IOException(ex);
+		}
+		assertEquals(1, dexFiles.size(), "Fixture should compile to a single dex file");
+
+		WorkspaceResource resource = new WorkspaceResourceBuilder()
+				.withAndroidClassBundles(Map.of("classes.dex", DexIOUtil.read(dexFiles.get(0))))
+				.build();
+		return new BasicWorkspace(resource);
+	}
+
+	private static void dexMethod(@Nonnull ClassWriter writer, @Nonnull String name, @Nonnull Consumer<MethodVisitor> code) {
+		MethodVisitor mv = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, name, "()V", null, null);
+		mv.visitCode();
+		code.accept(mv);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
 	}
 }
@@ -0,0 +1,90 @@
+package software.coley.recaf.services.info.builtin;
+
+import atlantafx.base.theme.Styles;
+import jakarta.annotation.Nonnull;
+import jakarta.enterprise.context.ApplicationScoped;
+import javafx.scene.control.Label;
+import software.coley.recaf.info.BasicFileInfo;
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.services.info.ResourceSummarizer;
+import software.coley.recaf.services.info.SummaryConsumer;
+import software.coley.recaf.ui.control.BoundLabel;
+import software.coley.recaf.util.Lang;
+import software.coley.recaf.util.io.ContentInterner;
+import software.coley.recaf.workspace.io.InfoImporterConfig;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.FileBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Summarizer that shows how much content is shared between the entries of the current workspace.
+ * Content is shared when it is interned on import, see {@link InfoImporterConfig#getDeduplicateContent()}.
+ * <p>
+ * Interned contents are the same array instance, so sharing is counted by identity rather than by reading
+ * the content of every entry. Contents read from a source on demand are not on the heap, and are skipped.
+ *
+ * @author Matt Coley
+ * @see ContentInterner
+ */
+@ApplicationScoped
+public class SharedContentSummarizer implements ResourceSummarizer {
+	@Override
+	public boolean summarize(@Nonnull Workspace workspace,
+							 @Nonnull WorkspaceResource resource,
+							 @Nonnull SummaryConsumer consumer) {
+		// Shared content spans resources, so we only summarize once for the whole workspace.
+		if (resource != workspace.getPrimaryResource())
+			return false;
+
+		// Count each content array seen more than once in the workspace's resources.
+		Map<byte[], Boolean> seen = new IdentityHashMap<>();
+		long sharedCount = 0;
+		long sharedBytes = 0;
+		for (WorkspaceResource workspaceResource : workspace.getAllResources(false)) {
+			for (byte[] content : contents(workspaceResource).toList()) {
+				if (seen.put(content, Boolean.TRUE) != null) {
+					sharedCount++;
+					sharedBytes += content.length;
+				}
+			}
+		}
+
+		// Skip if nothing is shared, which is always the case when interning is disabled.
+		if (sharedCount == 0)
+			return false;
+
+		Label title = new BoundLabel(Lang.getBinding("service.analysis.shared-content"));
+		title.getStyleClass().add(Styles.TEXT_BOLD);
+		consumer.appendSummary(title);
+		consumer.appendSummary(new BoundLabel(Lang.getBinding("service.analysis.shared-content.entries")),
+				new Label(String.valueOf(sharedCount)));
+		consumer.appendSummary(new BoundLabel(Lang.getBinding("service.analysis.shared-content.saved")),
+				new Label(String.format("%.2f MB", sharedBytes / (1024.0 * 1024.0))));
+		return true;
+	}
+
+	/**
+	 * @param resource
+	 * 		Resource to pull content from, including embedded resources.
+	 *
+	 * @return Heap content of the JVM classes and files in the resource.
+	 */
+	@Nonnull
+	private static Stream<byte[]> contents(@Nonnull WorkspaceResource resource) {
+		Stream<byte[]> classes = Stream.concat(resource.jvmClassBundleStreamRecursive(),
+						resource.versionedJvmClassBundleStreamRecursive())
+				.flatMap(JvmClassBundle::stream)
+				.map(JvmClassInfo::getBytecode);
+		Stream<byte[]> files = resource.fileBundleStreamRecursive()
+				.flatMap(FileBundle::stream)
+				.filter(file -> !(file instanceof BasicFileInfo basicFile && basicFile.isContentSourced()))
+				.map(FileInfo::getRawContent);
+		return Stream.concat(classes, files);
+	}
+}